@@ -0,0 +1,163 @@
+package com.team021.financial_nudger.service;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.team021.financial_nudger.domain.Transaction;
+
+/**
+ * Rows per second for writing one 500-line statement into MySQL, the way the two id strategies make
+ * Hibernate do it: {@code identityPerRow} is one INSERT round trip per row reading back the
+ * AUTO_INCREMENT key (what IDENTITY forced), {@code pooledBatch} takes ids from an {@code id_generators}
+ * block and sends JDBC batches of {@code batchSize} (what the pooled table generator allows). Works on
+ * scratch tables, never on {@code transactions}. Needs a MySQL schema. The bench opens its own connection,
+ * so add {@code rewriteBatchedStatements=true} to the URL to match the pool, which gets it from
+ * {@code PersistenceConfig} ({@code persistence.jdbc.rewrite-batched-statements}):
+ * <pre>mvn -Pjmh test-compile exec:java -Dexec.args=TransactionInsertBenchmark
+ *     -Dbench.db.url=jdbc:mysql://localhost:3306/nudger_bench?rewriteBatchedStatements=true -Dbench.db.user=root</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransactionInsertBenchmark {
+
+    private static final int ROWS = 500;
+    private static final String COLUMNS = "user_id, date, amount, type, file_id, description, currency, "
+            + "is_ai_categorized, is_user_categorized, fingerprint";
+
+    @Param({"50"})
+    public int batchSize;
+
+    private Connection connection;
+    private final String[] descriptions = new String[ROWS];
+
+    @Setup
+    public void connect() throws SQLException {
+        String url = System.getProperty("bench.db.url");
+        if (url == null) throw new IllegalStateException("Set -Dbench.db.url (and -Dbench.db.user / -Dbench.db.password)");
+        connection = DriverManager.getConnection(url,
+                System.getProperty("bench.db.user", "root"), System.getProperty("bench.db.password", ""));
+        connection.setAutoCommit(false);
+        try (Statement ddl = connection.createStatement()) {
+            String row = "user_id INT NOT NULL, date DATE NOT NULL, amount DECIMAL(15,2) NOT NULL, "
+                    + "type VARCHAR(16) NOT NULL, file_id INT, description VARCHAR(255), currency VARCHAR(8), "
+                    + "is_ai_categorized BIT NOT NULL, is_user_categorized BIT NOT NULL, fingerprint BIGINT, "
+                    + "INDEX (user_id, fingerprint), INDEX (user_id, date, transaction_id)";
+            ddl.execute("CREATE TABLE IF NOT EXISTS bench_txn_identity (transaction_id INT AUTO_INCREMENT PRIMARY KEY, " + row + ")");
+            ddl.execute("CREATE TABLE IF NOT EXISTS bench_txn_pooled (transaction_id INT PRIMARY KEY, " + row + ")");
+            ddl.execute("CREATE TABLE IF NOT EXISTS bench_id_generators (generator_name VARCHAR(255) PRIMARY KEY, next_val BIGINT)");
+        }
+        connection.commit();
+        for (int i = 0; i < ROWS; i++) descriptions[i] = "UPI-MERCHANT-" + i + "-PAYMENT REF " + (100_000 + i);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("TRUNCATE TABLE bench_txn_identity");
+            ddl.execute("TRUNCATE TABLE bench_txn_pooled");
+            ddl.execute("DELETE FROM bench_id_generators");
+            ddl.execute("INSERT INTO bench_id_generators VALUES ('transactions', 0)");
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void dropTables() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS bench_txn_identity, bench_txn_pooled, bench_id_generators");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long identityPerRow() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO bench_txn_identity (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < ROWS; i++) {
+                bind(insert, 1, i);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    if (keys.next()) lastId = keys.getLong(1);
+                }
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long pooledBatch() throws SQLException {
+        long nextId = 0;
+        long blockEnd = 0;
+        try (PreparedStatement allocate = connection.prepareStatement(
+                     "UPDATE bench_id_generators SET next_val = next_val + ? WHERE generator_name = 'transactions'");
+             PreparedStatement read = connection.prepareStatement(
+                     "SELECT next_val FROM bench_id_generators WHERE generator_name = 'transactions'");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO bench_txn_pooled (transaction_id, " + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                if (nextId == blockEnd) {
+                    // Same round trips as the pooled optimizer: bump the counter once per block
+                    allocate.setInt(1, Transaction.ID_ALLOCATION_SIZE);
+                    allocate.executeUpdate();
+                    try (ResultSet rs = read.executeQuery()) {
+                        rs.next();
+                        blockEnd = rs.getLong(1);
+                    }
+                    nextId = blockEnd - Transaction.ID_ALLOCATION_SIZE;
+                }
+                insert.setLong(1, ++nextId);
+                bind(insert, 2, i);
+                insert.addBatch();
+                if ((i + 1) % batchSize == 0) insert.executeBatch();
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        return nextId;
+    }
+
+    private void bind(PreparedStatement insert, int from, int row) throws SQLException {
+        insert.setInt(from, 1);
+        insert.setDate(from + 1, Date.valueOf(LocalDate.of(2024, 4, row % 28 + 1)));
+        insert.setBigDecimal(from + 2, BigDecimal.valueOf(10_000 + row * 37L, 2));
+        insert.setString(from + 3, row % 5 == 0 ? "CREDIT" : "DEBIT");
+        insert.setInt(from + 4, 1);
+        insert.setString(from + 5, descriptions[row]);
+        insert.setString(from + 6, "INR");
+        insert.setBoolean(from + 7, false);
+        insert.setBoolean(from + 8, false);
+        insert.setLong(from + 9, descriptions[row].hashCode() * 31L + row);
+    }
+}
@@ -0,0 +1,68 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Statement lines per second: {@link StatementAmountScanner} against the regex it replaced in
+ * {@code TransactionService.parseAmountAndType}. Run with {@code -prof gc} to compare allocation:
+ * <pre>mvn -Pjmh test-compile exec:java -Dexec.args="StatementAmountBenchmark -prof gc"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementAmountBenchmark {
+
+    private static final Pattern AMOUNT_PATTERN =
+            Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*\\((Dr|Cr)\\)", Pattern.CASE_INSENSITIVE);
+
+    private static final String[] LINES = {
+            "12/03/2024 UPI/SWIGGY/9876543210/food order 1250.00 (Dr)",
+            "13/03/2024 POS 4321XXXX1234 RELIANCE FRESH 2,340.50 (Dr)",
+            "14/03/2024 NEFT-HDFC0001234-SALARY OCT 1,23,456.78 CR 2,45,000.10 Cr",
+            "15/03/2024 ATM WDL 000123 MG ROAD 5,000.00 0.00 2,40,000.10",
+            "16/03/2024 IMPS FROM RAHUL 0.00 3,000.00 2,43,000.10",
+            "17-Mar-2024 NETFLIX.COM SUBSCRIPTION 649.00 Dr 2,42,351.10 Cr",
+            "18 Mar 2024 electricity bill bescom 1234567 1,870.00 - 2,40,481.10",
+            "19/03/2024 IRCTC TICKET PNR 4412345678 2,115.45 (Dr)",
+    };
+
+    private final StatementAmountScanner.Amounts amounts = new StatementAmountScanner.Amounts();
+
+    @Benchmark
+    public void regex(Blackhole bh) {
+        for (String line : LINES) {
+            Matcher m = AMOUNT_PATTERN.matcher(line);
+            if (m.find()) {
+                bh.consume(new BigDecimal(m.group(1)));
+                bh.consume(m.group(2).equalsIgnoreCase("CR"));
+            }
+        }
+    }
+
+    @Benchmark
+    public void scanner(Blackhole bh) {
+        for (String line : LINES) {
+            if (StatementAmountScanner.scan(line, null, amounts)) {
+                bh.consume(amounts.amountMinor());
+                bh.consume(amounts.type());
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.team021.financial_nudger.service.llm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Classifications per second of the embedded engine on typical statement descriptions.
+ * Needs {@code ml/tfidf_model.bin} (or {@code -Dml.embedded.model-path=...}):
+ * <pre>mvn -Pjmh test-compile exec:java -Dexec.args=EmbeddedTfidfBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmbeddedTfidfBenchmark {
+
+    private static final String[] DESCRIPTIONS = {
+            "UPI/SWIGGY/9876543210/food order", "POS 4321XXXX1234 RELIANCE FRESH BANGALORE",
+            "NEFT-HDFC0001234-RENT OCTOBER", "uber trip 24 oct", "ATM WDL 000123 MG ROAD",
+            "NETFLIX.COM SUBSCRIPTION", "electricity bill bescom 1234567", "IRCTC TICKET PNR 4412345678",
+    };
+
+    private TfidfLinearModel model;
+    private int next;
+
+    @Setup
+    public void load() throws IOException {
+        Path path = Path.of(System.getProperty("ml.embedded.model-path", "../../ml/tfidf_model.bin"));
+        try (InputStream in = Files.newInputStream(path)) {
+            model = TfidfLinearModel.read(in);
+        }
+    }
+
+    @Benchmark
+    public TfidfLinearModel.Prediction classify() {
+        next = (next + 1) % DESCRIPTIONS.length;
+        return model.predict(DESCRIPTIONS[next]);
+    }
+}
@@ -0,0 +1,96 @@
+package com.team021.financial_nudger.service.pdf;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * OCR pages per second of {@link OcrEnginePool} as the number of engines grows; on an idle box the
+ * score should scale with engines up to the core count. Each invocation OCRs a batch of rendered
+ * statement pages (rendering happens once, in setup). Needs Tesseract and its {@code eng.traineddata}:
+ * <pre>mvn -Pjmh test-compile exec:java -Dexec.args="OcrScalingBenchmark" -Dtesseract.datapath=/usr/share/tesseract-ocr/5/tessdata</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class OcrScalingBenchmark {
+
+    private static final int PAGES = 16;
+    private static final int DPI = 200;
+
+    @Param({"1", "2", "4", "8"})
+    public int engines;
+
+    private OcrEnginePool pool;
+    private BufferedImage page;
+
+    @Setup
+    public void setUp() throws IOException {
+        String datapath = System.getProperty("tesseract.datapath", System.getenv("TESSDATA_PREFIX"));
+        if (datapath == null) throw new IllegalStateException("Set -Dtesseract.datapath or TESSDATA_PREFIX");
+        pool = new OcrEnginePool(datapath, "eng", engines, PAGES);
+        page = renderStatementPage();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGES)
+    public int ocrPages() throws Exception {
+        List<Future<String>> results = new ArrayList<>(PAGES);
+        for (int i = 0; i < PAGES; i++) results.add(pool.submit(engine -> engine.doOCR(page)));
+        int characters = 0;
+        for (Future<String> result : results) characters += result.get().length();
+        return characters;
+    }
+
+    /** One text-only page shaped like a bank statement, rasterized as a scan would be. */
+    private static BufferedImage renderStatementPage() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage pdPage = new PDPage();
+            document.addPage(pdPage);
+            try (PDPageContentStream content = new PDPageContentStream(document, pdPage)) {
+                content.beginText();
+                content.setFont(PDType1Font.COURIER, 9);
+                content.setLeading(12);
+                content.newLineAtOffset(40, 740);
+                content.showText("Date      Narration                    Withdrawal    Deposit      Balance");
+                for (int row = 0; row < 50; row++) {
+                    content.newLine();
+                    content.showText(String.format("%02d/04/24  UPI-MERCHANT-%04d-PAYMENT      %9d.00               %9d.50",
+                            row % 28 + 1, row * 37, 100 + row * 13, 90_000 - row * 113));
+                }
+                content.endText();
+            }
+            return new PDFRenderer(document).renderImageWithDPI(0, DPI);
+        }
+    }
+}
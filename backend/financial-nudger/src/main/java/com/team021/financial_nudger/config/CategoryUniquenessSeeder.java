@@ -0,0 +1,64 @@
+package com.team021.financial_nudger.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Categories used to be created with a plain read-then-insert, so databases from before the
+ * {@code uk_categories_user_name} constraint can hold several rows for one (user, name).
+ * Hibernate cannot add the constraint over such rows; fold each group into its lowest id
+ * (repointing transactions and feedback), then add the constraint if it is still missing.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class CategoryUniquenessSeeder {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public CategoryUniquenessSeeder(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    void enforceUniqueUserCategoryNames() {
+        Integer merged = transactionTemplate.execute(status -> mergeDuplicates());
+        if (merged != null && merged > 0) {
+            System.out.println("🧹 Merged " + merged + " duplicate user categor" + (merged == 1 ? "y" : "ies"));
+        }
+
+        Integer present = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.statistics "
+                + "WHERE table_schema = DATABASE() AND table_name = 'categories' "
+                + "AND index_name = 'uk_categories_user_name'", Integer.class);
+        if (present == null || present == 0) {
+            jdbcTemplate.execute("ALTER TABLE categories "
+                    + "ADD CONSTRAINT uk_categories_user_name UNIQUE (user_id, category_name)");
+        }
+    }
+
+    private int mergeDuplicates() {
+        // duplicate id -> the id that survives
+        List<int[]> moves = jdbcTemplate.query("SELECT c.category_id, keep.keep_id FROM categories c "
+                        + "JOIN (SELECT user_id, category_name, MIN(category_id) AS keep_id FROM categories "
+                        + "      WHERE user_id IS NOT NULL GROUP BY user_id, category_name HAVING COUNT(*) > 1) keep "
+                        + "  ON c.user_id = keep.user_id AND c.category_name = keep.category_name "
+                        + "WHERE c.category_id <> keep.keep_id",
+                (rs, i) -> new int[]{rs.getInt(1), rs.getInt(2)});
+        if (moves.isEmpty()) return 0;
+
+        List<Object[]> args = moves.stream().map(m -> new Object[]{m[1], m[0]}).toList();
+        jdbcTemplate.batchUpdate("UPDATE transactions SET category_id = ? WHERE category_id = ?", args);
+        jdbcTemplate.batchUpdate("UPDATE transaction_category_feedback SET old_category_id = ? WHERE old_category_id = ?", args);
+        jdbcTemplate.batchUpdate("UPDATE transaction_category_feedback SET new_category_id = ? WHERE new_category_id = ?", args);
+        jdbcTemplate.batchUpdate("DELETE FROM categories WHERE category_id = ?",
+                moves.stream().map(m -> new Object[]{m[0]}).toList());
+        return moves.size();
+    }
+}
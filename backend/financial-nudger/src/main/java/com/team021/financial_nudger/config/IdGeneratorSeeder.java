@@ -0,0 +1,38 @@
+package com.team021.financial_nudger.config;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.team021.financial_nudger.domain.Transaction;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Transactions used to get ids from AUTO_INCREMENT; they now come from the pooled
+ * {@code id_generators} table. Before the first insert, move that counter past the highest
+ * existing id so the first allocated block cannot collide with rows already in the table.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdGeneratorSeeder {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdGeneratorSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void seedTransactionIds() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS id_generators ("
+                + "generator_name VARCHAR(255) NOT NULL PRIMARY KEY, "
+                + "next_val BIGINT)");
+
+        // Pooled optimizer hands out (next_val - allocation, next_val], so max + allocation starts at max + 1
+        jdbcTemplate.update("INSERT INTO id_generators (generator_name, next_val) "
+                        + "SELECT 'transactions', COALESCE(MAX(transaction_id), 0) + ? FROM transactions "
+                        + "ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))",
+                Transaction.ID_ALLOCATION_SIZE);
+    }
+}
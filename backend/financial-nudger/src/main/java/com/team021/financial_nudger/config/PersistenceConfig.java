@@ -0,0 +1,52 @@
+package com.team021.financial_nudger.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@Configuration
+public class PersistenceConfig {
+
+    private static final String REWRITE_BATCHES = "rewriteBatchedStatements";
+
+    /**
+     * JDBC batching defaults for bulk statement ingestion. Values set explicitly under
+     * spring.jpa.properties.* still win.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer(
+            @Value("${persistence.jdbc.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+            properties.putIfAbsent("hibernate.order_inserts", "true");
+            properties.putIfAbsent("hibernate.order_updates", "true");
+        };
+    }
+
+    /**
+     * Without {@code rewriteBatchedStatements} MySQL Connector/J still sends every statement of a JDBC
+     * batch on its own; with it a batch of INSERTs goes out as multi-row INSERTs. Added to the MySQL pool's
+     * driver properties unless the JDBC URL or spring.datasource.hikari.data-source-properties sets it.
+     */
+    @Bean
+    public static BeanPostProcessor jdbcBatchRewriteCustomizer(
+            @Value("${persistence.jdbc.rewrite-batched-statements:true}") boolean rewriteBatches) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (rewriteBatches && bean instanceof HikariDataSource pool) enableBatchRewrite(pool);
+                return bean;
+            }
+        };
+    }
+
+    static void enableBatchRewrite(HikariDataSource pool) {
+        String url = pool.getJdbcUrl();
+        if (url == null || !url.startsWith("jdbc:mysql:") || url.contains(REWRITE_BATCHES)) return;
+        pool.getDataSourceProperties().putIfAbsent(REWRITE_BATCHES, "true");
+    }
+}
@@ -0,0 +1,143 @@
+package com.team021.financial_nudger.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Applies the versioned scripts under {@code db/migration} ({@code V<n>__<description>.sql}) once
+ * each, in version order, after Hibernate has brought the tables up to date. Applied versions are
+ * recorded in {@code schema_migrations}. Index statements are allowed to find their index already
+ * there (created by hand or declared on an entity), so a script can be replayed against any database.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaMigrator {
+
+    static final String LOCATION = "classpath*:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final int ER_DUP_KEYNAME = 1061;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaMigrator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void migrateOnStartup() {
+        int applied = migrate();
+        if (applied > 0) {
+            System.out.println("🗂️ Applied " + applied + " schema migration(s)");
+        }
+    }
+
+    /**
+     * Runs every script newer than the last recorded version; returns how many were applied.
+     */
+    public int migrate() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                + "version INT NOT NULL PRIMARY KEY, "
+                + "description VARCHAR(200) NOT NULL, "
+                + "checksum BIGINT NOT NULL, "
+                + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)");
+
+        Map<Integer, Long> recorded = new HashMap<>();
+        jdbcTemplate.query("SELECT version, checksum FROM schema_migrations",
+                rs -> { recorded.put(rs.getInt(1), rs.getLong(2)); });
+
+        int applied = 0;
+        for (Migration migration : load()) {
+            Long checksum = recorded.get(migration.version());
+            if (checksum != null) {
+                if (checksum != migration.checksum()) {
+                    System.out.println("⚠️ Migration V" + migration.version() + " changed after it was applied; not re-run");
+                }
+                continue;
+            }
+            apply(migration);
+            applied++;
+        }
+        return applied;
+    }
+
+    private void apply(Migration migration) {
+        List<String> statements = statements(migration.script());
+        // MySQL commits DDL implicitly, so each statement stands alone and the version is recorded last
+        for (String statement : statements) {
+            try {
+                jdbcTemplate.execute(statement);
+            } catch (DataAccessException e) {
+                if (!(e.getMostSpecificCause() instanceof SQLException sql) || sql.getErrorCode() != ER_DUP_KEYNAME) {
+                    throw new IllegalStateException("Migration V" + migration.version() + " failed on: " + statement, e);
+                }
+            }
+        }
+        jdbcTemplate.update("INSERT INTO schema_migrations (version, description, checksum) VALUES (?, ?, ?)",
+                migration.version(), migration.description(), migration.checksum());
+        System.out.println("🗂️ Migration V" + migration.version() + " " + migration.description() + " applied");
+    }
+
+    /**
+     * Splits a script on semicolons after dropping {@code --} comment lines; scripts hold plain DDL,
+     * so no statement carries a semicolon inside a literal.
+     */
+    static List<String> statements(String script) {
+        StringBuilder sql = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            if (!line.strip().startsWith("--")) sql.append(line).append('\n');
+        }
+        List<String> statements = new ArrayList<>();
+        for (String statement : sql.toString().split(";")) {
+            if (!statement.isBlank()) statements.add(statement.strip());
+        }
+        return statements;
+    }
+
+    static List<Migration> load() {
+        try {
+            List<Migration> migrations = new ArrayList<>();
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+                Matcher m = FILE_NAME.matcher(String.valueOf(resource.getFilename()));
+                if (!m.matches()) continue;
+                byte[] bytes;
+                try (InputStream in = resource.getInputStream()) {
+                    bytes = in.readAllBytes();
+                }
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                migrations.add(new Migration(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '),
+                        new String(bytes, StandardCharsets.UTF_8), crc.getValue()));
+            }
+            migrations.sort(Comparator.comparingInt(Migration::version));
+            for (int i = 1; i < migrations.size(); i++) {
+                if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                    throw new IllegalStateException("Two migrations share version " + migrations.get(i).version());
+                }
+            }
+            return migrations;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read schema migrations: " + e.getMessage(), e);
+        }
+    }
+
+    record Migration(int version, String description, String script, long checksum) {}
+}
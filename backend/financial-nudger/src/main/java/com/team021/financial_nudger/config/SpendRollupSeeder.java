@@ -0,0 +1,32 @@
+package com.team021.financial_nudger.config;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import com.team021.financial_nudger.service.analytics.SpendRollupService;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Databases that already held transactions when {@code monthly_spend_rollups} was introduced
+ * get their rollups computed once, during startup. This has to finish before requests and resumed
+ * ingestion jobs start writing: their deltas would otherwise make the table non-empty first (a
+ * manual entry, or negative rows from a discarded statement) and the build would never run.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SpendRollupSeeder {
+
+    private final SpendRollupService spendRollupService;
+
+    public SpendRollupSeeder(SpendRollupService spendRollupService) {
+        this.spendRollupService = spendRollupService;
+    }
+
+    @PostConstruct
+    void buildMissingRollups() {
+        if (spendRollupService.needsInitialBuild()) {
+            spendRollupService.rebuild(null);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.team021.financial_nudger.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.team021.financial_nudger.service.ingestion.StatementDateScanner.Format;
+import com.team021.financial_nudger.service.pdf.LayoutStatementParser;
+import com.team021.financial_nudger.service.pdf.StatementParser;
+
+/**
+ * Bank statement layouts known to the ingestion path. Signatures are the bank name plus the column
+ * headings of the transaction table, as they appear on the first page of the account statement.
+ * Add a layout by declaring another {@link StatementParser} bean.
+ */
+@Configuration
+public class StatementParserConfig {
+
+    private static final List<String> PAGE_FOOTERS = List.of("page ", "statement summary", "this is a computer generated");
+
+    @Bean
+    public StatementParser hdfcSavingsParser() {
+        return new LayoutStatementParser("hdfc-savings",
+                List.of("hdfc bank", "narration", "withdrawal amt", "deposit amt", "closing balance"),
+                Format.DAY_MONTH_YEAR, "closing balance", PAGE_FOOTERS, 3);
+    }
+
+    @Bean
+    public StatementParser iciciSavingsParser() {
+        return new LayoutStatementParser("icici-savings",
+                List.of("icici bank", "transaction remarks", "withdrawal amount", "deposit amount"),
+                Format.DAY_MONTH_YEAR, "balance", PAGE_FOOTERS, 4);
+    }
+
+    @Bean
+    public StatementParser sbiSavingsParser() {
+        return new LayoutStatementParser("sbi-savings",
+                List.of("state bank of india", "txn date", "description", "debit", "credit", "balance"),
+                Format.DAY_MONTH_NAME_YEAR, "balance", PAGE_FOOTERS, 3);
+    }
+
+    @Bean
+    public StatementParser axisSavingsParser() {
+        return new LayoutStatementParser("axis-savings",
+                List.of("axis bank", "tran date", "particulars", "init. br"),
+                Format.DAY_MONTH_YEAR, "init. br", PAGE_FOOTERS, 3);
+    }
+}
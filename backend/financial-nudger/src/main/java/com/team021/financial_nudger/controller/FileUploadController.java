@@ -1,7 +1,10 @@
 package com.team021.financial_nudger.controller;
 
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -9,6 +12,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.team021.financial_nudger.dto.FileUploadResponse;
+import com.team021.financial_nudger.dto.IngestionStatusResponse;
 import com.team021.financial_nudger.service.FileUploadService;
 
 import jakarta.validation.constraints.NotNull;
@@ -18,9 +22,12 @@ import jakarta.validation.constraints.NotNull;
 public class FileUploadController {
 
     private final FileUploadService fileUploadService;
+    private final boolean asyncByDefault;
 
-    public FileUploadController(FileUploadService fileUploadService) {
+    public FileUploadController(FileUploadService fileUploadService,
+                                @Value("${ingestion.async.enabled:false}") boolean asyncByDefault) {
         this.fileUploadService = fileUploadService;
+        this.asyncByDefault = asyncByDefault;
     }
 
     @PostMapping("/upload-receipt")
@@ -43,9 +50,15 @@ public class FileUploadController {
     @PostMapping("/upload-statement")
     public ResponseEntity<FileUploadResponse> uploadStatement(
             @RequestParam("file") @NotNull MultipartFile file,
-            @RequestParam("userId") @NotNull Integer userId) {
+            @RequestParam("userId") @NotNull Integer userId,
+            @RequestParam(value = "async", required = false) Boolean async,
+            @RequestParam(value = "reingest", required = false) Boolean reingest) {
         try {
-            FileUploadResponse response = fileUploadService.processPdfFile(file, userId);
+            // Async mode: store the file, return 202 and let the client poll /{fileId}/status
+            if (async != null ? async : asyncByDefault) {
+                return ResponseEntity.accepted().body(fileUploadService.acceptPdfFile(file, userId, reingest));
+            }
+            FileUploadResponse response = fileUploadService.processPdfFile(file, userId, reingest);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -55,4 +68,9 @@ public class FileUploadController {
                             .build());
         }
     }
+
+    @GetMapping("/{fileId}/status")
+    public ResponseEntity<IngestionStatusResponse> getIngestionStatus(@PathVariable Integer fileId) {
+        return ResponseEntity.ok(fileUploadService.getIngestionStatus(fileId));
+    }
 }
@@ -1,55 +1,42 @@
 package com.team021.financial_nudger.controller;
 
-import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.time.Instant;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.team021.financial_nudger.repository.TransactionCategoryFeedbackRepository;
-import com.team021.financial_nudger.repository.TransactionRepository;
+import com.team021.financial_nudger.service.TransactionFeedbackService;
 
 @RestController
 @RequestMapping("/api/ml")
 public class MlDataExportController {
 
-    private final TransactionRepository transactionRepository;
-    private final TransactionCategoryFeedbackRepository feedbackRepository;
+    private final TransactionFeedbackService feedbackService;
 
-    public MlDataExportController(TransactionRepository transactionRepository,
-                                  TransactionCategoryFeedbackRepository feedbackRepository) {
-        this.transactionRepository = transactionRepository;
-        this.feedbackRepository = feedbackRepository;
+    public MlDataExportController(TransactionFeedbackService feedbackService) {
+        this.feedbackService = feedbackService;
     }
 
     /**
      * Export user-corrected transactions for ML model retraining.
-     * Returns CSV-like data: description, corrected_category
+     * Streams a JSON array of {@link com.team021.financial_nudger.dto.FeedbackExportRow}, oldest first;
+     * pass {@code since} (ISO instant, inclusive) to pull only corrections made after the last run.
      */
     @GetMapping("/export/feedback")
-        public ResponseEntity<List<FeedbackExportDto>> exportFeedbackData() {
-        var feedbacks = feedbackRepository.findAll();
-
-        var exportData = feedbacks.stream()
-            .flatMap(feedback -> transactionRepository
-                .findById(Objects.requireNonNull(feedback.getTransactionId()))
-                .stream()
-                .map(transaction -> new FeedbackExportDto(
-                    transaction.getDescription(),
-                    feedback.getNewCategoryId(),
-                    transaction.getMerchantName()
-                )))
-            .collect(Collectors.toList());
-
-        return ResponseEntity.ok(exportData);
-        }
-
-    public record FeedbackExportDto(
-            String description,
-            Integer categoryId,
-            String merchantName
-    ) {}
+    public ResponseEntity<StreamingResponseBody> exportFeedbackData(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since) {
+        StreamingResponseBody body = out -> {
+            long count = feedbackService.exportFeedback(since, out);
+            System.out.println("📤 Exported " + count + " feedback row(s)" + (since == null ? "" : " since " + since));
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
 }
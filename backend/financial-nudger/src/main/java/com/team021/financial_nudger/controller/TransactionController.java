@@ -1,23 +1,40 @@
 package com.team021.financial_nudger.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.team021.financial_nudger.domain.Transaction;
 import com.team021.financial_nudger.dto.ManualTransactionRequest;
+import com.team021.financial_nudger.dto.MonthlySpendSummary;
 import com.team021.financial_nudger.dto.TransactionFeedbackRequest;
+import com.team021.financial_nudger.dto.TransactionPageResponse;
 import com.team021.financial_nudger.repository.TransactionRepository;
+import com.team021.financial_nudger.service.TransactionExportService;
 import com.team021.financial_nudger.service.TransactionFeedbackService;
+import com.team021.financial_nudger.service.TransactionQueryService;
 import com.team021.financial_nudger.service.TransactionService;
+import com.team021.financial_nudger.service.analytics.SpendRollupService;
 
 import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -26,21 +43,29 @@ public class TransactionController {
     private final TransactionRepository transactionRepository;
     private final TransactionService transactionService; // 1. New field for the service
     private final TransactionFeedbackService transactionFeedbackService;
+    private final TransactionQueryService transactionQueryService;
+    private final TransactionExportService transactionExportService;
+    private final SpendRollupService spendRollupService;
 
     public TransactionController(TransactionRepository transactionRepository,
                                  TransactionService transactionService,
-                                 TransactionFeedbackService transactionFeedbackService) {
+                                 TransactionFeedbackService transactionFeedbackService,
+                                 TransactionQueryService transactionQueryService,
+                                 TransactionExportService transactionExportService,
+                                 SpendRollupService spendRollupService) {
         this.transactionRepository = transactionRepository;
         this.transactionService = transactionService;
         this.transactionFeedbackService = transactionFeedbackService;
+        this.transactionQueryService = transactionQueryService;
+        this.transactionExportService = transactionExportService;
+        this.spendRollupService = spendRollupService;
     }
 
     // 3. NEW ENDPOINT: Handles manual entry and LLM categorization
     @PostMapping("/manual")
-    public ResponseEntity<Transaction> addManualTransaction(@RequestBody @Valid ManualTransactionRequest req) {
-        // Delegate the complex logic to the service
-        Transaction newTransaction = transactionService.saveManualTransaction(req);
-        return ResponseEntity.ok(newTransaction);
+    public Mono<ResponseEntity<Transaction>> addManualTransaction(@RequestBody @Valid ManualTransactionRequest req) {
+        // Delegate the complex logic to the service; the servlet thread is released while the ML service answers
+        return transactionService.saveManualTransaction(req).map(ResponseEntity::ok);
     }
 
     @PostMapping("/{transactionId}/feedback")
@@ -53,7 +78,81 @@ public class TransactionController {
         return ResponseEntity.ok(updated);
     }
 
-    // Existing GET methods (kept for completeness)
+    @DeleteMapping("/{transactionId}")
+    public ResponseEntity<Void> deleteTransaction(@PathVariable Integer transactionId, @RequestParam Integer userId) {
+        transactionService.deleteTransaction(transactionId, userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Monthly totals per category and type, served from the spend rollups rather than the transaction history.
+     */
+    @GetMapping("/user/{userId}/summary")
+    public ResponseEntity<List<MonthlySpendSummary>> getMonthlySummary(
+            @PathVariable Integer userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        return ResponseEntity.ok(spendRollupService.monthlySummary(userId, from, to));
+    }
+
+    /**
+     * Newest-first page of a user's transactions. Pass the returned {@code nextCursor} back as
+     * {@code cursor} for the following page; filters must stay the same across pages.
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<TransactionPageResponse> getTransactionPage(
+            @PathVariable Integer userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Integer categoryId) {
+        return ResponseEntity.ok(transactionQueryService.findPage(userId, cursor, limit, from, to, categoryId));
+    }
+
+    /**
+     * Full history as a download, streamed from the database as it is written.
+     * {@code format} is {@code csv} (default) or {@code ndjson}; {@code gzip=true} compresses it.
+     */
+    @GetMapping("/user/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable Integer userId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        TransactionExportService.Format exportFormat;
+        try {
+            exportFormat = TransactionExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        transactionExportService.ensureUserExists(userId);
+
+        boolean csv = exportFormat == TransactionExportService.Format.CSV;
+        String fileName = "transactions-" + userId + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? new MediaType("application", "gzip")
+                : csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                transactionExportService.write(userId, exportFormat, compressed);
+                compressed.finish();
+            } else {
+                transactionExportService.write(userId, exportFormat, out);
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    // Existing GET methods (kept for completeness; prefer the paged endpoint above for large histories)
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<Transaction>> getTransactionsByUser(@PathVariable Integer userId) {
         List<Transaction> transactions = transactionRepository.findByUserId(userId);
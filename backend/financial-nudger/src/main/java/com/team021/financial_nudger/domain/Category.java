@@ -7,7 +7,8 @@ import jakarta.validation.constraints.Size;
 import java.time.Instant;
 
 @Entity
-@Table(name = "categories")
+@Table(name = "categories",
+        uniqueConstraints = @UniqueConstraint(name = "uk_categories_user_name", columnNames = {"user_id", "category_name"}))
 public class Category {
     
     @Id
@@ -0,0 +1,68 @@
+package com.team021.financial_nudger.domain;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Persisted classification result for a normalized description, so the ML cache
+ * survives restarts. Rows from another model version are treated as misses.
+ */
+@Entity
+@Table(name = "classification_memo")
+public class ClassificationMemo {
+
+    // SHA-256 (hex) of the normalized description
+    @Id
+    @Column(name = "key_hash", length = 64)
+    private String keyHash;
+
+    @Column(name = "normalized_text", length = 512)
+    private String normalizedText;
+
+    @Column(name = "category_name", nullable = false, length = 100)
+    private String categoryName;
+
+    @Column(name = "confidence", precision = 5, scale = 4)
+    private BigDecimal confidence;
+
+    @Column(name = "model_version", nullable = false, length = 64)
+    private String modelVersion;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    public ClassificationMemo() {}
+
+    public ClassificationMemo(String keyHash, String normalizedText, String categoryName,
+                              BigDecimal confidence, String modelVersion) {
+        this.keyHash = keyHash;
+        this.normalizedText = normalizedText;
+        this.categoryName = categoryName;
+        this.confidence = confidence;
+        this.modelVersion = modelVersion;
+        this.updatedAt = Instant.now();
+    }
+
+    public String getKeyHash() { return keyHash; }
+    public void setKeyHash(String keyHash) { this.keyHash = keyHash; }
+
+    public String getNormalizedText() { return normalizedText; }
+    public void setNormalizedText(String normalizedText) { this.normalizedText = normalizedText; }
+
+    public String getCategoryName() { return categoryName; }
+    public void setCategoryName(String categoryName) { this.categoryName = categoryName; }
+
+    public BigDecimal getConfidence() { return confidence; }
+    public void setConfidence(BigDecimal confidence) { this.confidence = confidence; }
+
+    public String getModelVersion() { return modelVersion; }
+    public void setModelVersion(String modelVersion) { this.modelVersion = modelVersion; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
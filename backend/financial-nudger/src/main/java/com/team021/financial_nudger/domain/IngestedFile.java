@@ -9,13 +9,15 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "ingested_files")
+@Table(name = "ingested_files",
+        indexes = @Index(name = "idx_ingested_files_user_hash", columnList = "user_id, content_hash"))
 public class IngestedFile {
 
     @Id
@@ -59,6 +61,32 @@ public class IngestedFile {
     @Column(name = "processed_at")
     private Instant processedAt;
 
+    @Column(name = "processed_rows")
+    private Integer processedRows;
+
+    @Column(name = "successful_transactions")
+    private Integer successfulTransactions;
+
+    @Column(name = "failed_transactions")
+    private Integer failedTransactions;
+
+    @Column(name = "skipped_lines")
+    private Integer skippedLines;
+
+    @Column(name = "duplicate_transactions")
+    private Integer duplicateTransactions;
+
+    // SHA-256 of the uploaded bytes, used to recognise re-uploads of the same statement
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "duplicate_of_file_id")
+    private Integer duplicateOfFileId;
+
+    // StatementParser chosen for this file's layout; set on the first run so reprocessing skips detection
+    @Column(name = "parser_id", length = 40)
+    private String parserId;
+
     // Enums
     public enum FileType {
         RECEIPT,
@@ -114,6 +142,30 @@ public class IngestedFile {
     public String getMimeType() { return mimeType; }
     public void setMimeType(String mimeType) { this.mimeType = mimeType; }
 
+    public Integer getProcessedRows() { return processedRows; }
+    public void setProcessedRows(Integer processedRows) { this.processedRows = processedRows; }
+
+    public Integer getSuccessfulTransactions() { return successfulTransactions; }
+    public void setSuccessfulTransactions(Integer successfulTransactions) { this.successfulTransactions = successfulTransactions; }
+
+    public Integer getFailedTransactions() { return failedTransactions; }
+    public void setFailedTransactions(Integer failedTransactions) { this.failedTransactions = failedTransactions; }
+
+    public Integer getSkippedLines() { return skippedLines; }
+    public void setSkippedLines(Integer skippedLines) { this.skippedLines = skippedLines; }
+
+    public Integer getDuplicateTransactions() { return duplicateTransactions; }
+    public void setDuplicateTransactions(Integer duplicateTransactions) { this.duplicateTransactions = duplicateTransactions; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public Integer getDuplicateOfFileId() { return duplicateOfFileId; }
+    public void setDuplicateOfFileId(Integer duplicateOfFileId) { this.duplicateOfFileId = duplicateOfFileId; }
+
+    public String getParserId() { return parserId; }
+    public void setParserId(String parserId) { this.parserId = parserId; }
+
     @Override
     public String toString() {
         return "IngestedFile{" +
@@ -126,6 +178,13 @@ public class IngestedFile {
                 ", errorMessage='" + errorMessage + '\'' +
                 ", uploadedAt=" + uploadedAt +
                 ", processedAt=" + processedAt +
+                ", processedRows=" + processedRows +
+                ", successfulTransactions=" + successfulTransactions +
+                ", failedTransactions=" + failedTransactions +
+                ", skippedLines=" + skippedLines +
+                ", duplicateTransactions=" + duplicateTransactions +
+                ", contentHash='" + contentHash + '\'' +
+                ", duplicateOfFileId=" + duplicateOfFileId +
                 '}';
     }
 }
@@ -0,0 +1,88 @@
+package com.team021.financial_nudger.domain;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import com.team021.financial_nudger.domain.Transaction.TransactionType;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Sum and count of a user's transactions per (category, calendar month, type), kept in step with
+ * the transactions table by {@code SpendRollupService}. Amounts are in minor units (paise);
+ * uncategorized transactions are counted under category 0. Written with SQL upserts, read through JPA.
+ */
+@Entity
+@Table(name = "monthly_spend_rollups")
+@IdClass(MonthlySpendRollup.Key.class)
+public class MonthlySpendRollup {
+
+    public static final int UNCATEGORIZED = 0;
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Id
+    @Column(name = "category_id", nullable = false)
+    private Integer categoryId;
+
+    /** First day of the month. */
+    @Id
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 16)
+    private TransactionType type;
+
+    @Column(name = "amount_minor", nullable = false)
+    private Long amountMinor;
+
+    @Column(name = "txn_count", nullable = false)
+    private Long txnCount;
+
+    public Integer getUserId() { return userId; }
+    public Integer getCategoryId() { return categoryId; }
+    public LocalDate getMonthStart() { return monthStart; }
+    public TransactionType getType() { return type; }
+    public Long getAmountMinor() { return amountMinor; }
+    public Long getTxnCount() { return txnCount; }
+
+    public static class Key implements Serializable {
+        private Integer userId;
+        private Integer categoryId;
+        private LocalDate monthStart;
+        private TransactionType type;
+
+        public Key() {}
+
+        public Key(Integer userId, Integer categoryId, LocalDate monthStart, TransactionType type) {
+            this.userId = userId;
+            this.categoryId = categoryId;
+            this.monthStart = monthStart;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return Objects.equals(userId, k.userId) && Objects.equals(categoryId, k.categoryId)
+                    && Objects.equals(monthStart, k.monthStart) && type == k.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, categoryId, monthStart, type);
+        }
+    }
+}
@@ -11,14 +11,35 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions",
+        indexes = {
+                @Index(name = "idx_transactions_user_fingerprint", columnList = "user_id, fingerprint"),
+                // Keyset pages of TransactionQueryService: unfiltered and by category
+                @Index(name = "idx_transactions_user_date_id", columnList = "user_id, date, transaction_id"),
+                @Index(name = "idx_transactions_user_category_date_id", columnList = "user_id, category_id, date, transaction_id")
+        })
 public class Transaction {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled table generator instead of IDENTITY: ids are reserved in blocks, which lets
+    // Hibernate group statement inserts into JDBC batches (IDENTITY forces one INSERT per row).
+    // IdGeneratorSeeder aligns the block counter with existing rows on startup.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transaction_id_gen")
+    @TableGenerator(
+            name = "transaction_id_gen",
+            table = "id_generators",
+            pkColumnName = "generator_name",
+            valueColumnName = "next_val",
+            pkColumnValue = "transactions",
+            allocationSize = Transaction.ID_ALLOCATION_SIZE
+    )
     @Column(name = "transaction_id")
     private Integer transactionId;
 
@@ -65,6 +86,13 @@ public class Transaction {
     @Column(name = "is_user_categorized", nullable = false)
     private Boolean isUserCategorized = false;
 
+    // Duplicate detection (see TransactionFingerprint)
+    @Column(name = "fingerprint")
+    private Long fingerprint;
+
+    @Column(name = "suspected_duplicate")
+    private Boolean suspectedDuplicate = false;
+
     // Metadata
     @Column(name = "created_at", updatable = false, insertable = false)
     private Instant createdAt;
@@ -186,6 +214,22 @@ public class Transaction {
         isUserCategorized = userCategorized;
     }
 
+    public Long getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(Long fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public Boolean getSuspectedDuplicate() {
+        return suspectedDuplicate;
+    }
+
+    public void setSuspectedDuplicate(Boolean suspectedDuplicate) {
+        this.suspectedDuplicate = suspectedDuplicate;
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
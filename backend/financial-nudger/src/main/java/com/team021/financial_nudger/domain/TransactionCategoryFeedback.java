@@ -7,11 +7,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "transaction_category_feedback")
+@Table(name = "transaction_category_feedback",
+        indexes = @Index(name = "idx_feedback_created_at", columnList = "created_at"))
 public class TransactionCategoryFeedback {
     
     @Id
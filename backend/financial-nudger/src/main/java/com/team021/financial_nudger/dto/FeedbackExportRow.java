@@ -0,0 +1,20 @@
+package com.team021.financial_nudger.dto;
+
+import java.time.Instant;
+
+/**
+ * One user correction for model retraining: the transaction text and the category the user chose
+ * (with the category the model had picked), names resolved.
+ */
+public record FeedbackExportRow(
+        Integer feedbackId,
+        Instant createdAt,
+        Integer userId,
+        Integer transactionId,
+        String description,
+        String merchantName,
+        Integer categoryId,
+        String categoryName,
+        Integer previousCategoryId,
+        String previousCategoryName
+) {}
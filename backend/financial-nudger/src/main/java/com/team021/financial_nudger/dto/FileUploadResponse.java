@@ -22,6 +22,8 @@ public class FileUploadResponse {
     private Integer processedRows;
     private Integer successfulTransactions;
     private Integer failedTransactions;
+    private Integer skippedLines;
+    private Integer duplicateTransactions;
     private List<String> errors;
     private Instant processedAt;
     
@@ -0,0 +1,20 @@
+package com.team021.financial_nudger.dto;
+
+import java.time.Instant;
+
+import com.team021.financial_nudger.domain.IngestedFile.UploadStatus;
+
+public record IngestionStatusResponse(
+        Integer fileId,
+        String fileName,
+        UploadStatus status,
+        Integer totalLines,
+        Integer processedLines,
+        Integer successfulTransactions,
+        Integer failedTransactions,
+        Integer skippedLines,
+        Integer duplicateTransactions,
+        String errorMessage,
+        Instant uploadedAt,
+        Instant processedAt
+) {}
@@ -0,0 +1,19 @@
+package com.team021.financial_nudger.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.team021.financial_nudger.domain.Transaction.TransactionType;
+
+/**
+ * One (month, category, type) total read from the spend rollups. {@code categoryId} is null for
+ * uncategorized transactions.
+ */
+public record MonthlySpendSummary(
+        LocalDate month,
+        Integer categoryId,
+        String categoryName,
+        TransactionType type,
+        BigDecimal amount,
+        long transactionCount
+) {}
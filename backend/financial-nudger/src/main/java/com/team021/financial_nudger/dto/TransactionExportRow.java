@@ -0,0 +1,29 @@
+package com.team021.financial_nudger.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.team021.financial_nudger.domain.Transaction.TransactionType;
+
+/**
+ * One line of a transaction export (CSV column order follows the components).
+ */
+public record TransactionExportRow(
+        Integer transactionId,
+        LocalDate date,
+        BigDecimal amount,
+        String currency,
+        TransactionType type,
+        String description,
+        String merchantName,
+        String channel,
+        Integer categoryId,
+        String categoryName,
+        BigDecimal categoryConfidence,
+        Boolean isAiCategorized,
+        Boolean isUserCategorized,
+        Integer fileId
+) {
+    public static final String CSV_HEADER = "transaction_id,date,amount,currency,type,description,merchant_name,"
+            + "channel,category_id,category_name,category_confidence,is_ai_categorized,is_user_categorized,file_id";
+}
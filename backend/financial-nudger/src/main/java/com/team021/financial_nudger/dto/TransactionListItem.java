@@ -0,0 +1,23 @@
+package com.team021.financial_nudger.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.team021.financial_nudger.domain.Transaction.TransactionType;
+
+/**
+ * The columns a transaction list shows, selected directly instead of loading entities.
+ */
+public record TransactionListItem(
+        Integer transactionId,
+        LocalDate date,
+        BigDecimal amount,
+        TransactionType type,
+        String description,
+        String merchantName,
+        Integer categoryId,
+        BigDecimal categoryConfidence,
+        Boolean isAiCategorized,
+        Boolean isUserCategorized,
+        Boolean suspectedDuplicate
+) {}
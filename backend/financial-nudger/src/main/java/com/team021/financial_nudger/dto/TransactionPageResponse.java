@@ -0,0 +1,11 @@
+package com.team021.financial_nudger.dto;
+
+import java.util.List;
+
+/**
+ * One page of a user's transactions, newest first. {@code nextCursor} is null on the last page.
+ */
+public record TransactionPageResponse(
+        List<TransactionListItem> items,
+        String nextCursor
+) {}
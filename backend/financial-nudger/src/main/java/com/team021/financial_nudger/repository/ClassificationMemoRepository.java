@@ -0,0 +1,17 @@
+package com.team021.financial_nudger.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.team021.financial_nudger.domain.ClassificationMemo;
+
+@Repository
+public interface ClassificationMemoRepository extends JpaRepository<ClassificationMemo, String> {
+
+    @Modifying
+    @Query("DELETE FROM ClassificationMemo m WHERE m.modelVersion <> :modelVersion")
+    int deleteOtherModelVersions(@Param("modelVersion") String modelVersion);
+}
@@ -1,11 +1,14 @@
 package com.team021.financial_nudger.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.team021.financial_nudger.domain.IngestedFile;
 
@@ -23,4 +26,17 @@ public interface IngestedFileRepository extends JpaRepository<IngestedFile, Inte
 
     @Query("SELECT f FROM IngestedFile f WHERE f.uploadStatus = 'PENDING' OR f.uploadStatus = 'PROCESSING'")
     List<IngestedFile> findPendingOrProcessingFiles();
+
+    // Most recent original (non-duplicate) upload of the same bytes by this user
+    Optional<IngestedFile> findFirstByUserIdAndContentHashAndUploadStatusAndDuplicateOfFileIdIsNullOrderByFileIdDesc(
+            Integer userId, String contentHash, IngestedFile.UploadStatus uploadStatus);
+
+    // Latest upload of the same bytes whose statement layout is already known
+    Optional<IngestedFile> findFirstByContentHashAndParserIdIsNotNullOrderByFileIdDesc(String contentHash);
+
+    // Records the layout as soon as it is detected, without touching the rest of the row
+    @Modifying
+    @Transactional
+    @Query("UPDATE IngestedFile f SET f.parserId = :parserId WHERE f.fileId = :fileId")
+    int updateParserId(@Param("fileId") Integer fileId, @Param("parserId") String parserId);
 }
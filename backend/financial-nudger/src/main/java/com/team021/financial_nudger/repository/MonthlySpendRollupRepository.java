@@ -0,0 +1,34 @@
+package com.team021.financial_nudger.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.team021.financial_nudger.domain.MonthlySpendRollup;
+
+/**
+ * Analytics reads over the rollups: cost grows with months x categories, not with transactions.
+ * Category 0 stands for uncategorized transactions in the table.
+ */
+@Repository
+public interface MonthlySpendRollupRepository extends JpaRepository<MonthlySpendRollup, MonthlySpendRollup.Key> {
+
+    // Same shape as the TransactionRepository queries of the same name (null for uncategorized)
+    @Query("SELECT NULLIF(r.categoryId, 0), SUM(r.txnCount) FROM MonthlySpendRollup r WHERE r.userId = :userId GROUP BY r.categoryId")
+    List<Object[]> getCategoryCountsByUserId(@Param("userId") Integer userId);
+
+    /** Debit totals per category, in minor units. */
+    @Query("SELECT NULLIF(r.categoryId, 0), SUM(r.amountMinor) FROM MonthlySpendRollup r " +
+           "WHERE r.userId = :userId AND r.type = 'DEBIT' GROUP BY r.categoryId")
+    List<Object[]> getCategorySpendingByUserId(@Param("userId") Integer userId);
+
+    @Query("SELECT r FROM MonthlySpendRollup r WHERE r.userId = :userId AND r.monthStart BETWEEN :from AND :to " +
+           "AND r.txnCount > 0 ORDER BY r.monthStart, r.categoryId, r.type")
+    List<MonthlySpendRollup> findMonths(@Param("userId") Integer userId,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+}
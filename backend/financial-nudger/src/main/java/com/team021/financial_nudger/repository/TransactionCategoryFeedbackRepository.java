@@ -2,13 +2,19 @@ package com.team021.financial_nudger.repository;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.team021.financial_nudger.domain.TransactionCategoryFeedback;
+import com.team021.financial_nudger.dto.FeedbackExportRow;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface TransactionCategoryFeedbackRepository extends JpaRepository<TransactionCategoryFeedback, Integer> {
@@ -27,4 +33,23 @@ public interface TransactionCategoryFeedbackRepository extends JpaRepository<Tra
     
     @Query("SELECT f FROM TransactionCategoryFeedback f WHERE f.createdAt >= :since")
     List<TransactionCategoryFeedback> findFeedbackSince(@Param("since") Instant since);
+
+    String EXPORT_SELECT = "SELECT new com.team021.financial_nudger.dto.FeedbackExportRow("
+            + "f.feedbackId, f.createdAt, f.userId, f.transactionId, t.description, t.merchantName, "
+            + "f.newCategoryId, nc.categoryName, f.oldCategoryId, oc.categoryName) "
+            + "FROM TransactionCategoryFeedback f "
+            + "JOIN Transaction t ON t.transactionId = f.transactionId "
+            + "LEFT JOIN Category nc ON nc.categoryId = f.newCategoryId "
+            + "LEFT JOIN Category oc ON oc.categoryId = f.oldCategoryId ";
+
+    // Integer.MIN_VALUE fetch size: MySQL Connector/J streams the rows instead of buffering them
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "-2147483648"),
+                 @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")})
+    @Query(EXPORT_SELECT + "ORDER BY f.createdAt, f.feedbackId")
+    Stream<FeedbackExportRow> streamFeedbackExport();
+
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "-2147483648"),
+                 @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")})
+    @Query(EXPORT_SELECT + "WHERE f.createdAt >= :since ORDER BY f.createdAt, f.feedbackId")
+    Stream<FeedbackExportRow> streamFeedbackExportSince(@Param("since") Instant since);
 }
@@ -2,9 +2,11 @@ package com.team021.financial_nudger.repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -35,6 +37,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
     @Query("SELECT t FROM Transaction t WHERE t.userId = :userId AND t.categoryConfidence < :threshold")
     List<Transaction> findLowConfidenceTransactions(@Param("userId") Integer userId, @Param("threshold") BigDecimal threshold);
     
+    // Full scans of the user's history; MonthlySpendRollupRepository answers the same from the rollups
     @Query("SELECT t.categoryId, COUNT(t) FROM Transaction t WHERE t.userId = :userId GROUP BY t.categoryId")
     List<Object[]> getCategoryCountsByUserId(@Param("userId") Integer userId);
     
@@ -45,4 +48,18 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
     List<Transaction> findTransactionsByUserAndDateRange(@Param("userId") Integer userId, 
                                                        @Param("startDate") LocalDate startDate, 
                                                        @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    @Query("SELECT t.fingerprint, COUNT(t) FROM Transaction t WHERE t.userId = :userId AND t.fingerprint IN :fingerprints " +
+           "AND (t.fileId IS NULL OR t.fileId <> :fileId) GROUP BY t.fingerprint")
+    List<Object[]> countByFingerprints(@Param("userId") Integer userId,
+                                       @Param("fileId") Integer excludedFileId,
+                                       @Param("fingerprints") Collection<Long> fingerprints);
+
+    @Query("SELECT t.transactionId, t.date, t.amount, t.description, t.fingerprint, t.fileId FROM Transaction t " +
+           "WHERE t.userId = :userId AND t.date >= :since")
+    List<Object[]> findFingerprintSourcesSince(@Param("userId") Integer userId, @Param("since") LocalDate since);
+
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.fileId = :fileId")
+    int deleteByFileId(@Param("fileId") Integer fileId);
+}
@@ -0,0 +1,8 @@
+package com.team021.financial_nudger.service;
+
+/**
+ * Published whenever a category is created, so cached category lists are dropped.
+ * {@code userId} is null for changes to the shared system categories.
+ */
+public record CategoriesChangedEvent(Integer userId) {
+}
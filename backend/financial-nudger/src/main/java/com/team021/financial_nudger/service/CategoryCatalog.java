@@ -0,0 +1,132 @@
+package com.team021.financial_nudger.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.team021.financial_nudger.domain.Category;
+import com.team021.financial_nudger.repository.CategoryRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-memory view of the categories each user can see (system + their own), so manual entries
+ * and statement lines stop querying the category table on every call.
+ * <p>
+ * Snapshots are immutable and held for at most {@code categories.catalog.max-users} users.
+ * Every {@link CategoriesChangedEvent} bumps the user's version (after the publishing transaction
+ * commits) and drops their snapshot; a snapshot loaded under an older version is never served.
+ * Hit ratio and load time are published as {@code categories.catalog.*} meters.
+ */
+@Component
+public class CategoryCatalog {
+
+    /**
+     * Category names in display order, name → id (the user's own category wins over a system one
+     * of the same name), the ids of categories the user owns, and id → name.
+     */
+    public record Snapshot(long version, List<String> names, Map<String, Integer> idsByName,
+                           Map<String, Integer> userCategoryIds, Map<Integer, String> namesById) {}
+
+    private final CategoryRepository categoryRepository;
+    private final Cache<Integer, Snapshot> snapshots;
+    private final Cache<Integer, String> namesById;
+    private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong systemVersion = new AtomicLong();
+    private final Timer loadTimer;
+
+    public CategoryCatalog(
+            CategoryRepository categoryRepository,
+            MeterRegistry meterRegistry,
+            @Value("${categories.catalog.max-users:1000}") long maxUsers
+    ) {
+        this.categoryRepository = categoryRepository;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxUsers))
+                .recordStats()
+                .build();
+        // Categories are never renamed or deleted, so an id always maps to the same name
+        this.namesById = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxUsers) * 32)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "categories.catalog");
+        this.loadTimer = Timer.builder("categories.catalog.load")
+                .description("Time to read a user's categories from the database")
+                .register(meterRegistry);
+    }
+
+    public Snapshot forUser(Integer userId) {
+        long version = versionOf(userId);
+        Snapshot snapshot = snapshots.get(userId, id -> load(id, version));
+        if (snapshot.version() != version) {
+            // Loaded before a concurrent change was announced
+            snapshot = load(userId, version);
+            snapshots.put(userId, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Name of any category by id, or null if it does not exist.
+     */
+    public String nameOf(Integer categoryId) {
+        return namesById.get(categoryId, id -> categoryRepository.findById(id)
+                .map(Category::getCategoryName)
+                .orElse(null));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoriesChanged(CategoriesChangedEvent event) {
+        if (event.userId() == null) {
+            systemVersion.incrementAndGet();
+            snapshots.invalidateAll();
+        } else {
+            versions.merge(event.userId(), 1L, Long::sum);
+            snapshots.invalidate(event.userId());
+        }
+    }
+
+    /**
+     * Grows whenever the user's or the system categories change.
+     */
+    public long versionOf(Integer userId) {
+        return systemVersion.get() + versions.getOrDefault(userId, 0L);
+    }
+
+    private Snapshot load(Integer userId, long version) {
+        return loadTimer.record(() -> {
+            List<Category> categories = categoryRepository.findAvailableCategoriesForUser(userId);
+            Set<String> names = new LinkedHashSet<>();
+            Map<String, Integer> idsByName = new HashMap<>();
+            Map<String, Integer> userCategoryIds = new HashMap<>();
+            Map<Integer, String> byId = new HashMap<>();
+            for (Category c : categories) {
+                names.add(c.getCategoryName());
+                byId.put(c.getCategoryId(), c.getCategoryName());
+                namesById.put(c.getCategoryId(), c.getCategoryName());
+                if (userId.equals(c.getUserId())) {
+                    userCategoryIds.putIfAbsent(c.getCategoryName(), c.getCategoryId());
+                    idsByName.put(c.getCategoryName(), c.getCategoryId());
+                } else {
+                    idsByName.putIfAbsent(c.getCategoryName(), c.getCategoryId());
+                }
+            }
+            return new Snapshot(version, Collections.unmodifiableList(new ArrayList<>(names)),
+                    Map.copyOf(idsByName), Map.copyOf(userCategoryIds), Map.copyOf(byId));
+        });
+    }
+}
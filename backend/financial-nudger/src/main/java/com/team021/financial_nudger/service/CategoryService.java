@@ -1,9 +1,17 @@
 package com.team021.financial_nudger.service;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.team021.financial_nudger.domain.Category;
 import com.team021.financial_nudger.dto.CategoryCreateRequest;
@@ -16,9 +24,24 @@ import com.team021.financial_nudger.repository.CategoryRepository;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
-
-    public CategoryService(CategoryRepository categoryRepository) {
+    private final CategoryCatalog catalog;
+    private final ApplicationEventPublisher events;
+    /** Creation of one (user, name) runs in its own transaction, so a lost insert race never dooms the caller's. */
+    private final TransactionTemplate createTx;
+    private final ReentrantLock[] createLocks = new ReentrantLock[64];
+
+    public CategoryService(CategoryRepository categoryRepository,
+                           CategoryCatalog catalog,
+                           ApplicationEventPublisher events,
+                           PlatformTransactionManager transactionManager) {
         this.categoryRepository = categoryRepository;
+        this.catalog = catalog;
+        this.events = events;
+        this.createTx = new TransactionTemplate(transactionManager);
+        this.createTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < createLocks.length; i++) {
+            createLocks[i] = new ReentrantLock();
+        }
     }
 
     // ------------------------------------------
@@ -33,10 +56,14 @@ public class CategoryService {
      * @return A List of String containing all available category names.
      */
     public List<String> getAvailableCategoryNames(Integer userId) {
-        return categoryRepository.findAvailableCategoriesForUser(userId)
-                .stream()
-                .map(Category::getCategoryName)
-                .collect(Collectors.toList());
+        return catalog.forUser(userId).names();
+    }
+
+    /**
+     * The user's cached category catalog: names plus name/id lookups, without further queries.
+     */
+    public CategoryCatalog.Snapshot getCatalog(Integer userId) {
+        return catalog.forUser(userId);
     }
 
     /**
@@ -63,18 +90,49 @@ public class CategoryService {
     /**
      * Fetches a user's category by name or creates it if missing.
      * Defaults type to EXPENSE.
+     * <p>
+     * Safe under concurrency: creators of the same (user, name) in this process queue on one
+     * lock stripe (other names proceed in parallel), and the unique (user_id, category_name)
+     * constraint catches races with other instances, in which case the winner's row is re-read.
      */
     public Category getOrCreateUserCategoryByName(String categoryName, Integer userId) {
         return categoryRepository.findByCategoryNameAndUserId(categoryName, userId)
-                .orElseGet(() -> {
-                    System.out.println("✨ Auto-creating category '" + categoryName + "' for user " + userId);
-                    Category c = new Category();
-                    c.setCategoryName(categoryName);
-                    c.setCategoryType(Category.CategoryType.EXPENSE);
-                    c.setIsUserDefined(true);
-                    c.setUserId(userId);
-                    return categoryRepository.save(c);
-                });
+                .orElseGet(() -> createUserCategory(categoryName, userId));
+    }
+
+    private Category createUserCategory(String categoryName, Integer userId) {
+        ReentrantLock lock = createLocks[Math.floorMod(
+                Objects.hash(userId, categoryName.toLowerCase(Locale.ROOT)), createLocks.length)];
+        lock.lock();
+        try {
+            return createTx.execute(status -> categoryRepository.findByCategoryNameAndUserId(categoryName, userId)
+                    .orElseGet(() -> {
+                        System.out.println("✨ Auto-creating category '" + categoryName + "' for user " + userId);
+                        Category c = new Category();
+                        c.setCategoryName(categoryName);
+                        c.setCategoryType(Category.CategoryType.EXPENSE);
+                        c.setIsUserDefined(true);
+                        c.setUserId(userId);
+                        Category saved = categoryRepository.saveAndFlush(c);
+                        events.publishEvent(new CategoriesChangedEvent(userId));
+                        return saved;
+                    }));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance inserted it first; a fresh transaction sees its committed row
+            return createTx.execute(status -> categoryRepository.findByCategoryNameAndUserId(categoryName, userId))
+                    .orElseThrow(() -> e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Id of the user's own category with this name, created if missing.
+     * Answered from the catalog when the category is already known.
+     */
+    public Integer getOrCreateUserCategoryId(String categoryName, Integer userId) {
+        Integer id = catalog.forUser(userId).userCategoryIds().get(categoryName);
+        return id != null ? id : getOrCreateUserCategoryByName(categoryName, userId).getCategoryId();
     }
 
     // ------------------------------------------
@@ -100,7 +158,15 @@ public class CategoryService {
         category.setIsUserDefined(true); // Explicitly mark as user-defined
         category.setUserId(request.userId());
 
-        Category savedCategory = categoryRepository.save(category);
+        Category savedCategory;
+        try {
+            savedCategory = categoryRepository.saveAndFlush(category);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent create of the same name
+            throw new ResourceAlreadyExistsException("Category with name '" + request.categoryName() +
+                    "' already exists for this user.");
+        }
+        events.publishEvent(new CategoriesChangedEvent(request.userId()));
         return mapToResponse(savedCategory);
     }
 
@@ -130,8 +196,7 @@ public class CategoryService {
         if (categoryId == null) {
             return "Uncategorized";
         }
-        return categoryRepository.findById(categoryId)
-                .map(Category::getCategoryName)
-                .orElse("Unknown");
+        String name = catalog.nameOf(categoryId);
+        return name != null ? name : "Unknown";
     }
 }
\ No newline at end of file
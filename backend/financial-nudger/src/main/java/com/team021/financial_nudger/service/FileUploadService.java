@@ -1,110 +1,201 @@
 package com.team021.financial_nudger.service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Instant;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.team021.financial_nudger.domain.IngestedFile;
 import com.team021.financial_nudger.dto.FileUploadResponse;
+import com.team021.financial_nudger.dto.IngestionStatusResponse;
 import com.team021.financial_nudger.exception.FileProcessingException;
+import com.team021.financial_nudger.exception.ResourceNotFoundException;
 import com.team021.financial_nudger.repository.IngestedFileRepository;
-import com.team021.financial_nudger.service.pdf.PdfExtractionService;
+import com.team021.financial_nudger.service.ingestion.IngestionJobQueue;
+import com.team021.financial_nudger.service.ingestion.IngestionProgress;
+import com.team021.financial_nudger.service.ingestion.StatementFileStore;
+import com.team021.financial_nudger.service.ingestion.StatementFileStore.StoredStatement;
+import com.team021.financial_nudger.service.ingestion.StatementProcessor;
 
 @Service
 public class FileUploadService {
 
+    /**
+     * What to do when a user uploads bytes they have already ingested.
+     * REUSE returns the earlier result, REINGEST processes again (from cached text when available),
+     * OFF ignores the content hash.
+     */
+    public enum DuplicateUploadMode { REUSE, REINGEST, OFF }
+
     private final IngestedFileRepository ingestedFileRepository;
-    private final TransactionService transactionService;
-    private final PdfExtractionService pdfExtractionService;
+    private final StatementProcessor statementProcessor;
+    private final StatementFileStore fileStore;
+    private final IngestionJobQueue jobQueue;
+    private final DuplicateUploadMode duplicateUploadMode;
 
     public FileUploadService(
             IngestedFileRepository repo,
-            TransactionService txService,
-            PdfExtractionService pdfService
+            StatementProcessor statementProcessor,
+            StatementFileStore fileStore,
+            IngestionJobQueue jobQueue,
+            @Value("${ingestion.dedupe.mode:REUSE}") DuplicateUploadMode duplicateUploadMode
     ) {
         this.ingestedFileRepository = repo;
-        this.transactionService = txService;
-        this.pdfExtractionService = pdfService;
+        this.statementProcessor = statementProcessor;
+        this.fileStore = fileStore;
+        this.jobQueue = jobQueue;
+        this.duplicateUploadMode = duplicateUploadMode;
     }
 
-    @Transactional
-    public FileUploadResponse processPdfFile(MultipartFile file, Integer userId) {
+    /**
+     * Processes a statement on the calling thread and returns the final counts.
+     *
+     * @param reingest force processing even if the same bytes were ingested before (null = configured default)
+     */
+    public FileUploadResponse processPdfFile(MultipartFile file, Integer userId, Boolean reingest) {
 
-        IngestedFile ingestedFile = new IngestedFile();
-        ingestedFile.setUserId(userId);
-        ingestedFile.setFileName(file.getOriginalFilename());
-        ingestedFile.setFileSize(file.getSize());
-        ingestedFile.setMimeType(file.getContentType());
-        ingestedFile.setFileType(IngestedFile.FileType.STATEMENT);
-        ingestedFile.setUploadStatus(IngestedFile.UploadStatus.PROCESSING);
-        ingestedFile = ingestedFileRepository.save(ingestedFile);
-
-        int success = 0;
-        List<String> errors = new ArrayList<>();
+        IngestedFile ingestedFile = newStatementFile(file, userId, IngestedFile.UploadStatus.PROCESSING);
 
         try {
-            String text = pdfExtractionService.extractTextFromPdf(file);
-            String[] raw = (text == null ? "" : text).split("\r?\n");
-
-            List<String> lines = new ArrayList<>();
-            for (String r : raw) {
-                if (r != null) {
-                    String t = r.trim();
-                    if (!t.isEmpty()) lines.add(t);
-                }
-            }
-
-            if (lines.isEmpty()) {
-                ingestedFile.setUploadStatus(IngestedFile.UploadStatus.FAILED);
-                ingestedFile.setErrorMessage("No extractable text found in PDF");
-                ingestedFileRepository.save(ingestedFile);
-                return FileUploadResponse.builder()
-                        .success(false)
-                        .message("No extractable text found in PDF")
-                        .fileId(ingestedFile.getFileId())
-                        .fileName(file.getOriginalFilename())
-                        .fileSize(file.getSize())
-                        .processedRows(0)
-                        .successfulTransactions(0)
-                        .failedTransactions(0)
-                        .errors(errors)
-                        .build();
+            StoredStatement stored = storeStatement(ingestedFile, file);
+            IngestedFile previous = findPreviousIngestion(ingestedFile, reingest);
+            if (previous != null) {
+                return reusePreviousIngestion(ingestedFile, previous);
             }
-
-            for (String line : lines) {
-                try {
-                    transactionService.saveTransactionFromStatementLine(
-                            userId, ingestedFile.getFileId(), line);
-                    success++;
-                } catch (Exception e) {
-                    errors.add(line);
-                }
-            }
-
-            ingestedFile.setUploadStatus(IngestedFile.UploadStatus.COMPLETED);
+            return statementProcessor.process(ingestedFile, stored.path(), new IngestionProgress());
+        } catch (Exception e) {
+            ingestedFile.setUploadStatus(IngestedFile.UploadStatus.FAILED);
+            ingestedFile.setErrorMessage(e.getMessage());
             ingestedFileRepository.save(ingestedFile);
+            throw new FileProcessingException(e.getMessage(), e);
+        } finally {
+            fileStore.delete(ingestedFile.getFileId());
+        }
+    }
 
-            return FileUploadResponse.builder()
-                    .success(true)
-                    .message("Statement processed")
-                    .fileId(ingestedFile.getFileId())
-                    .fileName(file.getOriginalFilename())
-                    .fileSize(file.getSize())
-                    .processedRows(lines.size())
-                    .successfulTransactions(success)
-                    .failedTransactions(lines.size() - success)
-                    .errors(errors)
-                    .build();
+    /**
+     * Persists the statement and queues it for background ingestion.
+     * Progress can be polled through {@link #getIngestionStatus(Integer)}.
+     */
+    public FileUploadResponse acceptPdfFile(MultipartFile file, Integer userId, Boolean reingest) {
 
+        IngestedFile ingestedFile = newStatementFile(file, userId, IngestedFile.UploadStatus.PENDING);
+
+        try {
+            storeStatement(ingestedFile, file);
         } catch (Exception e) {
             ingestedFile.setUploadStatus(IngestedFile.UploadStatus.FAILED);
             ingestedFile.setErrorMessage(e.getMessage());
             ingestedFileRepository.save(ingestedFile);
             throw new FileProcessingException(e.getMessage(), e);
         }
+
+        IngestedFile previous = findPreviousIngestion(ingestedFile, reingest);
+        if (previous != null) {
+            fileStore.delete(ingestedFile.getFileId());
+            return reusePreviousIngestion(ingestedFile, previous);
+        }
+        jobQueue.enqueue(ingestedFile.getFileId());
+
+        return FileUploadResponse.builder()
+                .success(true)
+                .message("Statement accepted for processing")
+                .fileId(ingestedFile.getFileId())
+                .fileName(file.getOriginalFilename())
+                .fileSize(file.getSize())
+                .processedRows(0)
+                .successfulTransactions(0)
+                .failedTransactions(0)
+                .build();
+    }
+
+    public IngestionStatusResponse getIngestionStatus(Integer fileId) {
+        IngestedFile file = ingestedFileRepository.findById(fileId)
+                .orElseThrow(() -> new ResourceNotFoundException("File not found: " + fileId));
+
+        IngestionProgress live = jobQueue.progressFor(fileId);
+        if (live != null) {
+            return new IngestionStatusResponse(
+                    file.getFileId(), file.getFileName(), IngestedFile.UploadStatus.PROCESSING,
+                    live.getTotalLines(), live.getProcessedLines(),
+                    live.getSuccessfulTransactions(), live.getFailedTransactions(), live.getSkippedLines(),
+                    live.getDuplicateTransactions(),
+                    null, file.getUploadedAt(), null);
+        }
+
+        return new IngestionStatusResponse(
+                file.getFileId(), file.getFileName(), file.getUploadStatus(),
+                file.getProcessedRows(),
+                file.getUploadStatus() == IngestedFile.UploadStatus.COMPLETED ? file.getProcessedRows() : null,
+                file.getSuccessfulTransactions(), file.getFailedTransactions(), file.getSkippedLines(),
+                file.getDuplicateTransactions(),
+                file.getErrorMessage(), file.getUploadedAt(), file.getProcessedAt());
+    }
+
+    private StoredStatement storeStatement(IngestedFile ingestedFile, MultipartFile file) {
+        StoredStatement stored = fileStore.store(ingestedFile.getFileId(), file);
+        ingestedFile.setContentHash(stored.contentHash());
+        // Same bytes, same layout: a re-ingested copy skips detection
+        if (ingestedFile.getParserId() == null) {
+            ingestedFileRepository.findFirstByContentHashAndParserIdIsNotNullOrderByFileIdDesc(stored.contentHash())
+                    .ifPresent(previous -> ingestedFile.setParserId(previous.getParserId()));
+        }
+        ingestedFileRepository.save(ingestedFile);
+        return stored;
+    }
+
+    private IngestedFile findPreviousIngestion(IngestedFile ingestedFile, Boolean reingest) {
+        boolean reuse = reingest != null ? !reingest : duplicateUploadMode == DuplicateUploadMode.REUSE;
+        if (!reuse) return null;
+        return ingestedFileRepository
+                .findFirstByUserIdAndContentHashAndUploadStatusAndDuplicateOfFileIdIsNullOrderByFileIdDesc(
+                        ingestedFile.getUserId(), ingestedFile.getContentHash(), IngestedFile.UploadStatus.COMPLETED)
+                .filter(previous -> !previous.getFileId().equals(ingestedFile.getFileId()))
+                .orElse(null);
+    }
+
+    /**
+     * Records the upload as a duplicate of {@code previous} and answers with the earlier counts;
+     * nothing is extracted, classified or saved again.
+     */
+    private FileUploadResponse reusePreviousIngestion(IngestedFile ingestedFile, IngestedFile previous) {
+        ingestedFile.setUploadStatus(IngestedFile.UploadStatus.COMPLETED);
+        ingestedFile.setDuplicateOfFileId(previous.getFileId());
+        ingestedFile.setProcessedRows(previous.getProcessedRows());
+        ingestedFile.setSuccessfulTransactions(previous.getSuccessfulTransactions());
+        ingestedFile.setFailedTransactions(previous.getFailedTransactions());
+        ingestedFile.setSkippedLines(previous.getSkippedLines());
+        ingestedFile.setDuplicateTransactions(previous.getDuplicateTransactions());
+        ingestedFile.setProcessedAt(Instant.now());
+        ingestedFileRepository.save(ingestedFile);
+        System.out.println("♻️ File " + ingestedFile.getFileId() + " is identical to already ingested file " + previous.getFileId());
+
+        return FileUploadResponse.builder()
+                .success(true)
+                .message("Statement was already ingested as file " + previous.getFileId() + "; returning that result")
+                .fileId(ingestedFile.getFileId())
+                .fileName(ingestedFile.getFileName())
+                .fileSize(ingestedFile.getFileSize())
+                .processedRows(previous.getProcessedRows())
+                .successfulTransactions(previous.getSuccessfulTransactions())
+                .failedTransactions(previous.getFailedTransactions())
+                .skippedLines(previous.getSkippedLines())
+                .duplicateTransactions(previous.getDuplicateTransactions())
+                .processedAt(ingestedFile.getProcessedAt())
+                .build();
+    }
+
+    private IngestedFile newStatementFile(MultipartFile file, Integer userId, IngestedFile.UploadStatus status) {
+        IngestedFile ingestedFile = new IngestedFile();
+        ingestedFile.setUserId(userId);
+        ingestedFile.setFileName(file.getOriginalFilename());
+        ingestedFile.setFileSize(file.getSize());
+        ingestedFile.setMimeType(file.getContentType());
+        ingestedFile.setFileType(IngestedFile.FileType.STATEMENT);
+        ingestedFile.setUploadStatus(status);
+        return ingestedFileRepository.save(ingestedFile);
     }
 
     @Transactional
@@ -0,0 +1,87 @@
+package com.team021.financial_nudger.service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.team021.financial_nudger.service.ingestion.StatementDateScanner;
+import com.team021.financial_nudger.service.pdf.StatementParser;
+
+/**
+ * Per-file state for statement ingestion, built once by
+ * {@link TransactionService#openStatementSession(Integer, Integer)}.
+ * The user is verified and the category list is taken from the {@link CategoryCatalog} once; categories the
+ * classifier returns that the user does not own yet are created on first use and remembered.
+ * Shared by the pipeline stages working on the same file, so lookups are thread-safe.
+ */
+public class StatementIngestionSession {
+
+    private final Integer userId;
+    private final Integer fileId;
+    private final CategoryService categoryService;
+    private final CopyOnWriteArrayList<String> availableCategoryNames;
+    private final Map<String, Integer> userCategoryIds = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> fingerprintOccurrences = new ConcurrentHashMap<>();
+    // One per file, so the date format seen on its first rows is tried first on the rest
+    private final StatementDateScanner dateScanner = new StatementDateScanner();
+    private volatile StatementParser parser;
+
+    StatementIngestionSession(Integer userId, Integer fileId, CategoryService categoryService, CategoryCatalog.Snapshot catalog) {
+        this.userId = userId;
+        this.fileId = fileId;
+        this.categoryService = categoryService;
+        this.availableCategoryNames = new CopyOnWriteArrayList<>(catalog.names());
+        // Statement rows are always filed under the user's own copy of a category
+        this.userCategoryIds.putAll(catalog.userCategoryIds());
+    }
+
+    public Integer getUserId() { return userId; }
+    public Integer getFileId() { return fileId; }
+
+    public List<String> getAvailableCategoryNames() {
+        return Collections.unmodifiableList(availableCategoryNames);
+    }
+
+    /**
+     * 1 for the first row in this file with the given fingerprint, 2 for the second, and so on.
+     */
+    int nextOccurrence(long fingerprint) {
+        return fingerprintOccurrences.computeIfAbsent(fingerprint, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /** The statement layout, once known; null until detected. */
+    public StatementParser getParser() { return parser; }
+
+    /**
+     * Fixes the layout of this file; its date format becomes the one the date scanner tries first.
+     */
+    public void useParser(StatementParser parser) {
+        this.parser = parser;
+        if (parser != null && parser.dateFormat() != null) dateScanner.prefer(parser.dateFormat());
+    }
+
+    /**
+     * Posting date of a line of this statement, or null when it carries none.
+     */
+    LocalDate dateOf(CharSequence line) {
+        return dateScanner.dateOf(line);
+    }
+
+    Integer categoryIdFor(String categoryName) {
+        Integer id = userCategoryIds.get(categoryName);
+        if (id != null) return id;
+
+        synchronized (this) {
+            id = userCategoryIds.get(categoryName);
+            if (id != null) return id;
+            id = categoryService.getOrCreateUserCategoryId(categoryName, userId);
+            userCategoryIds.put(categoryName, id);
+            availableCategoryNames.addIfAbsent(categoryName);
+            return id;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.team021.financial_nudger.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page in (date DESC, transactionId DESC) order,
+ * passed to clients as an opaque URL-safe token.
+ */
+public record TransactionCursor(LocalDate date, Integer transactionId) {
+
+    public String encode() {
+        String raw = date + "|" + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int bar = raw.indexOf('|');
+            return new TransactionCursor(LocalDate.parse(raw.substring(0, bar)), Integer.valueOf(raw.substring(bar + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+}
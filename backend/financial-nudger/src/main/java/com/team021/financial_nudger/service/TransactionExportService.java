@@ -0,0 +1,209 @@
+package com.team021.financial_nudger.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.team021.financial_nudger.domain.Transaction;
+import com.team021.financial_nudger.dto.TransactionExportRow;
+import com.team021.financial_nudger.exception.ResourceNotFoundException;
+import com.team021.financial_nudger.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Writes a user's whole transaction history as CSV or NDJSON while reading it from a
+ * forward-only JDBC result set. Each entity is detached once written, so the persistence
+ * context (and the heap) stays the same size whatever the history length.
+ * {@code export.fetch-size} defaults to {@link Integer#MIN_VALUE}, which makes MySQL
+ * Connector/J stream rows one by one instead of buffering the full result.
+ */
+@Service
+public class TransactionExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String EXPORT_QUERY =
+            "SELECT t FROM Transaction t WHERE t.userId = :userId ORDER BY t.date, t.transactionId";
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate readTx;
+    private final UserRepository userRepository;
+    private final CategoryService categoryService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter rowJsonWriter;
+    private final int fetchSize;
+
+    public TransactionExportService(
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            UserRepository userRepository,
+            CategoryService categoryService,
+            ObjectMapper objectMapper,
+            @Value("${export.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize
+    ) {
+        this.entityManager = entityManager;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.userRepository = userRepository;
+        this.categoryService = categoryService;
+        this.objectMapper = objectMapper;
+        // Flushing is left to the buffered writer instead of happening after every row
+        this.rowJsonWriter = objectMapper.writerFor(TransactionExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Called before the response starts, while a 404 can still be sent.
+     */
+    public void ensureUserExists(Integer userId) {
+        if (userId == null || !userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found: " + userId);
+        }
+    }
+
+    /**
+     * Streams every transaction of the user to {@code out}, oldest first. Does not close {@code out}.
+     */
+    public long write(Integer userId, Format format, OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        Map<Integer, String> categoryNames = categoryService.getCatalog(userId).namesById();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rows = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+
+        long count;
+        try {
+            count = readTx.execute(status -> {
+                try (Stream<Transaction> stream = entityManager.createQuery(EXPORT_QUERY, Transaction.class)
+                        .setParameter("userId", userId)
+                        .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                        .setHint(AvailableHints.HINT_READ_ONLY, true)
+                        .getResultStream()) {
+                    long written = 0;
+                    for (Transaction t : (Iterable<Transaction>) stream::iterator) {
+                        rows.write(toRow(t, categoryNames));
+                        entityManager.detach(t);
+                        written++;
+                    }
+                    return written;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            rows.finish();
+        } catch (UncheckedIOException e) {
+            // Usually the client went away mid-download
+            throw e.getCause();
+        }
+
+        System.out.println("📤 Exported " + count + " transaction(s) for user " + userId + " as " + format
+                + " in " + (System.currentTimeMillis() - started) + " ms");
+        return count;
+    }
+
+    private static TransactionExportRow toRow(Transaction t, Map<Integer, String> categoryNames) {
+        return new TransactionExportRow(t.getTransactionId(), t.getDate(), t.getAmount(), t.getCurrency(), t.getType(),
+                t.getDescription(), t.getMerchantName(), t.getChannel(), t.getCategoryId(),
+                t.getCategoryId() == null ? null : categoryNames.get(t.getCategoryId()),
+                t.getCategoryConfidence(), t.getAiCategorized(), t.getUserCategorized(), t.getFileId());
+    }
+
+    private interface RowWriter {
+        void write(TransactionExportRow row) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer out;
+        private boolean headerWritten;
+
+        CsvRowWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(TransactionExportRow row) throws IOException {
+            if (!headerWritten) {
+                out.write(TransactionExportRow.CSV_HEADER);
+                out.write("\r\n");
+                headerWritten = true;
+            }
+            Object[] values = {row.transactionId(), row.date(), row.amount(), row.currency(), row.type(),
+                    row.description(), row.merchantName(), row.channel(), row.categoryId(), row.categoryName(),
+                    row.categoryConfidence(), row.isAiCategorized(), row.isUserCategorized(), row.fileId()};
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) out.write(',');
+                if (values[i] != null) writeField(values[i] instanceof BigDecimal d ? d.toPlainString() : values[i].toString());
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!headerWritten) {
+                out.write(TransactionExportRow.CSV_HEADER);
+                out.write("\r\n");
+            }
+            out.flush();
+        }
+
+        // RFC 4180: quote fields containing separators, quotes or line breaks; double embedded quotes
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private boolean empty = true;
+
+        NdjsonRowWriter(Writer out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        public void write(TransactionExportRow row) throws IOException {
+            rowJsonWriter.writeValue(generator, row);
+            empty = false;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!empty) generator.writeRaw('\n');
+            generator.flush();
+        }
+    }
+}
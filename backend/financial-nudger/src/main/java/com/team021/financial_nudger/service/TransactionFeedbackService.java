@@ -1,16 +1,28 @@
 package com.team021.financial_nudger.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
 import com.team021.financial_nudger.domain.Transaction;
 import com.team021.financial_nudger.domain.TransactionCategoryFeedback;
+import com.team021.financial_nudger.dto.FeedbackExportRow;
 import com.team021.financial_nudger.dto.TransactionFeedbackRequest;
 import com.team021.financial_nudger.exception.ResourceNotFoundException;
 import com.team021.financial_nudger.repository.TransactionCategoryFeedbackRepository;
 import com.team021.financial_nudger.repository.TransactionRepository;
+import com.team021.financial_nudger.service.analytics.SpendRollupService;
+import com.team021.financial_nudger.service.llm.ClassificationCache;
 
 @Service
 public class TransactionFeedbackService {
@@ -18,13 +30,25 @@ public class TransactionFeedbackService {
     private final TransactionRepository transactionRepository;
     private final TransactionCategoryFeedbackRepository feedbackRepository;
     private final CategoryService categoryService;
+    private final ClassificationCache classificationCache;
+    private final ObjectMapper objectMapper;
+    private final SpendRollupService spendRollupService;
+    private final ObjectWriter exportRowWriter;
 
     public TransactionFeedbackService(TransactionRepository transactionRepository,
                                       TransactionCategoryFeedbackRepository feedbackRepository,
-                                      CategoryService categoryService) {
+                                      CategoryService categoryService,
+                                      ClassificationCache classificationCache,
+                                      ObjectMapper objectMapper,
+                                      SpendRollupService spendRollupService) {
         this.transactionRepository = transactionRepository;
         this.feedbackRepository = feedbackRepository;
         this.categoryService = categoryService;
+        this.classificationCache = classificationCache;
+        this.objectMapper = objectMapper;
+        this.spendRollupService = spendRollupService;
+        this.exportRowWriter = objectMapper.writerFor(FeedbackExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @Transactional
@@ -36,9 +60,7 @@ public class TransactionFeedbackService {
             throw new IllegalArgumentException("Transaction does not belong to this user");
         }
 
-        Integer newCategoryId = categoryService
-                .getOrCreateUserCategoryByName(request.correctedCategoryName(), request.userId())
-                .getCategoryId();
+        Integer newCategoryId = categoryService.getOrCreateUserCategoryId(request.correctedCategoryName(), request.userId());
         Integer oldCategoryId = transaction.getCategoryId();
 
         transaction.setCategoryId(newCategoryId);
@@ -46,6 +68,7 @@ public class TransactionFeedbackService {
         transaction.setAiCategorized(false);
         transaction.setCategoryConfidence(null);
         Transaction saved = transactionRepository.save(transaction);
+        spendRollupService.recordRecategorized(saved, oldCategoryId);
 
         TransactionCategoryFeedback feedback = new TransactionCategoryFeedback(
                 transaction.getTransactionId(),
@@ -55,7 +78,34 @@ public class TransactionFeedbackService {
         );
         feedbackRepository.save(feedback);
 
+        // The cached model answer for this description was just contradicted by the user
+        classificationCache.evictText(transaction.getDescription());
+
         return saved;
     }
+
+    /**
+     * Writes corrections (all, or those created at or after {@code since}) to {@code out} as a
+     * JSON array, oldest first, straight from one streamed join. Rows carry {@code createdAt} and
+     * {@code feedbackId}: a retraining job passes the last {@code createdAt} it saw as the next
+     * {@code since} and drops the feedback ids it already has at that boundary.
+     */
+    @Transactional(readOnly = true)
+    public long exportFeedback(Instant since, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<FeedbackExportRow> rows = since == null
+                     ? feedbackRepository.streamFeedbackExport()
+                     : feedbackRepository.streamFeedbackExportSince(since);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartArray();
+            for (FeedbackExportRow row : (Iterable<FeedbackExportRow>) rows::iterator) {
+                exportRowWriter.writeValue(json, row);
+                count++;
+            }
+            json.writeEndArray();
+        }
+        return count;
+    }
 }
 
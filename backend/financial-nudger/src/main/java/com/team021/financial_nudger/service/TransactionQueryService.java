@@ -0,0 +1,84 @@
+package com.team021.financial_nudger.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.team021.financial_nudger.dto.TransactionListItem;
+import com.team021.financial_nudger.dto.TransactionPageResponse;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Read side of the transaction list: keyset pages of {@link TransactionListItem} projections.
+ * <p>
+ * Rows are ordered by (date, transactionId) descending and a page continues strictly after the
+ * cursor, so page N costs the same as page 1 and rows inserted meanwhile never shift a page.
+ * Only the filters actually given end up in the WHERE clause, which keeps every query a range
+ * scan of {@code idx_transactions_user_date_id} or, with a category, {@code idx_transactions_user_category_date_id}.
+ */
+@Service
+public class TransactionQueryService {
+
+    private static final String SELECT_ITEM = "SELECT new com.team021.financial_nudger.dto.TransactionListItem("
+            + "t.transactionId, t.date, t.amount, t.type, t.description, t.merchantName, t.categoryId, "
+            + "t.categoryConfidence, t.isAiCategorized, t.isUserCategorized, t.suspectedDuplicate) "
+            + "FROM Transaction t WHERE t.userId = :userId";
+
+    private final EntityManager entityManager;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public TransactionQueryService(
+            EntityManager entityManager,
+            @Value("${transactions.page.default-size:50}") int defaultPageSize,
+            @Value("${transactions.page.max-size:200}") int maxPageSize
+    ) {
+        this.entityManager = entityManager;
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.defaultPageSize = Math.min(this.maxPageSize, Math.max(1, defaultPageSize));
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionPageResponse findPage(Integer userId, String cursorToken, Integer limit,
+                                            LocalDate from, LocalDate to, Integer categoryId) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        int pageSize = limit == null ? defaultPageSize : Math.min(maxPageSize, Math.max(1, limit));
+        TransactionCursor cursor = cursorToken == null || cursorToken.isBlank() ? null : TransactionCursor.decode(cursorToken);
+
+        StringBuilder jpql = new StringBuilder(SELECT_ITEM);
+        if (categoryId != null) jpql.append(" AND t.categoryId = :categoryId");
+        if (from != null) jpql.append(" AND t.date >= :from");
+        if (to != null) jpql.append(" AND t.date <= :to");
+        if (cursor != null) {
+            jpql.append(" AND (t.date < :cursorDate OR (t.date = :cursorDate AND t.transactionId < :cursorId))");
+        }
+        jpql.append(" ORDER BY t.date DESC, t.transactionId DESC");
+
+        TypedQuery<TransactionListItem> query = entityManager.createQuery(jpql.toString(), TransactionListItem.class)
+                .setParameter("userId", userId);
+        if (categoryId != null) query.setParameter("categoryId", categoryId);
+        if (from != null) query.setParameter("from", from);
+        if (to != null) query.setParameter("to", to);
+        if (cursor != null) {
+            query.setParameter("cursorDate", cursor.date());
+            query.setParameter("cursorId", cursor.transactionId());
+        }
+
+        // One extra row tells whether another page exists
+        List<TransactionListItem> rows = query.setMaxResults(pageSize + 1).getResultList();
+        if (rows.size() <= pageSize) {
+            return new TransactionPageResponse(rows, null);
+        }
+        List<TransactionListItem> page = rows.subList(0, pageSize);
+        TransactionListItem last = page.get(pageSize - 1);
+        return new TransactionPageResponse(List.copyOf(page),
+                new TransactionCursor(last.date(), last.transactionId()).encode());
+    }
+}
@@ -2,12 +2,15 @@ package com.team021.financial_nudger.service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.team021.financial_nudger.domain.Transaction;
 import com.team021.financial_nudger.domain.Transaction.TransactionType;
@@ -15,9 +18,16 @@ import com.team021.financial_nudger.dto.ManualTransactionRequest;
 import com.team021.financial_nudger.exception.ResourceNotFoundException;
 import com.team021.financial_nudger.repository.TransactionRepository;
 import com.team021.financial_nudger.repository.UserRepository;
+import com.team021.financial_nudger.service.analytics.SpendRollupService;
+import com.team021.financial_nudger.service.ingestion.DuplicateTransactionDetector;
+import com.team021.financial_nudger.service.ingestion.StatementAmountScanner;
+import com.team021.financial_nudger.service.ingestion.TransactionFingerprint;
 import com.team021.financial_nudger.service.llm.CategorizationService;
 import com.team021.financial_nudger.service.llm.ClassificationResult;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 @Service
 public class TransactionService {
 
@@ -25,31 +35,46 @@ public class TransactionService {
     private final CategoryService categoryService;
     private final CategorizationService categorizationService;
     private final UserRepository userRepository;
+    private final DuplicateTransactionDetector duplicateDetector;
+    private final SpendRollupService spendRollupService;
+    private final TransactionTemplate transactionTemplate;
 
     public TransactionService(
             TransactionRepository transactionRepository,
             CategoryService categoryService,
             CategorizationService categorizationService,
-            UserRepository userRepository
+            UserRepository userRepository,
+            DuplicateTransactionDetector duplicateDetector,
+            SpendRollupService spendRollupService,
+            TransactionTemplate transactionTemplate
     ) {
         this.transactionRepository = transactionRepository;
         this.categoryService = categoryService;
         this.categorizationService = categorizationService;
         this.userRepository = userRepository;
+        this.duplicateDetector = duplicateDetector;
+        this.spendRollupService = spendRollupService;
+        this.transactionTemplate = transactionTemplate;
     }
 
     // 1️⃣ MANUAL TRANSACTION
-    public Transaction saveManualTransaction(ManualTransactionRequest request) {
-
-        ensureUserExists(request.userId());
-
-        List<String> categories = categoryService.getAvailableCategoryNames(request.userId());
-        ClassificationResult result =
-                categorizationService.classifyExpense(request.userId(), request.note(), categories);
+    /**
+     * Classifies and saves a manual entry without holding the request thread while the ML
+     * service answers; the database work after classification runs on the bounded-elastic scheduler.
+     */
+    public Mono<Transaction> saveManualTransaction(ManualTransactionRequest request) {
+        return Mono.fromCallable(() -> {
+                    ensureUserExists(request.userId());
+                    return categoryService.getAvailableCategoryNames(request.userId());
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(categories -> categorizationService.classifyExpenseAsync(request.userId(), request.note(), categories))
+                .publishOn(Schedulers.boundedElastic())
+                .map(result -> saveManualTransaction(request, result));
+    }
 
-        Integer categoryId = categoryService
-                .getOrCreateUserCategoryByName(result.classifiedCategoryName(), request.userId())
-                .getCategoryId();
+    private Transaction saveManualTransaction(ManualTransactionRequest request, ClassificationResult result) {
+        Integer categoryId = categoryService.getOrCreateUserCategoryId(result.classifiedCategoryName(), request.userId());
 
         Transaction tx = new Transaction();
         tx.setUserId(request.userId());
@@ -61,65 +86,203 @@ public class TransactionService {
         tx.setCategoryConfidence(result.confidenceScore());
         tx.setAiCategorized(true);
         tx.setUserCategorized(false);
+        tx.setFingerprint(TransactionFingerprint.ofManual(tx.getUserId(), tx.getDate(), tx.getAmount()));
 
-        return transactionRepository.save(tx);
+        Transaction saved = transactionTemplate.execute(status -> {
+            Transaction row = transactionRepository.save(tx);
+            spendRollupService.recordInserted(List.of(row));
+            return row;
+        });
+        duplicateDetector.recordInserted(saved.getUserId(), List.of(saved.getFingerprint()));
+        return saved;
     }
 
-    // 2️⃣ PDF STATEMENT LINE
+    // 2️⃣ PDF STATEMENT LINES (classified as one batch)
+    /**
+     * Starts ingesting one statement: checks the user and snapshots their categories once,
+     * so the per-chunk path below runs without per-line lookups.
+     */
+    public StatementIngestionSession openStatementSession(Integer userId, Integer fileId) {
+        ensureUserExists(userId);
+        return new StatementIngestionSession(userId, fileId, categoryService, categoryService.getCatalog(userId));
+    }
+
+    /**
+     * Removes rows left behind by an earlier, interrupted attempt at the same statement.
+     * Statement batches commit independently, so a resumed job starts from a clean slate.
+     */
     @Transactional
-    public void saveTransactionFromStatementLine(Integer userId, Integer fileId, String line) {
+    public int discardStatementTransactions(Integer fileId) {
+        spendRollupService.recordFileDeleted(fileId);
+        return transactionRepository.deleteByFileId(fileId);
+    }
 
-        if (line == null || line.isBlank()) return;
-        ensureUserExists(userId);
+    /**
+     * Parses and classifies a chunk of statement lines without writing transactions.
+     * Debit lines are classified with a single batch call; credits are filed under
+     * "Transfer" as before. Categories the user does not own yet are created here.
+     * The posting date is read from each line; lines without one keep a null date.
+     * {@code openingBalance} is the running balance before the chunk's first line (null when unknown),
+     * so a row whose direction only shows in the balance change is read right at a chunk boundary too.
+     */
+    public List<ClassifiedLine> classifyStatementLines(StatementIngestionSession session, List<String> lines,
+                                                       Long openingBalance) {
 
-        List<String> categories = categoryService.getAvailableCategoryNames(userId);
-        ParsedStatement parsed = parseAmountAndType(line);
+        List<ParsedStatement> parsed = new ArrayList<>(lines.size());
+        List<String> debitLines = new ArrayList<>();
+        StatementAmountScanner.Amounts amounts = new StatementAmountScanner.Amounts();
+        Long previousBalance = openingBalance;
+        for (String line : lines) {
+            ParsedStatement p = parseAmountAndType(line, previousBalance, amounts);
+            if (amounts.hasBalance()) previousBalance = amounts.balanceMinor();
+            parsed.add(p);
+            if (p.type() == TransactionType.DEBIT) debitLines.add(line);
+        }
 
-        String categoryName = parsed.type() == TransactionType.CREDIT
-                ? "Transfer"
-                : categorizationService
-                    .classifyExpense(userId, line, categories)
-                    .classifiedCategoryName();
+        List<ClassificationResult> debitResults = debitLines.isEmpty()
+                ? List.of()
+                : categorizationService.classifyBatch(session.getUserId(), debitLines, session.getAvailableCategoryNames());
 
-        Integer categoryId = categoryService
-                .getOrCreateUserCategoryByName(categoryName, userId)
-                .getCategoryId();
+        List<ClassifiedLine> classified = new ArrayList<>(lines.size());
+        int nextDebit = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            ParsedStatement p = parsed.get(i);
+            String categoryName = p.type() == TransactionType.CREDIT
+                    ? "Transfer"
+                    : debitResults.get(nextDebit++).classifiedCategoryName();
+            Integer categoryId = null;
+            try {
+                categoryId = session.categoryIdFor(categoryName);
+            } catch (Exception e) {
+                System.out.println("⚠️ Could not resolve category '" + categoryName + "': " + e.getMessage());
+            }
+            classified.add(new ClassifiedLine(line, session.dateOf(line), p.amount(), p.type(), categoryId));
+        }
+        return classified;
+    }
 
-        Transaction tx = new Transaction();
-        tx.setUserId(userId);
-        tx.setFileId(fileId);
-        tx.setDate(LocalDate.now());
-        tx.setAmount(parsed.amount());
-        tx.setType(parsed.type());
-        tx.setDescription(line);
-        tx.setCategoryId(categoryId);
-        tx.setCategoryConfidence(BigDecimal.valueOf(0.75));
-        tx.setAiCategorized(true);
-        tx.setUserCategorized(false);
+    /**
+     * Writes one classified chunk in its own transaction; rows go out as JDBC batches
+     * ({@code persistence.jdbc.batch-size}). Rows already present in the user's history
+     * (same {@link TransactionFingerprint}) are skipped or flagged, see {@link DuplicateTransactionDetector}.
+     */
+    @Transactional
+    public PersistResult persistStatementLines(StatementIngestionSession session, List<ClassifiedLine> lines) {
+
+        long[] fingerprints = new long[lines.size()];
+        Long[] manualFingerprints = new Long[lines.size()];
+        Set<Long> distinct = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            ClassifiedLine line = lines.get(i);
+            // An unknown statement date stays null in the fingerprint rather than becoming the upload day
+            fingerprints[i] = TransactionFingerprint.of(session.getUserId(), line.date(), line.amount(), line.line());
+            distinct.add(fingerprints[i]);
+            // Manual entries are debits with a real date; match them on user, date and amount
+            if (line.date() != null && line.type() == TransactionType.DEBIT) {
+                manualFingerprints[i] = TransactionFingerprint.ofManual(session.getUserId(), line.date(), line.amount());
+                distinct.add(manualFingerprints[i]);
+            }
+        }
+        Map<Long, Long> history = duplicateDetector.historyCounts(session.getUserId(), session.getFileId(), distinct);
+
+        List<String> failed = new ArrayList<>();
+        List<Transaction> batch = new ArrayList<>(lines.size());
+        List<Long> inserted = new ArrayList<>(lines.size());
+        int duplicates = 0;
+        int skippedDuplicates = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            ClassifiedLine line = lines.get(i);
+            if (line.categoryId() == null) {
+                failed.add(line.line());
+                continue;
+            }
+
+            // The first N copies in this file match the N copies already stored; any extra copies are new spends
+            boolean duplicate = false;
+            if (duplicateDetector.isEnabled()) {
+                duplicate = session.nextOccurrence(fingerprints[i]) <= history.getOrDefault(fingerprints[i], 0L);
+                if (!duplicate && manualFingerprints[i] != null) {
+                    duplicate = session.nextOccurrence(manualFingerprints[i]) <= history.getOrDefault(manualFingerprints[i], 0L);
+                }
+            }
+            if (duplicate) {
+                duplicates++;
+                if (duplicateDetector.getMode() == DuplicateTransactionDetector.Mode.SKIP) {
+                    skippedDuplicates++;
+                    continue;
+                }
+            }
+
+            Transaction tx = new Transaction();
+            tx.setUserId(session.getUserId());
+            tx.setFileId(session.getFileId());
+            tx.setDate(line.date() != null ? line.date() : LocalDate.now());
+            tx.setAmount(line.amount());
+            tx.setType(line.type());
+            tx.setDescription(line.line());
+            tx.setCategoryId(line.categoryId());
+            tx.setCategoryConfidence(BigDecimal.valueOf(0.75));
+            tx.setAiCategorized(true);
+            tx.setUserCategorized(false);
+            tx.setFingerprint(fingerprints[i]);
+            tx.setSuspectedDuplicate(duplicate);
+            batch.add(tx);
+            inserted.add(fingerprints[i]);
+        }
+
+        // Ids come from a pooled generator, so these go out as JDBC batches on flush
+        transactionRepository.saveAll(batch);
+        transactionRepository.flush();
+        spendRollupService.recordInserted(batch);
+        duplicateDetector.recordInserted(session.getUserId(), inserted);
+        duplicateDetector.recordDuplicates(duplicates);
+        return new PersistResult(failed, duplicates, skippedDuplicates);
+    }
 
-        transactionRepository.save(tx);
+    /**
+     * Deletes one of the user's transactions; its amount leaves the monthly rollups in the same transaction.
+     */
+    @Transactional
+    public void deleteTransaction(Integer transactionId, Integer userId) {
+        Transaction transaction = transactionRepository.findById(transactionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Transaction not found: " + transactionId));
+        if (!transaction.getUserId().equals(userId)) {
+            throw new IllegalArgumentException("Transaction does not belong to this user");
+        }
+        transactionRepository.delete(transaction);
+        spendRollupService.recordDeleted(List.of(transaction));
     }
 
+    /**
+     * Outcome of {@link #persistStatementLines}: lines that could not be saved, suspected duplicates
+     * found, and how many of those were left out (the rest were saved flagged).
+     */
+    public record PersistResult(List<String> failedLines, int duplicates, int skippedDuplicates) {}
+
     private void ensureUserExists(Integer userId) {
         if (userId == null || !userRepository.existsById(userId)) {
             throw new ResourceNotFoundException("User not found: " + userId);
         }
     }
 
-    private ParsedStatement parseAmountAndType(String line) {
-        Pattern p = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*\\((Dr|Cr)\\)", Pattern.CASE_INSENSITIVE);
-        Matcher m = p.matcher(line);
-
-        BigDecimal amount = BigDecimal.ZERO;
-        TransactionType type = TransactionType.DEBIT;
-
-        if (m.find()) {
-            amount = new BigDecimal(m.group(1));
-            type = m.group(2).equalsIgnoreCase("CR") ? TransactionType.CREDIT : TransactionType.DEBIT;
+    /**
+     * Amount and direction of one line, see {@link StatementAmountScanner}. Lines without an amount
+     * stay at zero, and an unknown direction is read as a debit, as before.
+     */
+    private ParsedStatement parseAmountAndType(String line, Long previousBalance, StatementAmountScanner.Amounts amounts) {
+        if (!StatementAmountScanner.scan(line, previousBalance, amounts)) {
+            return new ParsedStatement(BigDecimal.ZERO, TransactionType.DEBIT);
         }
-
-        return new ParsedStatement(amount, type);
+        TransactionType type = amounts.type() != null ? amounts.type() : TransactionType.DEBIT;
+        return new ParsedStatement(BigDecimal.valueOf(amounts.amountMinor(), 2), type);
     }
 
     private record ParsedStatement(BigDecimal amount, TransactionType type) {}
+
+    /**
+     * A statement line after parsing and classification. {@code date} is null when the line carries
+     * no parseable date; {@code categoryId} is null if the category could not be resolved.
+     */
+    public record ClassifiedLine(String line, LocalDate date, BigDecimal amount, TransactionType type, Integer categoryId) {}
 }
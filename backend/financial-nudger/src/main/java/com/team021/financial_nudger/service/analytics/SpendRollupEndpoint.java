@@ -0,0 +1,44 @@
+package com.team021.financial_nudger.service.analytics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/spendrollups}: GET compares the rollups with the transactions table,
+ * POST rebuilds them. Both take an optional {@code userId}; without it they cover every user.
+ */
+@Component
+@Endpoint(id = "spendrollups")
+public class SpendRollupEndpoint {
+
+    private static final int MAX_REPORTED = 100;
+
+    private final SpendRollupService spendRollupService;
+
+    public SpendRollupEndpoint(SpendRollupService spendRollupService) {
+        this.spendRollupService = spendRollupService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> verify(@Nullable Integer userId) {
+        List<String> mismatches = spendRollupService.verify(userId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("consistent", mismatches.isEmpty());
+        result.put("mismatchCount", mismatches.size());
+        result.put("mismatches", mismatches.subList(0, Math.min(MAX_REPORTED, mismatches.size())));
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild(@Nullable Integer userId) {
+        int rows = spendRollupService.rebuild(userId);
+        return Map.of("rebuiltRows", rows);
+    }
+}
@@ -0,0 +1,221 @@
+package com.team021.financial_nudger.service.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.team021.financial_nudger.domain.MonthlySpendRollup;
+import com.team021.financial_nudger.domain.Transaction;
+import com.team021.financial_nudger.domain.Transaction.TransactionType;
+import com.team021.financial_nudger.dto.MonthlySpendSummary;
+import com.team021.financial_nudger.repository.MonthlySpendRollupRepository;
+import com.team021.financial_nudger.service.CategoryCatalog;
+
+/**
+ * Keeps {@code monthly_spend_rollups} in step with {@code transactions}.
+ * <p>
+ * Every write path calls in here inside its own transaction (inserts, re-categorization, deletes),
+ * so a rollup row changes exactly when the transactions behind it commit. Changes are summed per
+ * rollup key first and applied as one batch of upserts in key order, which keeps concurrent
+ * ingestion workers from deadlocking on the same rows. {@link #rebuild} recomputes from scratch and
+ * {@link #verify} compares against a fresh GROUP BY; both are exposed on the {@code spendrollups}
+ * actuator endpoint, and {@code SpendRollupSeeder} fills an empty rollup table at startup, before traffic.
+ */
+@Service
+public class SpendRollupService {
+
+    private static final String UPSERT = "INSERT INTO monthly_spend_rollups "
+            + "(user_id, category_id, month_start, type, amount_minor, txn_count) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE amount_minor = amount_minor + VALUES(amount_minor), "
+            + "txn_count = txn_count + VALUES(txn_count)";
+
+    // Grouping used by both rebuild and verify; amounts are DECIMAL(15,2), so *100 is exact
+    private static final String AGGREGATE_TRANSACTIONS = "SELECT user_id, COALESCE(category_id, 0) AS category_id, "
+            + "DATE_SUB(date, INTERVAL DAYOFMONTH(date) - 1 DAY) AS month_start, type, "
+            + "CAST(SUM(amount * 100) AS SIGNED) AS amount_minor, COUNT(*) AS txn_count "
+            + "FROM transactions WHERE %s GROUP BY 1, 2, 3, 4";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MonthlySpendRollupRepository rollupRepository;
+    private final CategoryCatalog categoryCatalog;
+
+    public SpendRollupService(JdbcTemplate jdbcTemplate,
+                              MonthlySpendRollupRepository rollupRepository,
+                              CategoryCatalog categoryCatalog) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupRepository = rollupRepository;
+        this.categoryCatalog = categoryCatalog;
+    }
+
+    public record Key(Integer userId, Integer categoryId, LocalDate monthStart, TransactionType type) {}
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::userId)
+            .thenComparing(Key::categoryId)
+            .thenComparing(Key::monthStart)
+            .thenComparing(Key::type);
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordInserted(Collection<Transaction> transactions) {
+        Map<Key, long[]> deltas = new HashMap<>();
+        for (Transaction t : transactions) add(deltas, t, t.getCategoryId(), 1);
+        apply(deltas);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Collection<Transaction> transactions) {
+        Map<Key, long[]> deltas = new HashMap<>();
+        for (Transaction t : transactions) add(deltas, t, t.getCategoryId(), -1);
+        apply(deltas);
+    }
+
+    /**
+     * Moves one transaction's amount from {@code oldCategoryId} to its current category.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRecategorized(Transaction transaction, Integer oldCategoryId) {
+        Map<Key, long[]> deltas = new HashMap<>();
+        add(deltas, transaction, oldCategoryId, -1);
+        add(deltas, transaction, transaction.getCategoryId(), 1);
+        apply(deltas);
+    }
+
+    /**
+     * Subtracts every transaction of a statement file, before those rows are bulk-deleted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordFileDeleted(Integer fileId) {
+        Map<Key, long[]> deltas = new HashMap<>();
+        jdbcTemplate.query(String.format(AGGREGATE_TRANSACTIONS, "file_id = ?"), rs -> {
+            deltas.put(new Key(rs.getInt(1), rs.getInt(2), rs.getDate(3).toLocalDate(),
+                    TransactionType.valueOf(rs.getString(4))), new long[]{-rs.getLong(5), -rs.getLong(6)});
+        }, fileId);
+        apply(deltas);
+    }
+
+    /**
+     * Per-month totals for the months touching {@code [from, to]}, read from the rollups only.
+     */
+    @Transactional(readOnly = true)
+    public List<MonthlySpendSummary> monthlySummary(Integer userId, LocalDate from, LocalDate to) {
+        List<MonthlySpendSummary> summary = new ArrayList<>();
+        for (MonthlySpendRollup r : rollupRepository.findMonths(userId, from.withDayOfMonth(1), to)) {
+            Integer categoryId = r.getCategoryId() == MonthlySpendRollup.UNCATEGORIZED ? null : r.getCategoryId();
+            summary.add(new MonthlySpendSummary(r.getMonthStart(), categoryId,
+                    categoryId == null ? null : categoryCatalog.nameOf(categoryId), r.getType(),
+                    BigDecimal.valueOf(r.getAmountMinor(), 2), r.getTxnCount()));
+        }
+        return summary;
+    }
+
+    /**
+     * Recomputes the rollups of one user (or all users when null) from the transactions table.
+     */
+    @Transactional
+    public int rebuild(Integer userId) {
+        String where = userId == null ? "1 = 1" : "user_id = ?";
+        Object[] args = userId == null ? new Object[0] : new Object[]{userId};
+        jdbcTemplate.update("DELETE FROM monthly_spend_rollups WHERE " + where, args);
+        int rows = jdbcTemplate.update("INSERT INTO monthly_spend_rollups "
+                + "(user_id, category_id, month_start, type, amount_minor, txn_count) "
+                + String.format(AGGREGATE_TRANSACTIONS, where), args);
+        System.out.println("📊 Rebuilt " + rows + " spend rollup row(s)" + (userId == null ? "" : " for user " + userId));
+        return rows;
+    }
+
+    /**
+     * Rollup keys whose stored sum or count differs from the transactions table (empty when consistent).
+     */
+    @Transactional(readOnly = true)
+    public List<String> verify(Integer userId) {
+        String where = userId == null ? "1 = 1" : "user_id = ?";
+        Object[] args = userId == null ? new Object[0] : new Object[]{userId};
+
+        Map<Key, long[]> expected = new HashMap<>();
+        jdbcTemplate.query(String.format(AGGREGATE_TRANSACTIONS, where), rs -> {
+            expected.put(new Key(rs.getInt(1), rs.getInt(2), rs.getDate(3).toLocalDate(),
+                    TransactionType.valueOf(rs.getString(4))), new long[]{rs.getLong(5), rs.getLong(6)});
+        }, args);
+        Map<Key, long[]> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, category_id, month_start, type, amount_minor, txn_count "
+                + "FROM monthly_spend_rollups WHERE " + where, rs -> {
+            stored.put(new Key(rs.getInt(1), rs.getInt(2), rs.getDate(3).toLocalDate(),
+                    TransactionType.valueOf(rs.getString(4))), new long[]{rs.getLong(5), rs.getLong(6)});
+        }, args);
+
+        Map<Key, String> mismatches = new TreeMap<>(KEY_ORDER);
+        Set<Key> keys = new HashSet<>(expected.keySet());
+        keys.addAll(stored.keySet());
+        for (Key key : keys) {
+            long[] want = expected.getOrDefault(key, new long[2]);
+            long[] have = stored.getOrDefault(key, new long[2]);
+            if (want[0] != have[0] || want[1] != have[1]) {
+                mismatches.put(key, key + ": expected " + want[0] + "/" + want[1] + ", stored " + have[0] + "/" + have[1]);
+            }
+        }
+        return new ArrayList<>(mismatches.values());
+    }
+
+    /**
+     * True when transactions exist but no rollups do (a database from before this table). Only meaningful
+     * before anything has written rollups, which is why {@code SpendRollupSeeder} asks during startup.
+     */
+    public boolean needsInitialBuild() {
+        Integer rollups = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT 1 FROM monthly_spend_rollups LIMIT 1) r", Integer.class);
+        Integer transactions = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT 1 FROM transactions LIMIT 1) t", Integer.class);
+        return rollups != null && rollups == 0 && transactions != null && transactions > 0;
+    }
+
+    private static void add(Map<Key, long[]> deltas, Transaction t, Integer categoryId, int sign) {
+        Key key = new Key(t.getUserId(), categoryId == null ? MonthlySpendRollup.UNCATEGORIZED : categoryId,
+                t.getDate().withDayOfMonth(1), t.getType());
+        long[] delta = deltas.computeIfAbsent(key, k -> new long[2]);
+        delta[0] += sign * minorUnits(t.getAmount());
+        delta[1] += sign;
+    }
+
+    private void apply(Map<Key, long[]> deltas) {
+        List<Key> keys = new ArrayList<>();
+        for (Map.Entry<Key, long[]> e : deltas.entrySet()) {
+            if (e.getValue()[0] != 0 || e.getValue()[1] != 0) keys.add(e.getKey());
+        }
+        if (keys.isEmpty()) return;
+        keys.sort(KEY_ORDER);
+
+        List<Object[]> args = new ArrayList<>(keys.size());
+        boolean removed = false;
+        for (Key key : keys) {
+            long[] delta = deltas.get(key);
+            removed |= delta[1] < 0;
+            args.add(new Object[]{key.userId(), key.categoryId(), Date.valueOf(key.monthStart()), key.type().name(),
+                    delta[0], delta[1]});
+        }
+        jdbcTemplate.batchUpdate(UPSERT, args);
+
+        if (removed) {
+            Set<Integer> users = new HashSet<>();
+            for (Key key : keys) users.add(key.userId());
+            for (Integer user : users) {
+                jdbcTemplate.update("DELETE FROM monthly_spend_rollups WHERE user_id = ? AND txn_count = 0", user);
+            }
+        }
+    }
+
+    private static long minorUnits(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
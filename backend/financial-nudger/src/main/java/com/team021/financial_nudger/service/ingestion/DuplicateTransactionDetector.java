@@ -0,0 +1,175 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.team021.financial_nudger.repository.TransactionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Finds statement rows that are already in a user's history (overlapping statements, or
+ * spends the user also entered by hand).
+ * <p>
+ * Each user gets a Bloom filter of the {@link TransactionFingerprint fingerprints} of their
+ * recent transactions ({@code ingestion.dedupe.history-days}), built on first use. Rows the
+ * filter has never seen are new without asking the database; only filter hits are confirmed
+ * with one grouped count over the indexed {@code transactions.fingerprint} column.
+ * Older rows that predate the column get their fingerprint filled in while the filter is built,
+ * and manual entries are brought to the {@link TransactionFingerprint#ofManual description-free form}.
+ * New rows join the filter only once their transaction commits, so a rolled-back insert leaves no
+ * false positives behind.
+ */
+@Component
+public class DuplicateTransactionDetector {
+
+    /**
+     * SKIP drops confirmed duplicates, FLAG saves them with {@code suspected_duplicate = true}, OFF disables the check.
+     */
+    public enum Mode { SKIP, FLAG, OFF }
+
+    private final TransactionRepository transactionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Mode mode;
+    private final int historyDays;
+    private final double falsePositiveRate;
+    private final Cache<Integer, FingerprintBloomFilter> filters;
+    private final Counter filterMisses;
+    private final Counter filterHits;
+    private final Counter confirmed;
+
+    public DuplicateTransactionDetector(
+            TransactionRepository transactionRepository,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${ingestion.dedupe.transactions:SKIP}") Mode mode,
+            @Value("${ingestion.dedupe.history-days:400}") int historyDays,
+            @Value("${ingestion.dedupe.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${ingestion.dedupe.max-users:1000}") long maxUsers
+    ) {
+        this.transactionRepository = transactionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.mode = mode;
+        this.historyDays = Math.max(1, historyDays);
+        this.falsePositiveRate = Math.min(0.5, Math.max(1e-6, falsePositiveRate));
+        this.filters = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxUsers))
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+        this.filterMisses = meterRegistry.counter("ingestion.dedupe.checks", "result", "new");
+        this.filterHits = meterRegistry.counter("ingestion.dedupe.checks", "result", "filter_hit");
+        this.confirmed = meterRegistry.counter("ingestion.dedupe.checks", "result", "duplicate");
+    }
+
+    public Mode getMode() { return mode; }
+
+    public boolean isEnabled() { return mode != Mode.OFF; }
+
+    /**
+     * How many copies of each fingerprint the user's history already holds, outside {@code fileId}.
+     * Fingerprints the filter rules out are absent from the result (i.e. zero) and cost no query.
+     */
+    public Map<Long, Long> historyCounts(Integer userId, Integer fileId, Collection<Long> fingerprints) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (!isEnabled() || fingerprints.isEmpty()) return counts;
+
+        FingerprintBloomFilter filter = filterFor(userId);
+        Set<Long> candidates = new LinkedHashSet<>();
+        for (Long fingerprint : fingerprints) {
+            if (filter.mightContain(fingerprint)) {
+                candidates.add(fingerprint);
+                filterHits.increment();
+            } else {
+                filterMisses.increment();
+            }
+        }
+        if (candidates.isEmpty()) return counts;
+
+        for (Object[] row : transactionRepository.countByFingerprints(userId, fileId == null ? -1 : fileId, candidates)) {
+            long count = ((Number) row[1]).longValue();
+            counts.put(((Number) row[0]).longValue(), count);
+        }
+        return counts;
+    }
+
+    public void recordDuplicates(int duplicates) {
+        confirmed.increment(duplicates);
+    }
+
+    /**
+     * Adds freshly saved rows to the user's filter (if it is loaded) so later uploads see them;
+     * inside a transaction this waits for the commit.
+     */
+    public void recordInserted(Integer userId, Collection<Long> fingerprints) {
+        if (!isEnabled() || fingerprints.isEmpty()) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addToFilter(userId, fingerprints);
+                }
+            });
+        } else {
+            addToFilter(userId, fingerprints);
+        }
+    }
+
+    private void addToFilter(Integer userId, Collection<Long> fingerprints) {
+        FingerprintBloomFilter filter = filters.getIfPresent(userId);
+        if (filter == null) return;
+        fingerprints.forEach(filter::add);
+        if (filter.isSaturated()) filters.invalidate(userId); // rebuilt, larger, on next use
+    }
+
+    private FingerprintBloomFilter filterFor(Integer userId) {
+        return filters.get(userId, this::buildFilter);
+    }
+
+    private FingerprintBloomFilter buildFilter(Integer userId) {
+        LocalDate since = LocalDate.now().minusDays(historyDays);
+        List<Object[]> history = transactionRepository.findFingerprintSourcesSince(userId, since);
+
+        // Headroom for the rows this filter will see added before it is rebuilt
+        FingerprintBloomFilter filter = new FingerprintBloomFilter(Math.max(1024, history.size() * 2), falsePositiveRate);
+        List<Object[]> backfill = new ArrayList<>();
+        for (Object[] row : history) {
+            Long fingerprint = (Long) row[4];
+            if (row[5] == null) {
+                // Manual entries, including ones fingerprinted with their note before ofManual existed
+                long manual = TransactionFingerprint.ofManual(userId, (LocalDate) row[1], (BigDecimal) row[2]);
+                if (fingerprint == null || fingerprint != manual) {
+                    fingerprint = manual;
+                    backfill.add(new Object[]{fingerprint, row[0]});
+                }
+            } else if (fingerprint == null) {
+                // Statement rows stored before fingerprints existed never had a parsed date (only the upload day)
+                fingerprint = TransactionFingerprint.of(userId, null, (BigDecimal) row[2], (String) row[3]);
+                backfill.add(new Object[]{fingerprint, row[0]});
+            }
+            filter.add(fingerprint);
+        }
+
+        if (!backfill.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE transactions SET fingerprint = ? WHERE transaction_id = ?", backfill);
+            System.out.println("🧮 Backfilled fingerprints for " + backfill.size() + " transaction(s) of user " + userId);
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,204 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.team021.financial_nudger.service.pdf.PdfExtractionService.PageSink;
+
+/**
+ * Gzip-compressed page text of statements that have already been through PDFBox/OCR,
+ * keyed by the SHA-256 of the uploaded bytes plus the extractor's text format
+ * ({@link com.team021.financial_nudger.service.pdf.PdfExtractionService#textFormat()}). Re-ingesting an
+ * identical upload replays the pages from here instead of opening the PDF again.
+ * Pages are separated by a form feed; entries are written to a temp file and only
+ * become visible once the whole document was extracted and ingested without error.
+ * <p>
+ * The directory is bounded: after every new entry, entries not replayed for
+ * {@code ingestion.text-cache.max-age} are deleted, then the least recently used ones until the
+ * total is under {@code ingestion.text-cache.max-size}.
+ */
+@Component
+public class ExtractedTextCache {
+
+    private static final char PAGE_BREAK = '\f';
+
+    private static final String SUFFIX = ".txt.gz";
+
+    private final Path cacheDir;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final long maxBytes;
+
+    public ExtractedTextCache(
+            @Value("${ingestion.text-cache.dir:${java.io.tmpdir}/financial-nudger/extracted-text}") String cacheDir,
+            @Value("${ingestion.text-cache.enabled:true}") boolean enabled,
+            @Value("${ingestion.text-cache.max-age:30d}") Duration maxAge,
+            @Value("${ingestion.text-cache.max-size:512MB}") DataSize maxSize
+    ) {
+        this.cacheDir = Path.of(cacheDir);
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    public boolean contains(String key) {
+        return enabled && key != null && Files.isRegularFile(pathFor(key));
+    }
+
+    /**
+     * Streams the cached pages to {@code sink} in their original order.
+     */
+    public void replay(String key, PageSink sink) throws IOException, InterruptedException {
+        Path path = pathFor(key);
+        // Last-modified doubles as last-used for eviction
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            StringBuilder page = new StringBuilder();
+            int pageIndex = 0;
+            int c;
+            while ((c = reader.read()) != -1) {
+                if (c == PAGE_BREAK) {
+                    sink.accept(pageIndex++, page.toString());
+                    page.setLength(0);
+                } else {
+                    page.append((char) c);
+                }
+            }
+            if (page.length() > 0) sink.accept(pageIndex, page.toString());
+        }
+    }
+
+    /**
+     * Starts a new entry; returns null when caching is disabled or there is no key.
+     */
+    public Entry open(String key) {
+        if (!enabled || key == null) return null;
+        try {
+            Files.createDirectories(cacheDir);
+            Path temp = Files.createTempFile(cacheDir, key, ".tmp");
+            Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8));
+            return new Entry(this, pathFor(key), temp, writer);
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not open extracted-text cache entry: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Path pathFor(String key) {
+        return cacheDir.resolve(key + SUFFIX);
+    }
+
+    /**
+     * Deletes expired entries, then the least recently used ones until the directory fits its size budget.
+     */
+    void evict() {
+        record Cached(Path path, long lastUsed, long size) {}
+        List<Cached> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                if (!path.getFileName().toString().endsWith(SUFFIX)) continue;
+                try {
+                    entries.add(new Cached(path, Files.getLastModifiedTime(path).toMillis(), Files.size(path)));
+                } catch (IOException e) {
+                    // removed concurrently
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not list extracted-text cache: " + e.getMessage());
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(Cached::lastUsed));
+        long expiredBefore = System.currentTimeMillis() - maxAge.toMillis();
+        long total = entries.stream().mapToLong(Cached::size).sum();
+        int evicted = 0;
+        for (Cached entry : entries) {
+            if (entry.lastUsed() >= expiredBefore && total <= maxBytes) break;
+            try {
+                if (Files.deleteIfExists(entry.path())) evicted++;
+                total -= entry.size();
+            } catch (IOException e) {
+                System.out.println("⚠️ Could not evict " + entry.path() + ": " + e.getMessage());
+            }
+        }
+        if (evicted > 0) System.out.println("🧹 Evicted " + evicted + " extracted-text cache entr" + (evicted == 1 ? "y" : "ies"));
+    }
+
+    /**
+     * An entry being written. Call {@link #commit()} once every page was appended and the run using them succeeded, otherwise {@link #abort()}.
+     */
+    public static final class Entry {
+        private final ExtractedTextCache cache;
+        private final Path target;
+        private final Path temp;
+        private final Writer writer;
+        private boolean failed;
+
+        private Entry(ExtractedTextCache cache, Path target, Path temp, Writer writer) {
+            this.cache = cache;
+            this.target = target;
+            this.temp = temp;
+            this.writer = writer;
+        }
+
+        public void append(String pageText) {
+            if (failed) return;
+            try {
+                writer.write(pageText.replace(PAGE_BREAK, '\n'));
+                writer.write(PAGE_BREAK);
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+
+        public void commit() {
+            try {
+                writer.close();
+                if (failed) {
+                    Files.deleteIfExists(temp);
+                    return;
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                cache.evict();
+            } catch (IOException e) {
+                System.out.println("⚠️ Could not store extracted text: " + e.getMessage());
+                abort();
+            }
+        }
+
+        public void abort() {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // already failing; the temp file is removed below
+            }
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                System.out.println("⚠️ Could not delete " + temp + ": " + e.getMessage());
+            }
+        }
+    }
+}
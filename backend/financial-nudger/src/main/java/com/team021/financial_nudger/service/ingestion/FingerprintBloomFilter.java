@@ -0,0 +1,61 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over {@link TransactionFingerprint} values. The fingerprint is already a
+ * well-mixed 64-bit hash, so its two halves drive the usual double-hashing scheme.
+ * Safe for concurrent adds and lookups.
+ */
+final class FingerprintBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private final AtomicInteger added = new AtomicInteger();
+
+    FingerprintBloomFilter(int expectedEntries, double falsePositiveRate) {
+        int n = Math.max(1, expectedEntries);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, (m + 63) / 64 * 64);
+        this.bits = new AtomicLongArray((int) (m / 64));
+        this.bitCount = m;
+        this.hashCount = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        this.capacity = n;
+    }
+
+    void add(long fingerprint) {
+        int h1 = (int) fingerprint;
+        int h2 = (int) (fingerprint >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) break;
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+        added.incrementAndGet();
+    }
+
+    boolean mightContain(long fingerprint) {
+        int h1 = (int) fingerprint;
+        int h2 = (int) (fingerprint >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * True once more entries were added than the filter was sized for (false positives climb from here).
+     */
+    boolean isSaturated() {
+        return added.get() > capacity;
+    }
+}
@@ -0,0 +1,125 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.team021.financial_nudger.domain.IngestedFile;
+import com.team021.financial_nudger.repository.IngestedFileRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Background worker pool for statements uploaded in asynchronous mode.
+ * The queue only carries file ids; the PDFs themselves wait on disk in {@link StatementFileStore}.
+ * Jobs left PENDING or PROCESSING by a restart are requeued once the application is ready.
+ */
+@Component
+public class IngestionJobQueue {
+
+    private final IngestedFileRepository ingestedFileRepository;
+    private final StatementProcessor statementProcessor;
+    private final StatementFileStore fileStore;
+    private final ExecutorService workers;
+    private final Map<Integer, IngestionProgress> inFlight = new ConcurrentHashMap<>();
+
+    public IngestionJobQueue(
+            IngestedFileRepository ingestedFileRepository,
+            StatementProcessor statementProcessor,
+            StatementFileStore fileStore,
+            @Value("${ingestion.workers:2}") int workerCount
+    ) {
+        this.ingestedFileRepository = ingestedFileRepository;
+        this.statementProcessor = statementProcessor;
+        this.fileStore = fileStore;
+
+        int size = Math.max(1, workerCount);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                size, size,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "ingestion-worker-" + threadCounter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public void enqueue(Integer fileId) {
+        workers.execute(() -> run(fileId));
+    }
+
+    /**
+     * Live counters for a job that is currently being processed, or null once it has finished.
+     */
+    public IngestionProgress progressFor(Integer fileId) {
+        return inFlight.get(fileId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        List<IngestedFile> interrupted = ingestedFileRepository.findPendingOrProcessingFiles();
+        for (IngestedFile file : interrupted) {
+            if (file.getFileType() != IngestedFile.FileType.STATEMENT) continue;
+
+            if (fileStore.exists(file.getFileId())) {
+                file.setUploadStatus(IngestedFile.UploadStatus.PENDING);
+                ingestedFileRepository.save(file);
+                enqueue(file.getFileId());
+                System.out.println("🔁 Requeued interrupted statement " + file.getFileId());
+            } else {
+                markFailed(file, "Ingestion interrupted by restart and the uploaded file is no longer available");
+            }
+        }
+    }
+
+    private void run(Integer fileId) {
+        IngestedFile file = ingestedFileRepository.findById(fileId).orElse(null);
+        if (file == null) {
+            fileStore.delete(fileId);
+            return;
+        }
+
+        IngestionProgress progress = new IngestionProgress();
+        inFlight.put(fileId, progress);
+        try {
+            file.setUploadStatus(IngestedFile.UploadStatus.PROCESSING);
+            file = ingestedFileRepository.save(file);
+            statementProcessor.process(file, fileStore.pathFor(fileId), progress);
+        } catch (Exception e) {
+            if (workers.isShutdown()) return; // stays PROCESSING and is resumed on the next start
+            System.out.println("❌ Statement ingestion failed for file " + fileId + ": " + e.getMessage());
+            ingestedFileRepository.findById(fileId).ifPresent(f -> markFailed(f, e.getMessage()));
+        } finally {
+            inFlight.remove(fileId);
+            if (!workers.isShutdown()) {
+                fileStore.delete(fileId);
+            }
+        }
+    }
+
+    private void markFailed(IngestedFile file, String message) {
+        file.setUploadStatus(IngestedFile.UploadStatus.FAILED);
+        file.setErrorMessage(message);
+        file.setProcessedAt(Instant.now());
+        ingestedFileRepository.save(file);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Interrupted jobs stay PROCESSING and are picked up again on the next start
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,50 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live counters for a statement that is being ingested.
+ * Updated by the processing thread and read concurrently by the status endpoint.
+ */
+public class IngestionProgress {
+
+    private final AtomicInteger totalLines = new AtomicInteger();
+    private final AtomicInteger processedLines = new AtomicInteger();
+    private final AtomicInteger successfulTransactions = new AtomicInteger();
+    private final AtomicInteger failedTransactions = new AtomicInteger();
+    private final AtomicInteger skippedLines = new AtomicInteger();
+    private final AtomicInteger duplicateTransactions = new AtomicInteger();
+
+    public void setTotalLines(int total) { totalLines.set(total); }
+    public void addTotalLines(int lines) { totalLines.addAndGet(lines); }
+
+    public void recordSuccess() {
+        successfulTransactions.incrementAndGet();
+        processedLines.incrementAndGet();
+    }
+
+    public void recordFailure() {
+        failedTransactions.incrementAndGet();
+        processedLines.incrementAndGet();
+    }
+
+    public void recordSkipped(int lines) {
+        skippedLines.addAndGet(lines);
+        processedLines.addAndGet(lines);
+    }
+
+    /**
+     * Counts suspected duplicates; those that were not saved also count as processed.
+     */
+    public void recordDuplicates(int found, int notSaved) {
+        duplicateTransactions.addAndGet(found);
+        processedLines.addAndGet(notSaved);
+    }
+
+    public int getTotalLines() { return totalLines.get(); }
+    public int getProcessedLines() { return processedLines.get(); }
+    public int getSuccessfulTransactions() { return successfulTransactions.get(); }
+    public int getFailedTransactions() { return failedTransactions.get(); }
+    public int getSkippedLines() { return skippedLines.get(); }
+    public int getDuplicateTransactions() { return duplicateTransactions.get(); }
+}
@@ -0,0 +1,249 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.util.List;
+
+import com.team021.financial_nudger.domain.Transaction.TransactionType;
+
+/**
+ * Single pass over a statement line that finds the transaction amount, its direction and the
+ * running balance, in minor units (paise). Understands:
+ * <ul>
+ *   <li>any digit grouping with two decimals: {@code 1,23,456.78}, {@code 123,456.78}, {@code 123456.78};</li>
+ *   <li>Dr/Cr/Debit/Credit markers after the amount, with or without parentheses or a space
+ *       ({@code 500.00 (Dr)}, {@code 500.00Cr}, {@code 500 DR}), and a leading minus for debits;</li>
+ *   <li>separate Debit / Credit / Balance columns, where the unused column is blank, {@code 0.00} or {@code -};</li>
+ *   <li>a trailing running balance, which is never taken for the transaction amount.</li>
+ * </ul>
+ * Dates are skipped with {@link StatementDateScanner#dateEnd}. When the columns alone do not
+ * say which way money moved, the change against the previous line's balance does. Nothing is
+ * allocated: results go into a caller-owned {@link Amounts}, which is reused from line to line.
+ */
+public final class StatementAmountScanner {
+
+    /** Most amounts kept per line; a statement row has at most debit, credit and balance. */
+    private static final int MAX_AMOUNTS = 8;
+    /** Longer digit runs are account or reference numbers (and would overflow a long in paise). */
+    private static final int MAX_DIGITS = 16;
+
+    private StatementAmountScanner() {}
+
+    /**
+     * What {@link #scan} found on one line; {@code type} is null when the direction is unknown.
+     */
+    public static final class Amounts {
+        private final long[] values = new long[MAX_AMOUNTS];
+        private final byte[] markers = new byte[MAX_AMOUNTS];
+        private int count;
+
+        private boolean found;
+        private long amountMinor;
+        private TransactionType type;
+        private boolean hasBalance;
+        private long balanceMinor;
+
+        public boolean found() { return found; }
+        public long amountMinor() { return amountMinor; }
+        public TransactionType type() { return type; }
+        public boolean hasBalance() { return hasBalance; }
+        /** Negative for an overdrawn (Dr) balance. */
+        public long balanceMinor() { return balanceMinor; }
+
+        private void reset() {
+            count = 0;
+            found = false;
+            amountMinor = 0;
+            type = null;
+            hasBalance = false;
+            balanceMinor = 0;
+        }
+    }
+
+    private static final byte NONE = 0;
+    private static final byte DEBIT = 1;
+    private static final byte CREDIT = 2;
+    /** A {@code -} standing in for an empty column. */
+    private static final byte BLANK = 3;
+
+    /**
+     * Scans {@code line} into {@code out}; returns whether a transaction amount was found.
+     * {@code previousBalance} (minor units) is the running balance of the line before, used only
+     * when neither markers nor columns give the direction; pass {@code null} when unknown.
+     */
+    public static boolean scan(CharSequence line, Long previousBalance, Amounts out) {
+        out.reset();
+        collect(line, out);
+        int count = out.count;
+        if (count == 0) return false;
+
+        int last = count - 1;
+        // A Dr/Cr on the last of several amounts belongs to the balance ("10,500.00 Cr")
+        boolean balanceMarked = last > 0 && isDirection(out.markers[last]);
+        if (balanceMarked || out.markers[last] != BLANK) {
+            out.hasBalance = last > 0;
+            out.balanceMinor = out.markers[last] == DEBIT ? -out.values[last] : out.values[last];
+        }
+
+        // Otherwise a marked amount is the transaction
+        int end = balanceMarked ? last : count;
+        for (int k = 0; k < end; k++) {
+            if (isDirection(out.markers[k])) {
+                out.found = true;
+                out.amountMinor = out.values[k];
+                out.type = out.markers[k] == DEBIT ? TransactionType.DEBIT : TransactionType.CREDIT;
+                out.hasBalance = out.hasBalance && k < last;
+                return true;
+            }
+        }
+
+        if (count == 1) {
+            if (out.markers[0] == BLANK) return false;
+            out.found = true;
+            out.amountMinor = out.values[0];
+            return true;
+        }
+
+        // Columns: [debit] [credit] balance, the unused one blank, zero or absent
+        if (count >= 3) {
+            int debit = last - 2;
+            int credit = last - 1;
+            boolean debitUsed = out.markers[debit] != BLANK && out.values[debit] != 0;
+            boolean creditUsed = out.markers[credit] != BLANK && out.values[credit] != 0;
+            if (debitUsed != creditUsed) {
+                out.found = true;
+                out.amountMinor = debitUsed ? out.values[debit] : out.values[credit];
+                out.type = debitUsed ? TransactionType.DEBIT : TransactionType.CREDIT;
+                return true;
+            }
+        }
+        int amount = last - 1;
+        while (amount >= 0 && (out.markers[amount] == BLANK || out.values[amount] == 0)) amount--;
+        if (amount < 0) return false;
+        out.found = true;
+        out.amountMinor = out.values[amount];
+        if (out.hasBalance && previousBalance != null) {
+            long delta = out.balanceMinor - previousBalance;
+            if (delta == -out.amountMinor) out.type = TransactionType.DEBIT;
+            else if (delta == out.amountMinor) out.type = TransactionType.CREDIT;
+        }
+        return true;
+    }
+
+    /**
+     * Running balance of the last line in {@code lines} that shows one, or {@code before} when none does:
+     * the balance the next chunk of the same statement starts from.
+     */
+    public static Long lastBalance(List<String> lines, Long before, Amounts out) {
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            scan(lines.get(i), null, out);
+            if (out.hasBalance) return out.balanceMinor;
+        }
+        return before;
+    }
+
+    private static boolean isDirection(byte marker) {
+        return marker == DEBIT || marker == CREDIT;
+    }
+
+    private static void collect(CharSequence s, Amounts out) {
+        int n = s.length();
+        int i = 0;
+        while (i < n && out.count < MAX_AMOUNTS) {
+            char c = s.charAt(i);
+            if (isDigit(c)) {
+                int dateEnd = StatementDateScanner.dateEnd(s, i);
+                if (dateEnd > 0) {
+                    i = dateEnd;
+                    continue;
+                }
+                i = number(s, i, out);
+                continue;
+            }
+            // A lone "-" between spaces is an empty debit or credit column
+            if (c == '-' && (i == 0 || s.charAt(i - 1) == ' ') && (i + 1 == n || s.charAt(i + 1) == ' ')
+                    && out.count > 0) {
+                out.values[out.count] = 0;
+                out.markers[out.count++] = BLANK;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Reads the number starting at {@code from} and records it if it is an amount; returns where scanning resumes.
+     */
+    private static int number(CharSequence s, int from, Amounts out) {
+        int n = s.length();
+        if (from > 0) {
+            char prev = s.charAt(from - 1);
+            if (isLetter(prev) || prev == '.' || prev == '/' || prev == ':' || prev == '#') return skipToken(s, from);
+        }
+        boolean negative = from > 0 && s.charAt(from - 1) == '-'
+                && (from == 1 || s.charAt(from - 2) == ' ' || s.charAt(from - 2) == '(');
+        if (from > 0 && s.charAt(from - 1) == '-' && !negative) return skipToken(s, from);
+
+        long value = 0;
+        int digits = 0;
+        int i = from;
+        while (i < n) {
+            char c = s.charAt(i);
+            if (isDigit(c)) {
+                value = value * 10 + (c - '0');
+                digits++;
+                i++;
+            } else if (c == ',' && i + 1 < n && isDigit(s.charAt(i + 1)) && digits > 0) {
+                i++;
+            } else {
+                break;
+            }
+        }
+        if (digits > MAX_DIGITS) return skipToken(s, i);
+
+        boolean decimals = i + 2 < n && s.charAt(i) == '.' && isDigit(s.charAt(i + 1)) && isDigit(s.charAt(i + 2));
+        if (decimals) {
+            value = value * 100 + (s.charAt(i + 1) - '0') * 10 + (s.charAt(i + 2) - '0');
+            i += 3;
+        } else {
+            value *= 100;
+        }
+        if (i < n && (isDigit(s.charAt(i)) || s.charAt(i) == '.' || (isLetter(s.charAt(i)) && markerType(s, i) == NONE))) {
+            return skipToken(s, i);
+        }
+
+        byte marker = markerType(s, skipSpaces(s, i));
+        // Integers are reference numbers unless a Dr/Cr marker says otherwise
+        if (!decimals && marker == NONE) return i;
+        if (negative && marker == NONE) marker = DEBIT;
+
+        out.values[out.count] = value;
+        out.markers[out.count++] = marker;
+        int markerLength = marker == NONE ? 0 : StatementLineFilter.markerAt(s, skipSpaces(s, i));
+        return skipSpaces(s, i) + markerLength;
+    }
+
+    private static byte markerType(CharSequence s, int from) {
+        if (StatementLineFilter.markerAt(s, from) == 0) return NONE;
+        int i = from < s.length() && s.charAt(from) == '(' ? from + 1 : from;
+        char c = s.charAt(i);
+        return c == 'd' || c == 'D' ? DEBIT : CREDIT;
+    }
+
+    private static int skipToken(CharSequence s, int from) {
+        int i = from;
+        while (i < s.length() && s.charAt(i) != ' ') i++;
+        return i;
+    }
+
+    private static int skipSpaces(CharSequence s, int from) {
+        int i = from;
+        while (i < s.length() && s.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,240 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.time.LocalDate;
+import java.time.Year;
+
+/**
+ * Finds the posting date on a statement line: the first token that reads as a date in one of
+ * {@link Format}. Each format is checked by hand over the characters, so a line that holds no
+ * date costs one pass and throws nothing. This is the one date grammar of statement ingestion:
+ * {@link StatementLineFilter} and {@link StatementAmountScanner} skip dates through {@link #dateEnd}.
+ * <p>
+ * One instance serves one statement file. The first format that matches without ambiguity is
+ * remembered and tried first on every later row; it also settles rows such as {@code 04/05/2024}
+ * that read both day-first and month-first (day-first until the file says otherwise).
+ * Thread-safe: the remembered format is the only state.
+ */
+public final class StatementDateScanner {
+
+    public enum Format {
+        /** {@code dd/MM/yyyy}, {@code dd-MM-yy}, {@code dd.MM.yyyy} */
+        DAY_MONTH_YEAR,
+        /** {@code MM/dd/yyyy} */
+        MONTH_DAY_YEAR,
+        /** {@code yyyy-MM-dd}, {@code yyyy/MM/dd} */
+        YEAR_MONTH_DAY,
+        /** {@code dd MMM yyyy}, {@code dd-MMM-yy}, {@code dd Month, yyyy} */
+        DAY_MONTH_NAME_YEAR
+    }
+
+    private static final Format[] FORMATS = Format.values();
+
+    private static final String[] MONTHS = {
+            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"
+    };
+
+    private static final int MIN_YEAR = 1970;
+    private static final int MAX_YEAR = 2099;
+
+    private volatile Format detected;
+
+    public Format detectedFormat() {
+        return detected;
+    }
+
+    /**
+     * Seeds the format to try first, e.g. from a known bank layout, before any row has been read.
+     */
+    public void prefer(Format format) {
+        detected = format;
+    }
+
+    /**
+     * Whether a date comes before any letter on the line, as on the first line of a statement row
+     * (possibly after a serial number); narration continuation lines fail this.
+     */
+    public static boolean startsWithDate(CharSequence line) {
+        int n = line.length();
+        for (int i = 0; i < n; i++) {
+            char c = line.charAt(i);
+            if (isLetter(c)) return false;
+            if (!isDigit(c) || (i > 0 && !startsToken(line.charAt(i - 1)))) continue;
+            for (Format format : FORMATS) {
+                if (parse(format, line, i) >= 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * End of the date token starting at {@code from}, or -1 if none does. Besides the full dates of
+     * {@link Format} this accepts a day and month name without a year ({@code 01 Apr}), which some
+     * statements print when the year is only in the header; such a token is skipped but has no date.
+     */
+    public static int dateEnd(CharSequence s, int from) {
+        if (from >= s.length() || !isDigit(s.charAt(from)) || (from > 0 && !startsToken(s.charAt(from - 1)))) return -1;
+        for (Format format : FORMATS) {
+            long match = match(format, s, from);
+            if (match >= 0) return (int) (match >>> 32);
+        }
+        return -1;
+    }
+
+    /**
+     * Posting date of {@code line}, or null when it has none.
+     */
+    public LocalDate dateOf(CharSequence line) {
+        Format preferred = detected;
+        int n = line.length();
+        for (int i = 0; i < n; i++) {
+            if (!isDigit(line.charAt(i))) continue;
+            if (i > 0 && !startsToken(line.charAt(i - 1))) {
+                while (i + 1 < n && isDigit(line.charAt(i + 1))) i++;
+                continue;
+            }
+
+            int packed = preferred == null ? -1 : parse(preferred, line, i);
+            if (packed < 0) {
+                for (Format format : FORMATS) {
+                    if (format == preferred) continue;
+                    packed = parse(format, line, i);
+                    if (packed < 0) continue;
+                    if (preferred == null && !ambiguous(format, packed)) detected = format;
+                    break;
+                }
+            }
+            if (packed >= 0) return LocalDate.of(packed / 10000, packed / 100 % 100, packed % 100);
+            while (i + 1 < n && isDigit(line.charAt(i + 1))) i++;
+        }
+        return null;
+    }
+
+    /**
+     * The date at {@code from} in {@code format} packed as yyyyMMdd, or -1.
+     */
+    static int parse(Format format, CharSequence s, int from) {
+        long match = match(format, s, from);
+        return match < 0 ? -1 : (int) match;
+    }
+
+    /**
+     * The token at {@code from} in {@code format}: its end index in the high half and the date packed
+     * as yyyyMMdd in the low half (-1 there for a day and month without a year), or -1 when it is no date.
+     */
+    private static long match(Format format, CharSequence s, int from) {
+        int n = s.length();
+        int first = digitsEnd(s, from);
+        int firstLen = first - from;
+        if (first >= n) return -1;
+        char sep = s.charAt(first);
+
+        if (format == Format.DAY_MONTH_NAME_YEAR) {
+            if (firstLen > 2 || (sep != ' ' && sep != '-')) return -1;
+            int monthAt = first + 1;
+            int month = monthAt(s, monthAt);
+            if (month == 0) return -1;
+            int i = monthAt + 3;
+            while (i < n && isLetter(s.charAt(i))) i++;
+            int day = number(s, from, first);
+            int yearAt = i + 1;
+            if (yearAt < n && s.charAt(yearAt) == ' ') yearAt++;
+            int yearEnd = digitsEnd(s, yearAt);
+            if (i >= n || (s.charAt(i) != sep && s.charAt(i) != ',') || yearEnd == yearAt) {
+                return endsToken(s, i) && day >= 1 && day <= 31 ? yearless(i) : -1;
+            }
+            if (!endsToken(s, yearEnd)) return -1;
+            return token(yearEnd, pack(year(s, yearAt, yearEnd), month, day));
+        }
+
+        if (sep != '/' && sep != '-' && sep != '.') return -1;
+        int second = digitsEnd(s, first + 1);
+        int secondLen = second - first - 1;
+        if (secondLen < 1 || secondLen > 2 || second >= n || s.charAt(second) != sep) return -1;
+        int third = digitsEnd(s, second + 1);
+        int thirdLen = third - second - 1;
+        if (!endsToken(s, third)) return -1;
+
+        int a = number(s, from, first);
+        int b = number(s, first + 1, second);
+        if (format == Format.YEAR_MONTH_DAY) {
+            if (firstLen != 4 || thirdLen < 1 || thirdLen > 2) return -1;
+            return token(third, pack(a, b, number(s, second + 1, third)));
+        }
+        if (firstLen > 2 || (thirdLen != 2 && thirdLen != 4)) return -1;
+        int year = year(s, second + 1, third);
+        return token(third, format == Format.DAY_MONTH_YEAR ? pack(year, b, a) : pack(year, a, b));
+    }
+
+    /** An impossible date ({@code packed} -1) is no token at all. */
+    private static long token(int end, int packed) {
+        return packed < 0 ? -1 : ((long) end << 32) | packed;
+    }
+
+    private static long yearless(int end) {
+        return ((long) end << 32) | 0xFFFFFFFFL;
+    }
+
+    /** A numeric date whose day could also be a month says nothing about the file's order. */
+    private static boolean ambiguous(Format format, int packed) {
+        if (format != Format.DAY_MONTH_YEAR && format != Format.MONTH_DAY_YEAR) return false;
+        return packed % 100 <= 12;
+    }
+
+    private static int pack(int year, int month, int day) {
+        if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12 || day < 1) return -1;
+        int length = switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+        return day > length ? -1 : year * 10000 + month * 100 + day;
+    }
+
+    /** Two-digit years are this century's. */
+    private static int year(CharSequence s, int from, int to) {
+        int len = to - from;
+        if (len == 2) return 2000 + number(s, from, to);
+        return len == 4 ? number(s, from, to) : -1;
+    }
+
+    private static int monthAt(CharSequence s, int from) {
+        if (from + 3 > s.length()) return 0;
+        for (int m = 0; m < MONTHS.length; m++) {
+            String name = MONTHS[m];
+            if (Character.toLowerCase(s.charAt(from)) == name.charAt(0)
+                    && Character.toLowerCase(s.charAt(from + 1)) == name.charAt(1)
+                    && Character.toLowerCase(s.charAt(from + 2)) == name.charAt(2)) {
+                return m + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int number(CharSequence s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) value = value * 10 + (s.charAt(i) - '0');
+        return value;
+    }
+
+    private static int digitsEnd(CharSequence s, int from) {
+        int i = from;
+        while (i < s.length() && i - from < 5 && isDigit(s.charAt(i))) i++;
+        return i;
+    }
+
+    private static boolean startsToken(char prev) {
+        return !isDigit(prev) && !isLetter(prev) && prev != '.' && prev != ',';
+    }
+
+    private static boolean endsToken(CharSequence s, int end) {
+        return end >= s.length() || (!isDigit(s.charAt(end)) && !isLetter(s.charAt(end)));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
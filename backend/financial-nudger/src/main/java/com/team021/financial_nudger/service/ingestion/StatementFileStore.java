@@ -0,0 +1,71 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.team021.financial_nudger.exception.FileProcessingException;
+
+/**
+ * Keeps uploaded statement PDFs on local disk until they have been ingested,
+ * so queued jobs survive a restart and extraction never needs the upload in heap.
+ * The SHA-256 of the upload is computed while it is being copied, so identical
+ * re-uploads can be recognised without reading the file twice.
+ */
+@Component
+public class StatementFileStore {
+
+    private final Path storageDir;
+
+    public StatementFileStore(
+            @Value("${ingestion.storage-dir:${java.io.tmpdir}/financial-nudger/statements}") String storageDir
+    ) {
+        this.storageDir = Path.of(storageDir);
+    }
+
+    public record StoredStatement(Path path, String contentHash) {}
+
+    public StoredStatement store(Integer fileId, MultipartFile upload) {
+        Path target = pathFor(fileId);
+        try {
+            Files.createDirectories(storageDir);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(upload.getInputStream(), digest)) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new StoredStatement(target, HexFormat.of().formatHex(digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            delete(fileId);
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (IOException e) {
+            delete(fileId);
+            throw new FileProcessingException("Could not store uploaded statement", e);
+        }
+    }
+
+    public Path pathFor(Integer fileId) {
+        return storageDir.resolve(fileId + ".pdf");
+    }
+
+    public boolean exists(Integer fileId) {
+        return Files.isRegularFile(pathFor(fileId));
+    }
+
+    public void delete(Integer fileId) {
+        try {
+            Files.deleteIfExists(pathFor(fileId));
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not delete stored statement " + fileId + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.team021.financial_nudger.service.ingestion;
+
+/**
+ * Cheap check run on every extracted line before it is classified, so page headers, account
+ * summaries, balance rows, disclaimers and page numbers never reach the ML service.
+ * <p>
+ * A line is kept when it has an amount written the way the statement parser reads it
+ * ({@code 1,250.00 (Dr)}), or when it has a date, an amount and either a Dr/Cr marker or a
+ * second amount (separate debit/credit/balance columns). Opening/closing balance and
+ * brought-forward rows are always dropped. Dates are found with {@link StatementDateScanner#dateEnd}.
+ * Works directly on the characters; nothing is allocated per line.
+ */
+public final class StatementLineFilter {
+
+    private static final String[] SUMMARY_PHRASES = {
+            "opening balance", "closing balance", "balance b/f", "balance c/f",
+            "brought forward", "carried forward", "statement summary"
+    };
+
+    private StatementLineFilter() {}
+
+    public static boolean isTransactionLine(CharSequence line) {
+        int n = line.length();
+        if (n < 6) return false;
+        for (String phrase : SUMMARY_PHRASES) {
+            if (containsIgnoreCase(line, phrase)) return false;
+        }
+
+        boolean hasDate = false;
+        boolean hasMarker = false;
+        boolean hasMarkedAmount = false;
+        int amounts = 0;
+
+        int i = 0;
+        while (i < n) {
+            char c = line.charAt(i);
+            if (isDigit(c)) {
+                int dateEnd = StatementDateScanner.dateEnd(line, i);
+                if (dateEnd > 0) {
+                    hasDate = true;
+                    i = dateEnd;
+                    continue;
+                }
+                int numberEnd = amountEnd(line, i);
+                if (numberEnd > 0) {
+                    amounts++;
+                    if (markerAt(line, skipSpaces(line, numberEnd)) > 0) hasMarkedAmount = true;
+                    i = numberEnd;
+                    continue;
+                }
+                while (i < n && (isDigit(line.charAt(i)) || line.charAt(i) == ',' || line.charAt(i) == '.')) i++;
+                continue;
+            }
+            if ((isLetter(c) || c == '(') && (i == 0 || !isLetter(line.charAt(i - 1))) && markerAt(line, i) > 0) {
+                hasMarker = true;
+            }
+            i++;
+        }
+
+        if (hasMarkedAmount) return true;
+        return hasDate && amounts > 0 && (hasMarker || amounts >= 2);
+    }
+
+    /**
+     * End of an amount token starting at {@code from}: digits with optional thousands separators
+     * followed by exactly two decimals (e.g. {@code 1,25,000.50}), or a bare integer immediately
+     * followed by a Dr/Cr marker. Returns -1 if there is none.
+     */
+    private static int amountEnd(CharSequence s, int from) {
+        int n = s.length();
+        if (from > 0) {
+            char prev = s.charAt(from - 1);
+            if (isDigit(prev) || isLetter(prev) || prev == '.' || prev == '/' || prev == '-' || prev == ':') return -1;
+        }
+        int i = from;
+        while (i < n && (isDigit(s.charAt(i)) || (s.charAt(i) == ',' && i + 1 < n && isDigit(s.charAt(i + 1))))) i++;
+        if (i + 2 < n && s.charAt(i) == '.' && isDigit(s.charAt(i + 1)) && isDigit(s.charAt(i + 2))) {
+            int end = i + 3;
+            // "799.00Dr": a marker may follow the decimals without a space
+            if (end < n && isLetter(s.charAt(end)) && markerAt(s, end) > 0) return end;
+            return end < n && (isDigit(s.charAt(end)) || isLetter(s.charAt(end)) || s.charAt(end) == '.') ? -1 : end;
+        }
+        if (i < n && (isLetter(s.charAt(i)) || s.charAt(i) == '.')) return -1;
+        return markerAt(s, skipSpaces(s, i)) > 0 ? i : -1;
+    }
+
+    /**
+     * Length of a Dr/Cr/Debit/Credit marker at {@code from} (optionally in parentheses), or 0.
+     */
+    static int markerAt(CharSequence s, int from) {
+        int n = s.length();
+        int i = from;
+        if (i < n && s.charAt(i) == '(') i++;
+        int word;
+        if (regionMatchesIgnoreCase(s, i, "debit") || regionMatchesIgnoreCase(s, i, "credit")) {
+            word = s.charAt(i) == 'd' || s.charAt(i) == 'D' ? 5 : 6;
+        } else if (regionMatchesIgnoreCase(s, i, "dr") || regionMatchesIgnoreCase(s, i, "cr")) {
+            word = 2;
+        } else {
+            return 0;
+        }
+        int end = i + word;
+        if (end < n && s.charAt(end) == '.') end++;
+        if (end < n && isLetter(s.charAt(end))) return 0;
+        if (end < n && s.charAt(end) == ')') end++;
+        return end - from;
+    }
+
+    private static int skipSpaces(CharSequence s, int from) {
+        int i = from;
+        while (i < s.length() && s.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static boolean containsIgnoreCase(CharSequence s, String needle) {
+        int last = s.length() - needle.length();
+        for (int i = 0; i <= last; i++) {
+            if (regionMatchesIgnoreCase(s, i, needle)) return true;
+        }
+        return false;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int from, String lowerNeedle) {
+        if (from < 0 || from + lowerNeedle.length() > s.length()) return false;
+        for (int k = 0; k < lowerNeedle.length(); k++) {
+            if (Character.toLowerCase(s.charAt(from + k)) != lowerNeedle.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
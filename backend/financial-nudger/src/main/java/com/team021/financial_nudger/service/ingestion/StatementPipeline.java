@@ -0,0 +1,418 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.team021.financial_nudger.exception.FileProcessingException;
+import com.team021.financial_nudger.repository.IngestedFileRepository;
+import com.team021.financial_nudger.service.StatementIngestionSession;
+import com.team021.financial_nudger.service.TransactionService;
+import com.team021.financial_nudger.service.TransactionService.ClassifiedLine;
+import com.team021.financial_nudger.service.pdf.PdfExtractionService;
+import com.team021.financial_nudger.service.pdf.StatementParser;
+import com.team021.financial_nudger.service.pdf.StatementParserRegistry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs one statement through four stages connected by bounded queues:
+ * <pre>
+ *   extract (caller thread) → pages → assemble (1) → batches → classify (N) → classified → persist (M)
+ * </pre>
+ * Early pages are classified and saved while later pages are still being extracted, and a slow
+ * stage (usually the ML service) blocks the ones upstream of it instead of letting work pile up.
+ * Each persisted batch commits on its own. Pages become rows through the file's {@link StatementParser},
+ * detected from the first page unless the session already carries one, and saved on the file right away
+ * so that a resumed run does not detect it again.
+ * <p>
+ * Metrics: {@code ingestion.pipeline.items{stage}}, {@code ingestion.pipeline.stage.busy{stage}}
+ * (time spent working, not waiting) and {@code ingestion.pipeline.queue.depth{queue}}.
+ */
+@Component
+public class StatementPipeline {
+
+    // End-of-stream markers, compared by identity
+    private static final Page END_OF_PAGES = new Page(-1, "");
+    private static final Batch END_OF_BATCHES = new Batch(List.of(), null);
+    private static final List<ClassifiedLine> END_OF_CLASSIFIED = new ArrayList<>(0);
+    private static final long ABORT_CHECK_MILLIS = 100;
+
+    private final PdfExtractionService pdfExtractionService;
+    private final TransactionService transactionService;
+    private final ExtractedTextCache textCache;
+    private final StatementParserRegistry parserRegistry;
+    private final IngestedFileRepository ingestedFileRepository;
+    private final int batchLines;
+    private final boolean lineFilterEnabled;
+    private final int queueCapacity;
+    private final int classifyWorkers;
+    private final int persistWorkers;
+    private final ExecutorService stageThreads;
+
+    private final Map<String, Counter> stageItems = new ConcurrentHashMap<>();
+    private final Map<String, Timer> stageBusy = new ConcurrentHashMap<>();
+    private final Map<String, Set<BlockingQueue<?>>> liveQueues = new ConcurrentHashMap<>();
+
+    public StatementPipeline(
+            PdfExtractionService pdfExtractionService,
+            TransactionService transactionService,
+            ExtractedTextCache textCache,
+            StatementParserRegistry parserRegistry,
+            IngestedFileRepository ingestedFileRepository,
+            MeterRegistry meterRegistry,
+            @Value("${ingestion.chunk-lines:200}") int batchLines,
+            @Value("${ingestion.line-filter.enabled:true}") boolean lineFilterEnabled,
+            @Value("${ingestion.pipeline.queue-capacity:4}") int queueCapacity,
+            @Value("${ingestion.pipeline.classify-workers:2}") int classifyWorkers,
+            @Value("${ingestion.pipeline.persist-workers:1}") int persistWorkers
+    ) {
+        this.pdfExtractionService = pdfExtractionService;
+        this.transactionService = transactionService;
+        this.textCache = textCache;
+        this.parserRegistry = parserRegistry;
+        this.ingestedFileRepository = ingestedFileRepository;
+        this.batchLines = Math.max(1, batchLines);
+        this.lineFilterEnabled = lineFilterEnabled;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.classifyWorkers = Math.max(1, classifyWorkers);
+        this.persistWorkers = Math.max(1, persistWorkers);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.stageThreads = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "ingestion-stage-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (String stage : List.of("extract", "assemble", "classify", "persist")) {
+            stageItems.put(stage, meterRegistry.counter("ingestion.pipeline.items", "stage", stage));
+            stageBusy.put(stage, meterRegistry.timer("ingestion.pipeline.stage.busy", "stage", stage));
+        }
+        for (String queue : List.of("pages", "batches", "classified")) {
+            Set<BlockingQueue<?>> queues = ConcurrentHashMap.newKeySet();
+            liveQueues.put(queue, queues);
+            Gauge.builder("ingestion.pipeline.queue.depth", queues,
+                            qs -> qs.stream().mapToInt(BlockingQueue::size).sum())
+                    .tag("queue", queue)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Lines found in the statement, how many were not transaction rows, suspected duplicates,
+     * and the lines that could not be saved.
+     */
+    public record Result(int totalLines, int skippedLines, int duplicateTransactions, List<String> failedLines) {}
+
+    private record Page(int index, String text) {}
+
+    /** Lines for one classify call and the running balance just before the first of them. */
+    private record Batch(List<String> lines, Long openingBalance) {}
+
+    /**
+     * @param contentHash SHA-256 of the upload; when its text is cached the PDF is not opened at all
+     */
+    public Result run(StatementIngestionSession session, Path pdfPath, String contentHash,
+                      IngestionProgress progress) throws InterruptedException {
+        Run run = new Run(session, progress);
+        liveQueues.get("pages").add(run.pages);
+        liveQueues.get("batches").add(run.batches);
+        liveQueues.get("classified").add(run.classified);
+
+        List<Future<?>> stages = new ArrayList<>();
+        ExtractedTextCache.Entry cacheEntry = null;
+        try {
+            stages.add(stageThreads.submit(() -> stage(run, () -> assemble(run))));
+            for (int i = 0; i < classifyWorkers; i++) {
+                stages.add(stageThreads.submit(() -> stage(run, () -> classify(run))));
+            }
+            for (int i = 0; i < persistWorkers; i++) {
+                stages.add(stageThreads.submit(() -> stage(run, () -> persist(run))));
+            }
+
+            // A page's extraction runs from the previous hand-off to this one; time blocked in offer() is excluded
+            long[] extractStarted = {System.nanoTime()};
+            PdfExtractionService.PageSink toPages = (index, text) -> {
+                stageBusy.get("extract").record(System.nanoTime() - extractStarted[0], TimeUnit.NANOSECONDS);
+                stageItems.get("extract").increment();
+                offer(run, run.pages, new Page(index, text));
+                extractStarted[0] = System.nanoTime();
+            };
+            // Text from another extractor version or table mode would not match what extraction yields now
+            String cacheKey = contentHash == null ? null : contentHash + "." + pdfExtractionService.textFormat();
+            if (textCache.contains(cacheKey)) {
+                System.out.println("♻️ Reusing extracted text for statement " + contentHash.substring(0, 12) + "…");
+                try {
+                    textCache.replay(cacheKey, toPages);
+                } catch (IOException e) {
+                    throw new FileProcessingException("Could not read cached statement text", e);
+                }
+            } else {
+                cacheEntry = extractToCache(pdfPath, cacheKey, toPages);
+            }
+            offer(run, run.pages, END_OF_PAGES);
+
+            while (!run.finished.await(ABORT_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (run.failure != null) break;
+            }
+            if (run.failure != null) {
+                throw new FileProcessingException("Statement pipeline failed: " + run.failure.getMessage(), run.failure);
+            }
+            // Only text that made it through a successful run is worth replaying
+            if (cacheEntry != null) {
+                cacheEntry.commit();
+                cacheEntry = null;
+            }
+            return new Result(run.totalLines.get(), run.progress.getSkippedLines(),
+                    run.progress.getDuplicateTransactions(), new ArrayList<>(run.failedLines));
+        } finally {
+            if (cacheEntry != null) cacheEntry.abort();
+            stages.forEach(f -> f.cancel(true));
+            liveQueues.get("pages").remove(run.pages);
+            liveQueues.get("batches").remove(run.batches);
+            liveQueues.get("classified").remove(run.classified);
+        }
+    }
+
+    /**
+     * Extracts the PDF into {@code toPages}, writing the pages to a new cache entry on the way. Returns
+     * the entry, still uncommitted, when every page was read; null when there is nothing worth caching.
+     */
+    private ExtractedTextCache.Entry extractToCache(Path pdfPath, String cacheKey, PdfExtractionService.PageSink toPages)
+            throws InterruptedException {
+        ExtractedTextCache.Entry entry = textCache.open(cacheKey);
+        if (entry == null) {
+            pdfExtractionService.extractPages(pdfPath, toPages);
+            return null;
+        }
+
+        AtomicInteger pages = new AtomicInteger();
+        boolean complete;
+        try {
+            complete = pdfExtractionService.extractPages(pdfPath, (index, text) -> {
+                toPages.accept(index, text);
+                entry.append(text);
+                pages.incrementAndGet();
+            });
+        } catch (InterruptedException | RuntimeException e) {
+            entry.abort();
+            throw e;
+        }
+        // A partial document, or nothing at all (e.g. OCR unavailable), is not worth remembering
+        if (complete && pages.get() > 0) return entry;
+        entry.abort();
+        return null;
+    }
+
+    private void assemble(Run run) throws InterruptedException {
+        List<String> batch = new ArrayList<>(batchLines);
+        StatementParser.RowAssembler assembler = null;
+        List<String> rows = new ArrayList<>();
+        while (true) {
+            Page page = run.pages.take();
+            if (page == END_OF_PAGES) break;
+
+            long started = System.nanoTime();
+            if (assembler == null) assembler = parserFor(run.session, page.text()).newRowAssembler();
+            rows.clear();
+            assembler.page(page.text(), rows::add);
+            batch = addRows(run, rows, batch);
+            stageItems.get("assemble").increment();
+            stageBusy.get("assemble").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        if (assembler != null) {
+            rows.clear();
+            assembler.finish(rows::add);
+            batch = addRows(run, rows, batch);
+        }
+
+        if (!batch.isEmpty()) handOff(run, batch);
+        for (int i = 0; i < classifyWorkers; i++) run.batches.put(END_OF_BATCHES);
+    }
+
+    /**
+     * The layout recorded for the file, or the one its first page matches (remembered on the session
+     * and saved on the file).
+     */
+    private StatementParser parserFor(StatementIngestionSession session, String firstPage) {
+        StatementParser parser = session.getParser();
+        if (parser == null) {
+            parser = parserRegistry.detect(firstPage);
+            session.useParser(parser);
+            System.out.println("🏦 Statement layout of file " + session.getFileId() + ": " + parser.id());
+            try {
+                ingestedFileRepository.updateParserId(session.getFileId(), parser.id());
+            } catch (Exception e) {
+                // Only costs a second detection if this run is interrupted
+                System.out.println("⚠️ Could not save the layout of file " + session.getFileId() + ": " + e.getMessage());
+            }
+        }
+        return parser;
+    }
+
+    /**
+     * Filters rows and appends them to {@code batch}, handing full batches to the classifiers; returns the open batch.
+     */
+    private List<String> addRows(Run run, List<String> rows, List<String> batch) throws InterruptedException {
+        int added = 0;
+        int skipped = 0;
+        for (String line : rows) {
+            // Headers, summaries and balance rows are counted but never classified or saved
+            if (lineFilterEnabled && !StatementLineFilter.isTransactionLine(line)) {
+                skipped++;
+                continue;
+            }
+            batch.add(line);
+            added++;
+            if (batch.size() == batchLines) {
+                run.progress.addTotalLines(added);
+                run.totalLines.addAndGet(added);
+                added = 0;
+                handOff(run, batch);
+                batch = new ArrayList<>(batchLines);
+            }
+        }
+        run.progress.addTotalLines(added + skipped);
+        run.progress.recordSkipped(skipped);
+        run.totalLines.addAndGet(added + skipped);
+        return batch;
+    }
+
+    /**
+     * Queues a full batch for the classifiers together with the balance it opens on. Batches are cut here
+     * in statement order, so the balance carries over correctly even though classifiers finish out of order.
+     */
+    private void handOff(Run run, List<String> lines) throws InterruptedException {
+        Long openingBalance = run.carriedBalance;
+        run.carriedBalance = StatementAmountScanner.lastBalance(lines, openingBalance, run.balanceScratch);
+        run.batches.put(new Batch(lines, openingBalance));
+    }
+
+    private void classify(Run run) throws InterruptedException {
+        while (true) {
+            Batch batch = run.batches.take();
+            if (batch == END_OF_BATCHES) break;
+
+            long started = System.nanoTime();
+            List<ClassifiedLine> classified;
+            try {
+                classified = transactionService.classifyStatementLines(run.session, batch.lines(), batch.openingBalance());
+            } catch (Exception e) {
+                System.out.println("⚠️ Classification failed for a batch of " + batch.lines().size() + " line(s): " + e.getMessage());
+                recordFailed(run, batch.lines());
+                continue;
+            }
+            stageItems.get("classify").increment(batch.lines().size());
+            stageBusy.get("classify").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            run.classified.put(classified);
+        }
+
+        // Last classifier out tells every persister to stop
+        if (run.classifiersLeft.decrementAndGet() == 0) {
+            for (int i = 0; i < persistWorkers; i++) run.classified.put(END_OF_CLASSIFIED);
+        }
+    }
+
+    private void persist(Run run) throws InterruptedException {
+        while (true) {
+            List<ClassifiedLine> batch = run.classified.take();
+            if (batch == END_OF_CLASSIFIED) break;
+
+            long started = System.nanoTime();
+            TransactionService.PersistResult result;
+            try {
+                result = transactionService.persistStatementLines(run.session, batch);
+            } catch (Exception e) {
+                System.out.println("⚠️ Could not save a batch of " + batch.size() + " transaction(s): " + e.getMessage());
+                result = new TransactionService.PersistResult(batch.stream().map(ClassifiedLine::line).toList(), 0, 0);
+            }
+            int saved = batch.size() - result.failedLines().size() - result.skippedDuplicates();
+            for (int i = 0; i < saved; i++) run.progress.recordSuccess();
+            run.progress.recordDuplicates(result.duplicates(), result.skippedDuplicates());
+            recordFailed(run, result.failedLines());
+            stageItems.get("persist").increment(batch.size());
+            stageBusy.get("persist").record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordFailed(Run run, List<String> lines) {
+        run.failedLines.addAll(lines);
+        for (int i = 0; i < lines.size(); i++) run.progress.recordFailure();
+    }
+
+    private interface StageBody {
+        void run() throws InterruptedException;
+    }
+
+    private void stage(Run run, StageBody body) {
+        try {
+            body.run();
+        } catch (InterruptedException e) {
+            // Only reached on shutdown; never report a half-drained run as finished
+            run.failure = e;
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            run.failure = t;
+        } finally {
+            run.finished.countDown();
+        }
+    }
+
+    /**
+     * Blocking put for the extracting (caller) thread that gives up once a downstream stage has died.
+     */
+    private static <T> void offer(Run run, BlockingQueue<T> queue, T item) throws InterruptedException {
+        while (!queue.offer(item, ABORT_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (run.failure != null) {
+                throw new FileProcessingException("Statement pipeline failed: " + run.failure.getMessage(), run.failure);
+            }
+        }
+    }
+
+    private final class Run {
+        final StatementIngestionSession session;
+        final IngestionProgress progress;
+        final BlockingQueue<Page> pages = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<List<ClassifiedLine>> classified = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicInteger classifiersLeft = new AtomicInteger(classifyWorkers);
+        final CountDownLatch finished = new CountDownLatch(1 + classifyWorkers + persistWorkers);
+        final AtomicInteger totalLines = new AtomicInteger();
+        final List<String> failedLines = Collections.synchronizedList(new ArrayList<>());
+        volatile Throwable failure;
+        // Owned by the assemble stage
+        Long carriedBalance;
+        final StatementAmountScanner.Amounts balanceScratch = new StatementAmountScanner.Amounts();
+
+        Run(StatementIngestionSession session, IngestionProgress progress) {
+            this.session = session;
+            this.progress = progress;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        stageThreads.shutdownNow();
+    }
+}
@@ -0,0 +1,112 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+
+import org.springframework.stereotype.Service;
+
+import com.team021.financial_nudger.domain.IngestedFile;
+import com.team021.financial_nudger.dto.FileUploadResponse;
+import com.team021.financial_nudger.exception.FileProcessingException;
+import com.team021.financial_nudger.repository.IngestedFileRepository;
+import com.team021.financial_nudger.service.StatementIngestionSession;
+import com.team021.financial_nudger.service.TransactionService;
+import com.team021.financial_nudger.service.pdf.StatementParser;
+import com.team021.financial_nudger.service.pdf.StatementParserRegistry;
+
+/**
+ * Turns a stored statement PDF into transactions via the {@link StatementPipeline}.
+ * Batches commit independently, so any rows left by an interrupted earlier attempt are removed first.
+ * Shared by the synchronous upload path and the background ingestion workers.
+ */
+@Service
+public class StatementProcessor {
+
+    private final IngestedFileRepository ingestedFileRepository;
+    private final TransactionService transactionService;
+    private final StatementPipeline pipeline;
+    private final StatementParserRegistry parserRegistry;
+
+    public StatementProcessor(
+            IngestedFileRepository ingestedFileRepository,
+            TransactionService transactionService,
+            StatementPipeline pipeline,
+            StatementParserRegistry parserRegistry
+    ) {
+        this.ingestedFileRepository = ingestedFileRepository;
+        this.transactionService = transactionService;
+        this.pipeline = pipeline;
+        this.parserRegistry = parserRegistry;
+    }
+
+    public FileUploadResponse process(IngestedFile ingestedFile, Path pdfPath, IngestionProgress progress) {
+        StatementIngestionSession session =
+                transactionService.openStatementSession(ingestedFile.getUserId(), ingestedFile.getFileId());
+        // A layout detected on an earlier run is reused as is
+        session.useParser(parserRegistry.byId(ingestedFile.getParserId()));
+
+        int discarded = transactionService.discardStatementTransactions(ingestedFile.getFileId());
+        if (discarded > 0) {
+            System.out.println("🧹 Removed " + discarded + " transaction(s) left by an interrupted run of file " + ingestedFile.getFileId());
+        }
+
+        StatementPipeline.Result result;
+        try {
+            result = pipeline.run(session, pdfPath, ingestedFile.getContentHash(), progress);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileProcessingException("Statement ingestion interrupted", e);
+        }
+
+        if (session.getParser() != null) ingestedFile.setParserId(session.getParser().id());
+
+        if (result.totalLines() == 0) {
+            ingestedFile.setUploadStatus(IngestedFile.UploadStatus.FAILED);
+            ingestedFile.setErrorMessage("No extractable text found in PDF");
+            recordCounts(ingestedFile, progress);
+            ingestedFileRepository.save(ingestedFile);
+            return FileUploadResponse.builder()
+                    .success(false)
+                    .message("No extractable text found in PDF")
+                    .fileId(ingestedFile.getFileId())
+                    .fileName(ingestedFile.getFileName())
+                    .fileSize(ingestedFile.getFileSize())
+                    .processedRows(0)
+                    .successfulTransactions(0)
+                    .failedTransactions(0)
+                    .skippedLines(0)
+                    .duplicateTransactions(0)
+                    .errors(new ArrayList<>())
+                    .build();
+        }
+
+        ingestedFile.setUploadStatus(IngestedFile.UploadStatus.COMPLETED);
+        recordCounts(ingestedFile, progress);
+        ingestedFileRepository.save(ingestedFile);
+
+        return FileUploadResponse.builder()
+                .success(true)
+                .message("Statement processed")
+                .fileId(ingestedFile.getFileId())
+                .fileName(ingestedFile.getFileName())
+                .fileSize(ingestedFile.getFileSize())
+                .processedRows(result.totalLines())
+                .successfulTransactions(progress.getSuccessfulTransactions())
+                .failedTransactions(progress.getFailedTransactions())
+                .skippedLines(result.skippedLines())
+                .duplicateTransactions(result.duplicateTransactions())
+                .errors(result.failedLines())
+                .processedAt(ingestedFile.getProcessedAt())
+                .build();
+    }
+
+    private void recordCounts(IngestedFile ingestedFile, IngestionProgress progress) {
+        ingestedFile.setProcessedRows(progress.getTotalLines());
+        ingestedFile.setSuccessfulTransactions(progress.getSuccessfulTransactions());
+        ingestedFile.setFailedTransactions(progress.getFailedTransactions());
+        ingestedFile.setSkippedLines(progress.getSkippedLines());
+        ingestedFile.setDuplicateTransactions(progress.getDuplicateTransactions());
+        ingestedFile.setProcessedAt(Instant.now());
+    }
+}
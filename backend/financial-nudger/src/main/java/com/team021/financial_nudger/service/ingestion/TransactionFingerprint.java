@@ -0,0 +1,72 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * 64-bit fingerprint of a transaction: (user, date, amount in minor units, normalized description).
+ * The description is reduced to lower-case letters and digits with runs of anything else collapsed
+ * to one separator, so spacing and punctuation differences between two extractions of the same
+ * statement row do not matter. Digits are kept on purpose: statement rows carry reference numbers
+ * and running balances that tell genuinely repeated spends apart.
+ * <p>
+ * A manual entry's note never reads like the bank's narration for the same spend, so manual
+ * entries use {@link #ofManual}, which leaves the description out. Statement debits are checked
+ * against that form as well, which is how a statement row finds the spend the user already typed in.
+ */
+public final class TransactionFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private TransactionFingerprint() {}
+
+    public static long of(Integer userId, LocalDate date, BigDecimal amount, String description) {
+        long h = FNV_OFFSET;
+        h = mixLong(h, userId == null ? 0 : userId);
+        h = mixLong(h, date == null ? Long.MIN_VALUE : date.toEpochDay());
+        h = mixLong(h, amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue());
+
+        if (description != null) {
+            boolean pendingSeparator = false;
+            boolean any = false;
+            for (int i = 0; i < description.length(); i++) {
+                char c = description.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    if (pendingSeparator && any) h = (h ^ ' ') * FNV_PRIME;
+                    h = (h ^ Character.toLowerCase(c)) * FNV_PRIME;
+                    pendingSeparator = false;
+                    any = true;
+                } else {
+                    pendingSeparator = true;
+                }
+            }
+        }
+        return finish(h);
+    }
+
+    /**
+     * Fingerprint of a manual entry, or of a dated statement debit looking for one: user, date and amount only.
+     */
+    public static long ofManual(Integer userId, LocalDate date, BigDecimal amount) {
+        return of(userId, date, amount, null);
+    }
+
+    private static long mixLong(long h, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            h = (h ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    // Avalanche step so the low and high halves are independent enough for double hashing
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,8 +1,38 @@
 package com.team021.financial_nudger.service.llm;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
 public interface CategorizationService {
 
     ClassificationResult classifyExpense(Integer userId, String rawText, List<String> availableCategories);
-}
\ No newline at end of file
+
+    /**
+     * Classifies several descriptions in one go. Results are returned in input order.
+     * Implementations without a batch endpoint fall back to one call per text.
+     */
+    default List<ClassificationResult> classifyBatch(Integer userId, List<String> texts, List<String> availableCategories) {
+        List<ClassificationResult> results = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            results.add(classifyExpense(userId, text, availableCategories));
+        }
+        return results;
+    }
+
+    /**
+     * Non-blocking variant for request threads. Implementations that only have a blocking
+     * client run it on the bounded-elastic scheduler.
+     */
+    default Mono<ClassificationResult> classifyExpenseAsync(Integer userId, String rawText, List<String> availableCategories) {
+        return Mono.fromCallable(() -> classifyExpense(userId, rawText, availableCategories))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    default Mono<List<ClassificationResult>> classifyBatchAsync(Integer userId, List<String> texts, List<String> availableCategories) {
+        return Mono.fromCallable(() -> classifyBatch(userId, texts, availableCategories))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,211 @@
+package com.team021.financial_nudger.service.llm;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.team021.financial_nudger.domain.ClassificationMemo;
+import com.team021.financial_nudger.repository.ClassificationMemoRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Two-tier cache of ML classifications keyed on {@link DescriptionNormalizer normalized} descriptions.
+ * <ul>
+ *   <li>Tier 1: bounded in-memory cache with size-based eviction ({@code ml.cache.max-entries}).</li>
+ *   <li>Tier 2 (optional, {@code ml.cache.persistent}): the {@code classification_memo} table, so hits survive restarts.</li>
+ * </ul>
+ * Everything is dropped when the ML service reports a new model version, and single entries are
+ * evicted when a user corrects a transaction. Hit/miss counts are published as
+ * {@code cache.*{cache=ml.classification}} and {@code ml.classification.memo} meters.
+ */
+@Component
+public class ClassificationCache {
+
+    private static final String UNVERSIONED = "unversioned";
+
+    private final Cache<String, ClassificationResult> memory;
+    private final ClassificationMemoRepository memoRepository;
+    private final TransactionTemplate writeTx;
+    private final boolean enabled;
+    private final boolean persistent;
+    private final Counter memoHits;
+    private final Counter memoMisses;
+    private volatile String modelVersion;
+
+    public ClassificationCache(
+            ClassificationMemoRepository memoRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${ml.cache.enabled:true}") boolean enabled,
+            @Value("${ml.cache.max-entries:10000}") long maxEntries,
+            @Value("${ml.cache.persistent:false}") boolean persistent,
+            @Value("${ml.model-version:}") String configuredModelVersion
+    ) {
+        this.memoRepository = memoRepository;
+        this.enabled = enabled;
+        this.persistent = enabled && persistent;
+        this.modelVersion = configuredModelVersion == null || configuredModelVersion.isBlank()
+                ? UNVERSIONED
+                : configuredModelVersion;
+
+        this.memory = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxEntries))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "ml.classification");
+        this.memoHits = meterRegistry.counter("ml.classification.memo", "result", "hit");
+        this.memoMisses = meterRegistry.counter("ml.classification.memo", "result", "miss");
+
+        // Cache writes must never roll back (or be rolled back with) the caller's ingestion transaction
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public String keyFor(String text) {
+        return DescriptionNormalizer.normalize(text);
+    }
+
+    public ClassificationResult get(String key) {
+        if (!enabled || key == null || key.isEmpty()) return null;
+
+        ClassificationResult hit = memory.getIfPresent(key);
+        if (hit != null || !persistent) return hit;
+
+        String version = modelVersion;
+        ClassificationResult stored = memoRepository.findById(hash(key))
+                .filter(m -> version.equals(m.getModelVersion()))
+                .map(m -> new ClassificationResult(m.getCategoryName(), m.getConfidence()))
+                .orElse(null);
+        if (stored != null) {
+            memoHits.increment();
+            memory.put(key, stored);
+        } else {
+            memoMisses.increment();
+        }
+        return stored;
+    }
+
+    /**
+     * Looks up many keys at once; the persistent tier is queried with a single round trip.
+     */
+    public Map<String, ClassificationResult> getAll(Collection<String> keys) {
+        Map<String, ClassificationResult> found = new HashMap<>();
+        if (!enabled || keys.isEmpty()) return found;
+
+        found.putAll(memory.getAllPresent(keys));
+        if (!persistent) return found;
+
+        Map<String, String> missingByHash = new HashMap<>();
+        for (String key : keys) {
+            if (!key.isEmpty() && !found.containsKey(key)) missingByHash.put(hash(key), key);
+        }
+        if (missingByHash.isEmpty()) return found;
+
+        int memoryHits = found.size();
+        String version = modelVersion;
+        for (ClassificationMemo memo : memoRepository.findAllById(missingByHash.keySet())) {
+            if (!version.equals(memo.getModelVersion())) continue;
+            String key = missingByHash.get(memo.getKeyHash());
+            ClassificationResult result = new ClassificationResult(memo.getCategoryName(), memo.getConfidence());
+            memory.put(key, result);
+            found.put(key, result);
+        }
+        int hits = found.size() - memoryHits;
+        memoHits.increment(hits);
+        memoMisses.increment(missingByHash.size() - hits);
+        return found;
+    }
+
+    public void put(String key, ClassificationResult result, String reportedModelVersion) {
+        putAll(Map.of(key, result), reportedModelVersion);
+    }
+
+    public void putAll(Map<String, ClassificationResult> results, String reportedModelVersion) {
+        if (!enabled || results.isEmpty()) return;
+        observeModelVersion(reportedModelVersion);
+        String version = modelVersion;
+
+        List<ClassificationMemo> memos = new ArrayList<>(results.size());
+        results.forEach((key, result) -> {
+            if (key.isEmpty()) return;
+            memory.put(key, result);
+            if (persistent) {
+                memos.add(new ClassificationMemo(hash(key), truncate(key), result.classifiedCategoryName(),
+                        result.confidenceScore(), version));
+            }
+        });
+
+        if (!memos.isEmpty()) {
+            try {
+                writeTx.executeWithoutResult(status -> memoRepository.saveAll(memos));
+            } catch (Exception e) {
+                System.out.println("⚠️ Could not persist classification memo: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Forgets the cached classification for this description (e.g. after user feedback).
+     */
+    public void evictText(String text) {
+        String key = keyFor(text);
+        if (!enabled || key.isEmpty()) return;
+        memory.invalidate(key);
+        if (persistent) {
+            try {
+                writeTx.executeWithoutResult(status -> memoRepository.deleteById(hash(key)));
+            } catch (Exception e) {
+                System.out.println("⚠️ Could not evict classification memo: " + e.getMessage());
+            }
+        }
+    }
+
+    public void observeModelVersion(String reportedModelVersion) {
+        if (reportedModelVersion == null || reportedModelVersion.isBlank()) return;
+        if (reportedModelVersion.equals(modelVersion)) return;
+
+        synchronized (this) {
+            if (reportedModelVersion.equals(modelVersion)) return;
+            System.out.println("🔄 ML model version changed " + modelVersion + " → " + reportedModelVersion + "; clearing classification cache");
+            modelVersion = reportedModelVersion;
+            memory.invalidateAll();
+            if (persistent) {
+                try {
+                    writeTx.executeWithoutResult(status -> memoRepository.deleteOtherModelVersions(reportedModelVersion));
+                } catch (Exception e) {
+                    System.out.println("⚠️ Could not purge stale classification memos: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String truncate(String key) {
+        return key.length() <= 512 ? key : key.substring(0, 512);
+    }
+
+    private static String hash(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.team021.financial_nudger.service.llm;
+
+/**
+ * Reduces a bank description to the words that identify the merchant/purpose, so
+ * "UPI/SWIGGY/412398771/12-03-2024" and "UPI/SWIGGY/998812/01-04-2024" share one key.
+ * Digits, punctuation, month names and Dr/Cr markers are dropped; the rest is lower-cased
+ * and joined with single spaces.
+ */
+public final class DescriptionNormalizer {
+
+    private static final String[] NOISE_TOKENS = {
+            "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "sept", "oct", "nov", "dec",
+            "dr", "cr"
+    };
+
+    private DescriptionNormalizer() {}
+
+    public static String normalize(CharSequence text) {
+        if (text == null) return "";
+        StringBuilder out = new StringBuilder(text.length());
+        int len = text.length();
+        int i = 0;
+        while (i < len) {
+            // skip separators
+            while (i < len && !Character.isLetter(text.charAt(i))) i++;
+            int start = i;
+            while (i < len && Character.isLetter(text.charAt(i))) i++;
+            if (i > start && !isNoise(text, start, i)) {
+                if (out.length() > 0) out.append(' ');
+                for (int j = start; j < i; j++) {
+                    out.append(Character.toLowerCase(text.charAt(j)));
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean isNoise(CharSequence text, int start, int end) {
+        int len = end - start;
+        if (len < 2 || len > 4) return false;
+        for (String noise : NOISE_TOKENS) {
+            if (noise.length() == len && regionMatchesIgnoreCase(text, start, noise)) return true;
+        }
+        return false;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence text, int start, String lowerToken) {
+        for (int k = 0; k < lowerToken.length(); k++) {
+            if (Character.toLowerCase(text.charAt(start + k)) != lowerToken.charAt(k)) return false;
+        }
+        return true;
+    }
+}
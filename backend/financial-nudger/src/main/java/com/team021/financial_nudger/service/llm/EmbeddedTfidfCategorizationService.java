@@ -0,0 +1,63 @@
+package com.team021.financial_nudger.service.llm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Categorization scored inside the JVM from the model exported by {@code ml/export_model.py},
+ * without a round trip to the Python service. Enabled with {@code ml.engine=embedded};
+ * answers carry the same category and confidence the ML service would give.
+ * Scoring takes microseconds, so the async variants complete on the caller's thread.
+ */
+@Service
+@ConditionalOnProperty(name = "ml.engine", havingValue = "embedded")
+public class EmbeddedTfidfCategorizationService implements CategorizationService {
+
+    private final TfidfLinearModel model;
+    private final String fallbackCategory;
+
+    public EmbeddedTfidfCategorizationService(
+            @Value("${ml.embedded.model-path:../../ml/tfidf_model.bin}") String modelPath,
+            @Value("${ml.api.fallback-category:Miscellaneous}") String fallbackCategory
+    ) {
+        Path path = Path.of(modelPath);
+        try (InputStream in = Files.newInputStream(path)) {
+            this.model = TfidfLinearModel.read(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load the embedded categorization model from "
+                    + path.toAbsolutePath() + " (run ml/export_model.py): " + e.getMessage(), e);
+        }
+        this.fallbackCategory = fallbackCategory;
+        System.out.println("🧠 Embedded categorization model loaded: " + model.featureCount() + " features, "
+                + model.classCount() + " categories, version " + model.modelVersion());
+    }
+
+    @Override
+    public ClassificationResult classifyExpense(Integer userId, String rawText, List<String> availableCategories) {
+        if (rawText == null || rawText.isBlank()) {
+            return new ClassificationResult(fallbackCategory, BigDecimal.ZERO);
+        }
+        TfidfLinearModel.Prediction prediction = model.predict(rawText);
+        return new ClassificationResult(prediction.category(), BigDecimal.valueOf(prediction.confidence()));
+    }
+
+    @Override
+    public Mono<ClassificationResult> classifyExpenseAsync(Integer userId, String rawText, List<String> availableCategories) {
+        return Mono.fromCallable(() -> classifyExpense(userId, rawText, availableCategories));
+    }
+
+    @Override
+    public Mono<List<ClassificationResult>> classifyBatchAsync(Integer userId, List<String> texts, List<String> availableCategories) {
+        return Mono.fromCallable(() -> classifyBatch(userId, texts, availableCategories));
+    }
+}
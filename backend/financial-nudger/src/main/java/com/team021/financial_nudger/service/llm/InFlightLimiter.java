@@ -0,0 +1,69 @@
+package com.team021.financial_nudger.service.llm;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caps how many calls to the ML service are outstanding at once without blocking anyone:
+ * calls over the limit wait in a queue and are started as earlier ones finish.
+ */
+final class InFlightLimiter {
+
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    InFlightLimiter(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    <T> Mono<T> limit(Supplier<Mono<T>> call) {
+        return Mono.create(sink -> {
+            Runnable start = () -> {
+                Disposable running = call.get()
+                        .doFinally(signal -> release())
+                        .subscribe(sink::success, sink::error, sink::success);
+                sink.onDispose(running);
+            };
+            if (tryAcquire()) {
+                start.run();
+            } else {
+                waiting.add(start);
+                drain(); // a permit may have been released between tryAcquire and add
+            }
+        });
+    }
+
+    int inFlight() { return inFlight.get(); }
+
+    int waiting() { return waiting.size(); }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) return false;
+            if (inFlight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty() && tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                inFlight.decrementAndGet();
+                return;
+            }
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.team021.financial_nudger.service.llm;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the most recent call latencies (timed-out calls count at their timeout), used to
+ * derive timeouts and hedge delays from what the ML service actually does instead of a fixed guess.
+ */
+final class LatencyTracker {
+
+    private final long[] samples;
+    private final int minSamples;
+    private int next;
+    private int count;
+
+    LatencyTracker(int window, int minSamples) {
+        this.samples = new long[Math.max(1, window)];
+        this.minSamples = Math.max(1, Math.min(minSamples, samples.length));
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) count++;
+    }
+
+    /**
+     * The given percentile (0..1) of the window in nanoseconds, or -1 until enough calls were seen.
+     */
+    long percentile(double p) {
+        long[] copy;
+        synchronized (this) {
+            if (count < minSamples) return -1;
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        int index = (int) Math.ceil(p * copy.length) - 1;
+        return copy[Math.max(0, Math.min(copy.length - 1, index))];
+    }
+}
@@ -2,65 +2,222 @@ package com.team021.financial_nudger.service.llm;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Categorization backed by the Python ML service. Calls are fully asynchronous and go through
+ * {@link MlApiGuard} (circuit breaker, in-flight cap, adaptive timeouts, optional hedging);
+ * any failure, including an open circuit, answers with the fallback category.
+ * Responses are handled on the bounded-elastic scheduler because caching them may touch the database.
+ * The blocking variants wait at most {@code ml.api.blocking-timeout} (queueing behind the in-flight
+ * cap and per-item retries included) before answering with the fallback, so a hung service cannot
+ * stall an ingestion worker. This is the default engine ({@code ml.engine=http}).
+ */
 @Service
+@ConditionalOnProperty(name = "ml.engine", havingValue = "http", matchIfMissing = true)
 public class MlApiCategorizationService implements CategorizationService {
 
     private final WebClient webClient;
-    private final Duration timeout;
     private final String fallbackCategory;
+    private final int batchSize;
+    private final ClassificationCache cache;
+    private final MlApiGuard guard;
+    private final Duration blockingTimeout;
 
     public MlApiCategorizationService(
             WebClient.Builder builder,
+            ClassificationCache cache,
+            MlApiGuard guard,
             @Value("${ml.api.base-url:http://localhost:5000}") String baseUrl,
-            @Value("${ml.api.timeout-seconds:8}") long timeoutSeconds,
-            @Value("${ml.api.fallback-category:Miscellaneous}") String fallbackCategory
+            @Value("${ml.api.fallback-category:Miscellaneous}") String fallbackCategory,
+            @Value("${ml.api.batch-size:64}") int batchSize,
+            @Value("${ml.api.blocking-timeout:30s}") Duration blockingTimeout
     ) {
         this.webClient = builder.baseUrl(Objects.requireNonNull(baseUrl)).build();
-        this.timeout = Duration.ofSeconds(Math.max(3, timeoutSeconds));
         this.fallbackCategory = fallbackCategory;
+        this.batchSize = Math.max(1, batchSize);
+        this.cache = cache;
+        this.guard = guard;
+        this.blockingTimeout = blockingTimeout;
     }
 
     @Override
     public ClassificationResult classifyExpense(Integer userId, String rawText, List<String> categories) {
+        return await(classifyExpenseAsync(userId, rawText, categories),
+                () -> new ClassificationResult(fallbackCategory, BigDecimal.valueOf(0.3)));
+    }
+
+    @Override
+    public Mono<ClassificationResult> classifyExpenseAsync(Integer userId, String rawText, List<String> categories) {
 
         if (rawText == null || rawText.isBlank()) {
-            return new ClassificationResult(fallbackCategory, BigDecimal.ZERO);
+            return Mono.just(new ClassificationResult(fallbackCategory, BigDecimal.ZERO));
         }
 
-        try {
-                    MlPredictionResponse response = webClient.post()
-                    .uri("/predict")
+        String key = cache.keyFor(rawText);
+        ClassificationResult cached = cache.get(key);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return guard.execute(MlApiGuard.Operation.PREDICT, () -> webClient.post()
+                        .uri("/predict")
                         .contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
                         .body(BodyInserters.fromValue(Objects.requireNonNull(Map.of("text", Objects.requireNonNull(rawText)))))
-                    .retrieve()
-                    .bodyToMono(MlPredictionResponse.class)
-                    .block(timeout);
+                        .retrieve()
+                        .bodyToMono(MlPredictionResponse.class))
+                .publishOn(Schedulers.boundedElastic())
+                .map(response -> {
+                    String category = response.category != null ? response.category : fallbackCategory;
+                    double confVal = response.confidence != null ? response.confidence : 0d;
+                    ClassificationResult result = new ClassificationResult(category, BigDecimal.valueOf(confVal));
+                    // Only real model answers are cached; the ML service omits the version while serving fallbacks
+                    if (response.category != null && response.modelVersion != null) {
+                        cache.put(key, result, response.modelVersion);
+                    }
+                    return result;
+                })
+                .defaultIfEmpty(new ClassificationResult(fallbackCategory, BigDecimal.valueOf(0.5)))
+                .onErrorResume(ex -> Mono.just(new ClassificationResult(fallbackCategory, BigDecimal.valueOf(0.3))));
+    }
+
+    @Override
+    public List<ClassificationResult> classifyBatch(Integer userId, List<String> texts, List<String> categories) {
+        return await(classifyBatchAsync(userId, texts, categories),
+                () -> Collections.nCopies(texts.size(), new ClassificationResult(fallbackCategory, BigDecimal.valueOf(0.3))));
+    }
 
-            String category = response != null && response.category != null
-                    ? response.category
-                    : fallbackCategory;
+    /**
+     * Blocks for at most {@code ml.api.blocking-timeout}; on expiry the call is cancelled and the fallback returned.
+     */
+    private <T> T await(Mono<T> call, Supplier<T> fallback) {
+        try {
+            T result = call.block(blockingTimeout);
+            return result != null ? result : fallback.get();
+        } catch (IllegalStateException e) {
+            System.out.println("⚠️ ML service gave no answer within " + blockingTimeout.toMillis() + "ms, using fallback: " + e.getMessage());
+            return fallback.get();
+        }
+    }
 
-                        double confVal = (response != null)
-                            ? response.confidence
-                            : 0.5d;
-                    BigDecimal confidence = BigDecimal.valueOf(confVal);
+    /**
+     * Sends texts to /predict_batch in chunks of {@code ml.api.batch-size}.
+     * A failed chunk, or a missing prediction inside a chunk, falls back to
+     * {@link #classifyExpenseAsync} for just the affected items.
+     * Cached descriptions never leave the JVM; only the misses are sent.
+     */
+    @Override
+    public Mono<List<ClassificationResult>> classifyBatchAsync(Integer userId, List<String> texts, List<String> categories) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < texts.size(); from += batchSize) {
+            chunks.add(texts.subList(from, Math.min(texts.size(), from + batchSize)));
+        }
+        return Flux.fromIterable(chunks)
+                .flatMapSequential(chunk -> classifyChunk(userId, chunk, categories))
+                .flatMapIterable(results -> results)
+                .collectList();
+    }
 
-            return new ClassificationResult(category, confidence);
+    private Mono<List<ClassificationResult>> classifyChunk(Integer userId, List<String> chunk, List<String> categories) {
+        List<String> keys = new ArrayList<>(chunk.size());
+        for (String text : chunk) {
+            keys.add(text == null ? "" : cache.keyFor(text));
+        }
+        Map<String, ClassificationResult> cached = cache.getAll(keys);
 
-        } catch (Exception ex) {
-            return new ClassificationResult(fallbackCategory, BigDecimal.valueOf(0.3));
+        // One representative text per normalized key: repeated merchants are sent once
+        Map<String, String> misses = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            String text = chunk.get(i);
+            if (text != null && !text.isBlank() && !cached.containsKey(keys.get(i))) {
+                misses.putIfAbsent(keys.get(i), text);
+            }
         }
+        Mono<Map<String, ClassificationResult>> fetched = misses.isEmpty()
+                ? Mono.just(Map.of())
+                : fetchBatch(new ArrayList<>(misses.values()));
+
+        return fetched.flatMap(byKey -> Flux.range(0, chunk.size())
+                .flatMapSequential(i -> {
+                    String text = chunk.get(i);
+                    String key = keys.get(i);
+                    if (text == null || text.isBlank()) {
+                        return Mono.just(new ClassificationResult(fallbackCategory, BigDecimal.ZERO));
+                    } else if (cached.containsKey(key)) {
+                        return Mono.just(cached.get(key));
+                    } else if (byKey.containsKey(key)) {
+                        return Mono.just(byKey.get(key));
+                    }
+                    return classifyExpenseAsync(userId, text, categories);
+                })
+                .collectList());
+    }
+
+    /**
+     * One /predict_batch round trip. Emits results keyed by normalized text,
+     * only for the texts that got a usable prediction (empty map on failure).
+     */
+    private Mono<Map<String, ClassificationResult>> fetchBatch(List<String> texts) {
+        return guard.execute(MlApiGuard.Operation.PREDICT_BATCH, texts.size(), () -> webClient.post()
+                        .uri("/predict_batch")
+                        .contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON))
+                        .body(BodyInserters.fromValue(Objects.requireNonNull(Map.of("texts", texts))))
+                        .retrieve()
+                        .bodyToMono(MlBatchPredictionResponse.class))
+                .publishOn(Schedulers.boundedElastic())
+                .map(response -> {
+                    Map<String, ClassificationResult> byKey = new HashMap<>();
+                    if (response.predictions() == null || response.predictions().size() != texts.size()) {
+                        return byKey;
+                    }
+                    for (int i = 0; i < texts.size(); i++) {
+                        MlPredictionResponse p = response.predictions().get(i);
+                        if (p == null || p.category() == null) continue;
+                        ClassificationResult result = new ClassificationResult(
+                                p.category(), BigDecimal.valueOf(p.confidence() != null ? p.confidence() : 0d));
+                        byKey.put(cache.keyFor(texts.get(i)), result);
+                    }
+                    if (response.modelVersion() != null) {
+                        cache.putAll(byKey, response.modelVersion());
+                    }
+                    return byKey;
+                })
+                .defaultIfEmpty(Map.of())
+                .onErrorResume(MlApiGuard.CircuitOpenException.class, ex -> Mono.just(Map.of()))
+                .onErrorResume(ex -> {
+                    System.out.println("⚠️ ML batch of " + texts.size() + " failed, classifying items individually: " + ex.getMessage());
+                    return Mono.just(Map.of());
+                });
     }
 
-    private record MlPredictionResponse(String category, double confidence) {}
+    private record MlPredictionResponse(
+            String category,
+            Double confidence,
+            @JsonProperty("model_version") String modelVersion
+    ) {}
+
+    private record MlBatchPredictionResponse(
+            List<MlPredictionResponse> predictions,
+            @JsonProperty("model_version") String modelVersion
+    ) {}
 }
@@ -0,0 +1,28 @@
+package com.team021.financial_nudger.service.llm;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/mlapi}: circuit breaker state, call counters, latency percentiles and the
+ * timeouts currently in force for the ML service client. Needs to be listed in
+ * {@code management.endpoints.web.exposure.include} to be reachable over HTTP.
+ */
+@Component
+@Endpoint(id = "mlapi")
+public class MlApiEndpoint {
+
+    private final MlApiGuard guard;
+
+    public MlApiEndpoint(MlApiGuard guard) {
+        this.guard = guard;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return guard.snapshot();
+    }
+}
@@ -0,0 +1,244 @@
+package com.team021.financial_nudger.service.llm;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Wraps every call to the ML service:
+ * <ul>
+ *   <li>a {@link MlCircuitBreaker} so an unreachable service fails fast instead of costing a timeout per line;</li>
+ *   <li>an in-flight cap ({@code ml.api.max-in-flight}) that queues excess calls without blocking;</li>
+ *   <li>adaptive timeouts: a multiple of the observed latency percentile, clamped between
+ *       {@code ml.api.adaptive-timeout.min} and {@code ml.api.timeout}. Latency is tracked per operation and
+ *       batch size class (1, up to 4, 16, 64, more texts); a timed-out call counts as a sample at its timeout,
+ *       so the limit backs off when the service slows down. Half-open probes always get the full timeout;</li>
+ *   <li>optional hedging of single predictions: if no answer arrived by the p95 latency,
+ *       a second identical request races the first.</li>
+ * </ul>
+ * State is published through the {@code mlapi} actuator endpoint and {@code ml.api.*} meters.
+ */
+@Component
+public class MlApiGuard {
+
+    public enum Operation {
+        PREDICT(true), PREDICT_BATCH(false);
+
+        private final boolean hedgeable;
+
+        Operation(boolean hedgeable) {
+            this.hedgeable = hedgeable;
+        }
+    }
+
+    /**
+     * Raised instead of calling the service while the circuit is open.
+     */
+    public static class CircuitOpenException extends RuntimeException {
+        CircuitOpenException() {
+            super("ML service circuit is open");
+        }
+    }
+
+    /** Batch sizes up to 4^k share size class k. */
+    private static final int SIZE_CLASSES = 5;
+
+    private final MlCircuitBreaker breaker;
+    private final InFlightLimiter limiter;
+    private final Map<Operation, LatencyTracker[]> latencies = new EnumMap<>(Operation.class);
+    private final Duration maxTimeout;
+    private final Duration minTimeout;
+    private final boolean adaptiveTimeout;
+    private final double timeoutPercentile;
+    private final double timeoutMultiplier;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter timeouts;
+    private final Counter rejected;
+    private final Counter hedges;
+
+    public MlApiGuard(
+            MeterRegistry meterRegistry,
+            @Value("${ml.api.timeout:${ml.api.timeout-seconds:8}s}") Duration maxTimeout,
+            @Value("${ml.api.max-in-flight:16}") int maxInFlight,
+            @Value("${ml.api.breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${ml.api.breaker.open-duration:30s}") Duration openDuration,
+            @Value("${ml.api.breaker.half-open-probes:1}") int halfOpenProbes,
+            @Value("${ml.api.adaptive-timeout.enabled:true}") boolean adaptiveTimeout,
+            @Value("${ml.api.adaptive-timeout.min:250ms}") Duration minTimeout,
+            @Value("${ml.api.adaptive-timeout.percentile:0.99}") double timeoutPercentile,
+            @Value("${ml.api.adaptive-timeout.multiplier:2.0}") double timeoutMultiplier,
+            @Value("${ml.api.hedge.enabled:false}") boolean hedgeEnabled,
+            @Value("${ml.api.hedge.percentile:0.95}") double hedgePercentile
+    ) {
+        this.breaker = new MlCircuitBreaker(failureThreshold, openDuration, halfOpenProbes);
+        this.limiter = new InFlightLimiter(maxInFlight);
+        for (Operation op : Operation.values()) {
+            LatencyTracker[] bySize = new LatencyTracker[SIZE_CLASSES];
+            for (int c = 0; c < SIZE_CLASSES; c++) bySize[c] = new LatencyTracker(256, 20);
+            latencies.put(op, bySize);
+        }
+        this.maxTimeout = maxTimeout;
+        this.minTimeout = minTimeout.compareTo(maxTimeout) > 0 ? maxTimeout : minTimeout;
+        this.adaptiveTimeout = adaptiveTimeout;
+        this.timeoutPercentile = timeoutPercentile;
+        this.timeoutMultiplier = Math.max(1.0, timeoutMultiplier);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+
+        this.successes = meterRegistry.counter("ml.api.calls", "outcome", "success");
+        this.failures = meterRegistry.counter("ml.api.calls", "outcome", "failure");
+        this.timeouts = meterRegistry.counter("ml.api.calls", "outcome", "timeout");
+        this.rejected = meterRegistry.counter("ml.api.calls", "outcome", "circuit_open");
+        this.hedges = meterRegistry.counter("ml.api.hedges");
+        Gauge.builder("ml.api.circuit.state", breaker, b -> b.state().ordinal())
+                .description("0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+        Gauge.builder("ml.api.requests.in_flight", limiter, InFlightLimiter::inFlight).register(meterRegistry);
+        Gauge.builder("ml.api.requests.waiting", limiter, InFlightLimiter::waiting).register(meterRegistry);
+    }
+
+    public <T> Mono<T> execute(Operation op, Supplier<Mono<T>> call) {
+        return execute(op, 1, call);
+    }
+
+    /**
+     * @param items texts in the request; batches of very different sizes get separate timeouts
+     */
+    public <T> Mono<T> execute(Operation op, int items, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!breaker.tryAcquire()) {
+                rejected.increment();
+                return Mono.error(new CircuitOpenException());
+            }
+
+            LatencyTracker tracker = tracker(op, items);
+            // A probe cut short by a timeout learned before an outage could never close the circuit again
+            Duration timeout = breaker.state() == MlCircuitBreaker.State.HALF_OPEN ? maxTimeout : currentTimeout(op, items);
+            Mono<T> result = attempt(call, tracker, timeout);
+
+            long hedgeAfter = hedgeEnabled && op.hedgeable ? tracker.percentile(hedgePercentile) : -1;
+            if (hedgeAfter > 0) {
+                Mono<T> hedge = Mono.delay(Duration.ofNanos(hedgeAfter))
+                        .then(Mono.defer(() -> {
+                            hedges.increment();
+                            return attempt(call, tracker, timeout);
+                        }));
+                result = Mono.firstWithValue(result, hedge);
+            }
+
+            return result
+                    .doOnSuccess(value -> {
+                        breaker.onSuccess();
+                        successes.increment();
+                    })
+                    .doOnError(e -> {
+                        breaker.onFailure();
+                        (isTimeout(e) ? timeouts : failures).increment();
+                    })
+                    .doOnCancel(breaker::onCancel);
+        });
+    }
+
+    /**
+     * The timeout applied to the next call of this kind.
+     */
+    public Duration currentTimeout(Operation op) {
+        return currentTimeout(op, 1);
+    }
+
+    /**
+     * The timeout applied to the next call of this kind carrying {@code items} texts.
+     */
+    public Duration currentTimeout(Operation op, int items) {
+        if (!adaptiveTimeout) return maxTimeout;
+        long p = tracker(op, items).percentile(timeoutPercentile);
+        if (p < 0) return maxTimeout; // not enough samples yet
+        long nanos = (long) (p * timeoutMultiplier);
+        return Duration.ofNanos(Math.max(minTimeout.toNanos(), Math.min(maxTimeout.toNanos(), nanos)));
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("circuitState", breaker.state().name());
+        snapshot.put("consecutiveFailures", breaker.consecutiveFailures());
+        snapshot.put("inFlight", limiter.inFlight());
+        snapshot.put("waiting", limiter.waiting());
+        snapshot.put("successes", (long) successes.count());
+        snapshot.put("failures", (long) failures.count());
+        snapshot.put("timeouts", (long) timeouts.count());
+        snapshot.put("rejectedWhileOpen", (long) rejected.count());
+        snapshot.put("hedges", (long) hedges.count());
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation op : Operation.values()) {
+            operations.put(op.name().toLowerCase(), stats(op, 1));
+            if (!op.hedgeable) {
+                // Batches: one entry per size class, named by the largest batch it covers
+                Map<String, Object> bySize = new LinkedHashMap<>();
+                for (int c = 0, items = 1; c < SIZE_CLASSES; c++, items *= 4) {
+                    bySize.put(c == SIZE_CLASSES - 1 ? "larger" : "upTo" + items, stats(op, items));
+                }
+                operations.put(op.name().toLowerCase() + "_by_size", bySize);
+            }
+        }
+        snapshot.put("operations", operations);
+        return snapshot;
+    }
+
+    private Map<String, Object> stats(Operation op, int items) {
+        LatencyTracker tracker = tracker(op, items);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("p50Ms", millis(tracker.percentile(0.50)));
+        stats.put("p95Ms", millis(tracker.percentile(0.95)));
+        stats.put("p99Ms", millis(tracker.percentile(0.99)));
+        stats.put("timeoutMs", currentTimeout(op, items).toMillis());
+        return stats;
+    }
+
+    private LatencyTracker tracker(Operation op, int items) {
+        int sizeClass = 0;
+        for (long upTo = 1; upTo < items && sizeClass < SIZE_CLASSES - 1; upTo *= 4) sizeClass++;
+        return latencies.get(op)[sizeClass];
+    }
+
+    MlCircuitBreaker.State circuitState() {
+        return breaker.state();
+    }
+
+    private <T> Mono<T> attempt(Supplier<Mono<T>> call, LatencyTracker tracker, Duration timeout) {
+        // The clock starts once the limiter lets the call through, so queueing never counts as slowness
+        return limiter.limit(() -> {
+            long started = System.nanoTime();
+            return call.get()
+                    .timeout(timeout)
+                    .doOnSuccess(value -> tracker.record(System.nanoTime() - started))
+                    // Took at least this long; without the sample a slowed-down service would time out forever
+                    .doOnError(e -> {
+                        if (isTimeout(e)) tracker.record(timeout.toNanos());
+                    });
+        });
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        return e instanceof TimeoutException || e.getCause() instanceof TimeoutException;
+    }
+
+    private static Long millis(long nanos) {
+        return nanos < 0 ? null : Duration.ofNanos(nanos).toMillis();
+    }
+}
@@ -0,0 +1,80 @@
+package com.team021.financial_nudger.service.llm;
+
+import java.time.Duration;
+
+/**
+ * Consecutive-failure circuit breaker for the ML service.
+ * <ul>
+ *   <li>CLOSED: calls go through; {@code failureThreshold} failures in a row open the circuit.</li>
+ *   <li>OPEN: calls are refused immediately until {@code openDuration} has passed.</li>
+ *   <li>HALF_OPEN: up to {@code halfOpenProbes} calls probe the service; one success closes
+ *       the circuit, one failure opens it again.</li>
+ * </ul>
+ */
+final class MlCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int probesInFlight;
+
+    MlCircuitBreaker(int failureThreshold, Duration openDuration, int halfOpenProbes) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /**
+     * Whether a call may start now. Every permitted call must end in exactly one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onCancel()}.
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) return false;
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) return false;
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            probesInFlight = 0;
+        }
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            probesInFlight = 0;
+        }
+    }
+
+    synchronized void onCancel() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) probesInFlight--;
+    }
+
+    synchronized State state() {
+        // An expired OPEN reports as HALF_OPEN: the next call will be let through as a probe
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) return State.HALF_OPEN;
+        return state;
+    }
+
+    synchronized int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+}
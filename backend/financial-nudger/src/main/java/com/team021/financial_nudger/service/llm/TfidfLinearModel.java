@@ -0,0 +1,324 @@
+package com.team021.financial_nudger.service.llm;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The categorization model exported by {@code ml/export_model.py}: TF-IDF vocabulary and IDF
+ * weights plus logistic regression coefficients, held in primitive arrays.
+ * <p>
+ * {@link #predict} reproduces scikit-learn's {@code vectorizer.transform} followed by
+ * {@code predict}/{@code predict_proba} for one description: lowercasing, the default
+ * {@code \b\w\w+\b} tokenizer, word n-grams, raw (or sublinear) term counts times IDF,
+ * L2 normalization, then one-vs-rest sigmoids (or softmax) over the class scores.
+ * Terms are looked up straight from the description's characters in an open-addressing table,
+ * and per-call buffers are reused per thread, so scoring allocates next to nothing.
+ * Immutable and thread-safe once loaded.
+ */
+final class TfidfLinearModel {
+
+    private static final int MAGIC = 0x4E54464D; // "NTFM"
+    private static final int FORMAT_VERSION = 1;
+
+    record Prediction(String category, double confidence) {}
+
+    private final int ngramMin;
+    private final int ngramMax;
+    private final boolean lowercase;
+    private final boolean sublinearTf;
+    private final boolean l2Norm;
+    private final boolean multinomial;
+
+    /** All terms back to back; term f is termChars[termStart[f], termStart[f + 1]). */
+    private final char[] termChars;
+    private final int[] termStart;
+    /** Open addressing: feature index + 1, 0 for an empty slot. */
+    private final int[] table;
+    private final int tableMask;
+
+    private final double[] idf;
+    private final String[] classes;
+    private final int rows;
+    /** Feature-major: the weights of feature f for every score row sit at coef[f * rows, (f + 1) * rows). */
+    private final double[] coef;
+    private final double[] intercept;
+    private final String modelVersion;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    private TfidfLinearModel(int ngramMin, int ngramMax, boolean lowercase, boolean sublinearTf, boolean l2Norm,
+                             boolean multinomial, String[] terms, double[] idf, String[] classes, int rows,
+                             double[] coef, double[] intercept, String modelVersion) {
+        this.ngramMin = ngramMin;
+        this.ngramMax = ngramMax;
+        this.lowercase = lowercase;
+        this.sublinearTf = sublinearTf;
+        this.l2Norm = l2Norm;
+        this.multinomial = multinomial;
+        this.idf = idf;
+        this.classes = classes;
+        this.rows = rows;
+        this.coef = coef;
+        this.intercept = intercept;
+        this.modelVersion = modelVersion;
+
+        int totalChars = 0;
+        for (String term : terms) totalChars += term.length();
+        this.termChars = new char[totalChars];
+        this.termStart = new int[terms.length + 1];
+        int tableSize = Integer.highestOneBit(Math.max(4, terms.length * 2) - 1) << 1;
+        this.table = new int[tableSize];
+        this.tableMask = tableSize - 1;
+
+        int offset = 0;
+        for (int f = 0; f < terms.length; f++) {
+            String term = terms[f];
+            term.getChars(0, term.length(), termChars, offset);
+            termStart[f] = offset;
+            offset += term.length();
+            int slot = mix(term.hashCode()) & tableMask;
+            while (table[slot] != 0) slot = (slot + 1) & tableMask;
+            table[slot] = f + 1;
+        }
+        termStart[terms.length] = offset;
+    }
+
+    static TfidfLinearModel read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC) throw new IOException("Not an exported categorization model");
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) throw new IOException("Unsupported model format version " + version);
+
+        int ngramMin = in.readInt();
+        int ngramMax = in.readInt();
+        boolean lowercase = in.readBoolean();
+        boolean sublinearTf = in.readBoolean();
+        boolean l2Norm = in.readBoolean();
+        boolean multinomial = in.readBoolean();
+        if (ngramMin < 1 || ngramMax < ngramMin) throw new IOException("Bad n-gram range " + ngramMin + ".." + ngramMax);
+
+        int features = in.readInt();
+        String[] terms = new String[features];
+        for (int f = 0; f < features; f++) terms[f] = readString(in);
+        double[] idf = readDoubles(in, features);
+
+        int classCount = in.readInt();
+        String[] classes = new String[classCount];
+        for (int c = 0; c < classCount; c++) classes[c] = readString(in);
+
+        int rows = in.readInt();
+        if (rows != classCount && !(classCount == 2 && rows == 1)) {
+            throw new IOException(rows + " coefficient rows for " + classCount + " classes");
+        }
+        double[] rowMajor = readDoubles(in, rows * features);
+        double[] coef = new double[rowMajor.length];
+        for (int r = 0; r < rows; r++) {
+            for (int f = 0; f < features; f++) coef[f * rows + r] = rowMajor[r * features + f];
+        }
+        double[] intercept = readDoubles(in, rows);
+        String modelVersion = readString(in);
+
+        return new TfidfLinearModel(ngramMin, ngramMax, lowercase, sublinearTf, l2Norm, multinomial,
+                terms, idf, classes, rows, coef, intercept, modelVersion);
+    }
+
+    int featureCount() { return idf.length; }
+
+    int classCount() { return classes.length; }
+
+    String modelVersion() { return modelVersion; }
+
+    Prediction predict(CharSequence text) {
+        Scratch s = scratch.get();
+        int tokens = tokenize(text, s);
+
+        // Feature index of every n-gram that is in the vocabulary
+        int hits = 0;
+        for (int n = ngramMin; n <= Math.min(ngramMax, tokens); n++) {
+            for (int first = 0; first + n <= tokens; first++) {
+                int f = lookup(s, first, n);
+                if (f >= 0) s.hits = append(s.hits, hits++, f);
+            }
+        }
+
+        // Sorted so equal features are adjacent (term counts) and dot products run in column order like scipy
+        Arrays.sort(s.hits, 0, hits);
+        int nonZero = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < hits; ) {
+            int f = s.hits[i];
+            int tf = 0;
+            while (i < hits && s.hits[i] == f) {
+                tf++;
+                i++;
+            }
+            double w = (sublinearTf ? Math.log(tf) + 1 : tf) * idf[f];
+            s.hits[nonZero] = f;
+            s.weights = set(s.weights, nonZero++, w);
+            sumSquares += w * w;
+        }
+        if (l2Norm && sumSquares > 0) {
+            double norm = Math.sqrt(sumSquares);
+            for (int i = 0; i < nonZero; i++) s.weights[i] /= norm;
+        }
+
+        double[] scores = s.scores(rows);
+        for (int i = 0; i < nonZero; i++) {
+            int base = s.hits[i] * rows;
+            double w = s.weights[i];
+            for (int r = 0; r < rows; r++) scores[r] += w * coef[base + r];
+        }
+        for (int r = 0; r < rows; r++) scores[r] += intercept[r];
+
+        if (rows == 1) {
+            double p = sigmoid(scores[0]);
+            return scores[0] > 0 ? new Prediction(classes[1], p) : new Prediction(classes[0], 1 - p);
+        }
+
+        int best = 0;
+        for (int r = 1; r < rows; r++) {
+            if (scores[r] > scores[best]) best = r;
+        }
+        double total = 0;
+        double top;
+        if (multinomial) {
+            double max = scores[best];
+            for (int r = 0; r < rows; r++) total += Math.exp(scores[r] - max);
+            top = 1.0;
+        } else {
+            for (int r = 0; r < rows; r++) total += sigmoid(scores[r]);
+            top = sigmoid(scores[best]);
+        }
+        return new Prediction(classes[best], top / total);
+    }
+
+    /**
+     * Splits the (lowercased) text into runs of two or more word characters, as {@code (?u)\b\w\w+\b} does.
+     */
+    private int tokenize(CharSequence text, Scratch s) {
+        int length = text.length();
+        char[] chars = s.chars(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            chars[i] = lowercase ? Character.toLowerCase(c) : c;
+        }
+        int tokens = 0;
+        int i = 0;
+        while (i < length) {
+            if (!isWordChar(chars[i])) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isWordChar(chars[i])) i++;
+            if (i - start >= 2) {
+                s.starts = append(s.starts, tokens, start);
+                s.ends = append(s.ends, tokens++, i);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Feature index of the n tokens starting at {@code first} joined by single spaces, or -1.
+     */
+    private int lookup(Scratch s, int first, int n) {
+        int hash = 0;
+        int length = n - 1;
+        for (int t = first; t < first + n; t++) {
+            if (t > first) hash = 31 * hash + ' ';
+            for (int i = s.starts[t]; i < s.ends[t]; i++) hash = 31 * hash + s.chars[i];
+            length += s.ends[t] - s.starts[t];
+        }
+
+        int slot = mix(hash) & tableMask;
+        for (int entry; (entry = table[slot]) != 0; slot = (slot + 1) & tableMask) {
+            int f = entry - 1;
+            if (termStart[f + 1] - termStart[f] == length && matches(f, s, first, n)) return f;
+        }
+        return -1;
+    }
+
+    private boolean matches(int f, Scratch s, int first, int n) {
+        int k = termStart[f];
+        for (int t = first; t < first + n; t++) {
+            if (t > first && termChars[k++] != ' ') return false;
+            for (int i = s.starts[t]; i < s.ends[t]; i++) {
+                if (termChars[k++] != s.chars[i]) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Python's {@code \w}: Unicode letters and numbers plus the underscore.
+     */
+    private static boolean isWordChar(char c) {
+        if (c < 128) {
+            return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || c == '_';
+        }
+        if (Character.isLetterOrDigit(c)) return true;
+        int type = Character.getType(c);
+        return type == Character.LETTER_NUMBER || type == Character.OTHER_NUMBER;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static double[] readDoubles(DataInputStream in, int count) throws IOException {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) values[i] = in.readDouble();
+        return values;
+    }
+
+    private static int[] append(int[] array, int index, int value) {
+        if (index == array.length) array = Arrays.copyOf(array, array.length * 2);
+        array[index] = value;
+        return array;
+    }
+
+    private static double[] set(double[] array, int index, double value) {
+        if (index == array.length) array = Arrays.copyOf(array, array.length * 2);
+        array[index] = value;
+        return array;
+    }
+
+    /**
+     * Per-thread working buffers; they grow to the longest description seen and are then reused.
+     */
+    private static final class Scratch {
+        char[] chars = new char[128];
+        int[] starts = new int[32];
+        int[] ends = new int[32];
+        int[] hits = new int[64];
+        double[] weights = new double[64];
+        private double[] scores = new double[8];
+
+        char[] chars(int length) {
+            if (chars.length < length) chars = new char[Math.max(length, chars.length * 2)];
+            return chars;
+        }
+
+        double[] scores(int rows) {
+            if (scores.length < rows) scores = new double[rows];
+            Arrays.fill(scores, 0, rows, 0.0);
+            return scores;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.team021.financial_nudger.service.pdf;
+
+import java.util.List;
+
+import com.team021.financial_nudger.service.ingestion.StatementDateScanner;
+
+/**
+ * Fallback for layouts no parser recognises: every non-blank line is a row, as before parsers existed.
+ */
+final class GenericStatementParser implements StatementParser {
+
+    static final String ID = "generic";
+
+    @Override
+    public String id() { return ID; }
+
+    @Override
+    public List<String> signatures() { return List.of(); }
+
+    @Override
+    public StatementDateScanner.Format dateFormat() { return null; }
+
+    @Override
+    public RowAssembler newRowAssembler() {
+        return (text, rows) -> {
+            for (String raw : text.split("\r?\n")) {
+                String line = raw.trim();
+                if (!line.isEmpty()) rows.accept(line);
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.team021.financial_nudger.service.pdf;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import com.team021.financial_nudger.service.ingestion.StatementDateScanner;
+
+/**
+ * A tabular bank layout described by data: how to recognise it, the date format of its rows, the
+ * column heading that starts the table on each page, and phrases that end it (page footers, totals).
+ * <p>
+ * A row starts at a line that begins with a date (after an optional serial number). Lines that do not
+ * are narration wrapped onto the next line and are joined onto the open row, up to
+ * {@code maxNarrationLines}; anything before the first row of a page is page header.
+ */
+public final class LayoutStatementParser implements StatementParser {
+
+    private final String id;
+    private final List<String> signatures;
+    private final StatementDateScanner.Format dateFormat;
+    private final String tableHeading;
+    private final List<String> tableEnds;
+    private final int maxNarrationLines;
+
+    public LayoutStatementParser(String id, List<String> signatures, StatementDateScanner.Format dateFormat,
+                                 String tableHeading, List<String> tableEnds, int maxNarrationLines) {
+        this.id = id;
+        this.signatures = List.copyOf(signatures);
+        this.dateFormat = dateFormat;
+        this.tableHeading = tableHeading == null ? null : tableHeading.toLowerCase(Locale.ROOT);
+        this.tableEnds = tableEnds.stream().map(s -> s.toLowerCase(Locale.ROOT)).toList();
+        this.maxNarrationLines = Math.max(0, maxNarrationLines);
+    }
+
+    @Override
+    public String id() { return id; }
+
+    @Override
+    public List<String> signatures() { return signatures; }
+
+    @Override
+    public StatementDateScanner.Format dateFormat() { return dateFormat; }
+
+    @Override
+    public RowAssembler newRowAssembler() {
+        return new Assembler();
+    }
+
+    private final class Assembler implements RowAssembler {
+        private final StringBuilder row = new StringBuilder();
+        private int narrationLines;
+
+        @Override
+        public void page(String text, Consumer<String> rows) {
+            String[] lines = text.split("\r?\n");
+            int start = 0;
+            if (tableHeading != null) {
+                for (int i = 0; i < lines.length; i++) {
+                    if (lines[i].toLowerCase(Locale.ROOT).contains(tableHeading)) {
+                        start = i + 1;
+                        break;
+                    }
+                }
+            }
+
+            for (int i = start; i < lines.length; i++) {
+                String line = lines[i].trim();
+                if (line.isEmpty()) continue;
+                if (endsTable(line)) {
+                    // Rows do not continue past a page footer
+                    flush(rows);
+                    break;
+                }
+                if (StatementDateScanner.startsWithDate(line)) {
+                    flush(rows);
+                    row.append(line);
+                } else if (!row.isEmpty() && narrationLines < maxNarrationLines) {
+                    row.append(' ').append(line);
+                    narrationLines++;
+                }
+            }
+        }
+
+        @Override
+        public void finish(Consumer<String> rows) {
+            flush(rows);
+        }
+
+        private boolean endsTable(String line) {
+            if (tableEnds.isEmpty()) return false;
+            String lower = line.toLowerCase(Locale.ROOT);
+            for (String end : tableEnds) {
+                if (lower.startsWith(end)) return true;
+            }
+            return false;
+        }
+
+        private void flush(Consumer<String> rows) {
+            if (!row.isEmpty()) rows.accept(row.toString());
+            row.setLength(0);
+            narrationLines = 0;
+        }
+    }
+}
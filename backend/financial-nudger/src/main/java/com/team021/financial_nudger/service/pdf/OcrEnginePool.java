@@ -0,0 +1,74 @@
+package com.team021.financial_nudger.service.pdf;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sourceforge.tess4j.Tesseract;
+
+/**
+ * Bounded pool of Tesseract engines used for page-level OCR.
+ * Tesseract instances are not thread-safe, so every worker thread owns exactly one
+ * engine for its whole lifetime and pages are OCRed in parallel without sharing it.
+ * When the work queue is full, submitters block until a slot frees up.
+ */
+class OcrEnginePool implements AutoCloseable {
+
+    @FunctionalInterface
+    interface OcrTask<T> {
+        T run(Tesseract engine) throws Exception;
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<Tesseract> engine;
+    private final int size;
+
+    OcrEnginePool(String datapath, String language, int size, int queueDepth) {
+        this.size = size;
+        this.engine = ThreadLocal.withInitial(() -> {
+            Tesseract t = new Tesseract();
+            t.setDatapath(datapath);
+            t.setLanguage(language);
+            return t;
+        });
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                size, size,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                r -> {
+                    Thread t = new Thread(r, "ocr-worker-" + threadCounter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                (task, pool) -> {
+                    // Backpressure: park the submitter instead of dropping pages
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("OCR pool is shut down");
+                    }
+                    try {
+                        pool.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for OCR queue", e);
+                    }
+                });
+    }
+
+    <T> Future<T> submit(OcrTask<T> task) {
+        return executor.submit(() -> task.run(engine.get()));
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
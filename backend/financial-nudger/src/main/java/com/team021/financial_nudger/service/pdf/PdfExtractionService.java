@@ -3,9 +3,16 @@ package com.team021.financial_nudger.service.pdf;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.rendering.PDFRenderer;
 import org.apache.pdfbox.text.PDFTextStripper;
@@ -13,31 +20,51 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.team021.financial_nudger.exception.FileProcessingException;
+
+import jakarta.annotation.PreDestroy;
 import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
 
 /**
  * Service responsible for extracting raw text from a PDF using PDFBox.
+ * Documents are opened file-backed with a bounded heap budget (see {@code pdf.memory.max-main-bytes}).
  * If PDFBox fails (scanned/corrupted PDF), falls back to OCR via Tesseract.
+ * OCR runs page-parallel on a bounded pool of Tesseract engines (one per worker thread).
  */
 @Service
 public class PdfExtractionService {
 
-    private final Tesseract tesseract;
+    private static final int[] OCR_DPIS = {150, 200, 300};
+    /** Bump whenever a change here alters the text produced for the same PDF. */
+    private static final int TEXT_FORMAT_VERSION = 2;
+
+    private final OcrEnginePool ocrPool;
     private final boolean ocrEnabled;
+    private final int maxOcrPages;
+    private final long maxMainMemoryBytes;
+    private final Path tempDir;
+    private final boolean tableExtraction;
 
-    public PdfExtractionService(@Value("${tesseract.datapath:}") String configuredPath) {
-        Tesseract temp = null;
+    public PdfExtractionService(
+            @Value("${tesseract.datapath:}") String configuredPath,
+            @Value("${tesseract.ocr.pool-size:0}") int poolSize,
+            @Value("${tesseract.ocr.queue-depth:16}") int queueDepth,
+            @Value("${tesseract.ocr.max-pages:5}") int maxOcrPages,
+            @Value("${pdf.memory.max-main-bytes:8388608}") long maxMainMemoryBytes,
+            @Value("${pdf.temp-dir:${java.io.tmpdir}}") String tempDir,
+            @Value("${pdf.table-extraction.enabled:true}") boolean tableExtraction
+    ) {
+        OcrEnginePool temp = null;
         boolean enabled = false;
         String resolved = resolveTessdataPath(configuredPath);
         try {
             if (resolved != null) {
-                temp = new Tesseract();
-                temp.setDatapath(resolved);
-                temp.setLanguage("eng");
+                int engines = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+                temp = new OcrEnginePool(resolved, "eng", engines, Math.max(1, queueDepth));
                 enabled = true;
                 File dp = new File(resolved);
-                System.out.println("✅ Tesseract OCR initialized. Datapath exists=" + dp.exists() + " → " + resolved);
+                System.out.println("✅ Tesseract OCR initialized with " + engines + " engine(s). Datapath exists=" + dp.exists() + " → " + resolved);
                 if (!new File(dp, "eng.traineddata").exists()) {
                     System.out.println("⚠️  eng.traineddata missing. Place it under: " + dp.getAbsolutePath());
                 }
@@ -47,8 +74,27 @@ public class PdfExtractionService {
         } catch (Exception e) {
             System.out.println("⚠️  Tesseract OCR not available (install from https://github.com/UB-Mannheim/tesseract/wiki): " + e.getMessage());
         }
-        this.tesseract = temp;
+        this.ocrPool = temp;
         this.ocrEnabled = enabled;
+        this.maxOcrPages = Math.max(1, maxOcrPages);
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.tempDir = Path.of(tempDir);
+        this.tableExtraction = tableExtraction;
+    }
+
+    /**
+     * Names the text this extractor produces (version and table mode), so text saved by another
+     * version or configuration is never replayed as if it came from this one.
+     */
+    public String textFormat() {
+        return "v" + TEXT_FORMAT_VERSION + (tableExtraction ? "-table" : "-plain");
+    }
+
+    @PreDestroy
+    void shutdownOcrPool() {
+        if (ocrPool != null) {
+            ocrPool.close();
+        }
     }
 
     private String resolveTessdataPath(String configured) {
@@ -86,98 +132,244 @@ public class PdfExtractionService {
     }
 
     /**
-     * Attempts to extract text from a PDF.
-     * First tries PDFBox; if that fails or returns empty, uses OCR via Tesseract.
+     * Attempts to extract text from an uploaded PDF.
+     * The upload is spilled to a temp file once so PDFBox can read it from disk
+     * instead of buffering the whole statement on the heap.
      */
     public String extractTextFromPdf(MultipartFile pdfFile) {
-        try (PDDocument document = PDDocument.load(pdfFile.getInputStream())) {
+        Path spilled = spillToTempFile(pdfFile);
+        try {
+            return extractTextFromPdf(spilled);
+        } finally {
+            deleteQuietly(spilled);
+        }
+    }
+
+    /**
+     * Attempts to extract text from a PDF on disk.
+     * First tries PDFBox; if that fails or returns empty, uses OCR via Tesseract.
+     * Both attempts share the same file-backed document handle.
+     */
+    public String extractTextFromPdf(Path pdfPath) {
+        StringBuilder text = new StringBuilder();
+        try {
+            extractPages(pdfPath, (page, pageText) -> text.append(pageText).append("\n"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("❌ Text extraction interrupted");
+            return "";
+        }
+        return text.toString();
+    }
 
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(document);
+    /**
+     * Streams a PDF's text to {@code sink} one page at a time, in page order, so callers can start
+     * working on early pages while later ones are still being read. Pages without text are skipped.
+     * With {@code pdf.table-extraction.enabled}, transaction tables are rebuilt from glyph positions
+     * (see {@link StatementTableStripper}) rather than read in stream order.
+     * Falls back to OCR (same document handle) when the text layer yields nothing at all.
+     * Extraction failures are logged and end the stream early; an exception thrown by the sink is
+     * rethrown as is, so a failing consumer stops extraction instead of being mistaken for a bad page.
+     *
+     * @return whether every page of the document was read; false when extraction stopped early,
+     *         OCR skipped or lost pages, or the document could not be opened
+     * @throws InterruptedException if the sink blocks and the calling thread is interrupted
+     */
+    public boolean extractPages(Path pdfPath, PageSink sink) throws InterruptedException {
+        PageSink guarded = (index, text) -> {
+            try {
+                sink.accept(index, text);
+            } catch (RuntimeException e) {
+                throw new SinkFailure(e);
+            }
+        };
+        try (PDDocument document = PDDocument.load(pdfPath.toFile(), memoryUsageSetting())) {
 
-            // If PDFBox extracted text, use it
-            if (text != null && !text.trim().isEmpty()) {
-                return text;
+            boolean sawText = false;
+            try {
+                PDFTextStripper stripper = tableExtraction ? new StatementTableStripper() : new PDFTextStripper();
+                int pageCount = document.getNumberOfPages();
+                for (int page = 1; page <= pageCount; page++) {
+                    stripper.setStartPage(page);
+                    stripper.setEndPage(page);
+                    String text = stripper.getText(document);
+                    if (text != null && !text.trim().isEmpty()) {
+                        sawText = true;
+                        guarded.accept(page - 1, text);
+                    }
+                }
+                if (sawText) return true;
+                System.out.println("⚠️ PDFBox returned no text. Attempting OCR fallback...");
+            } catch (SinkFailure e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                if (sawText) {
+                    System.out.println("⚠️ PDFBox failed part-way through the document: " + e.getMessage());
+                    return false;
+                }
+                System.out.println("⚠️ PDFBox failed: " + e.getMessage() + ". Attempting OCR fallback...");
             }
 
             // Fallback to OCR for scanned PDFs
-            System.out.println("⚠️ PDFBox returned no text. Attempting OCR fallback...");
             try {
-                return extractTextViaOcr(document);
+                return extractTextViaOcr(document, guarded);
+            } catch (InterruptedException | SinkFailure e) {
+                throw e;
             } catch (Throwable t) {
                 System.out.println("❌ OCR crashed: " + t);
-                return "";
+                return false;
             }
 
-        } catch (Exception e) {
-            System.out.println(
-                    "⚠️ PDFBox failed: " + e.getMessage() + ". Attempting OCR fallback..."
-            );
-            try (PDDocument document = PDDocument.load(pdfFile.getInputStream())) {
-                try {
-                    return extractTextViaOcr(document);
-                } catch (Throwable t) {
-                    System.out.println("❌ OCR crashed: " + t);
-                    return "";
-                }
-            } catch (IOException ocrError) {
-                System.out.println("⚠️ OCR also failed: " + ocrError.getMessage());
-                return "";
+        } catch (SinkFailure e) {
+            throw e.getCause();
+        } catch (IOException e) {
+            System.out.println("⚠️ PDFBox could not open document: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Carries an exception thrown by the caller's sink past the catch-alls around PDFBox and OCR.
+     */
+    private static final class SinkFailure extends RuntimeException {
+        SinkFailure(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+
+    /**
+     * Receives extracted page text; may block to apply backpressure.
+     */
+    @FunctionalInterface
+    public interface PageSink {
+        void accept(int pageIndex, String text) throws InterruptedException;
+    }
+
+    /**
+     * Heap budget for a single document: PDFBox keeps up to {@code maxMainMemoryBytes}
+     * of scratch buffers in memory and pages the rest out to temp files.
+     */
+    private MemoryUsageSetting memoryUsageSetting() {
+        MemoryUsageSetting setting = maxMainMemoryBytes > 0
+                ? MemoryUsageSetting.setupMixed(maxMainMemoryBytes)
+                : MemoryUsageSetting.setupTempFileOnly();
+        return setting.setTempDir(tempDir.toFile());
+    }
+
+    private Path spillToTempFile(MultipartFile pdfFile) {
+        Path target = null;
+        try {
+            Files.createDirectories(tempDir);
+            target = Files.createTempFile(tempDir, "statement-", ".pdf");
+            try (InputStream in = pdfFile.getInputStream()) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
             }
+            return target;
+        } catch (IOException e) {
+            deleteQuietly(target);
+            throw new FileProcessingException("Could not buffer uploaded PDF to disk", e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not delete temp file " + path + ": " + e.getMessage());
         }
     }
 
     /**
      * Extract text from PDF pages using OCR (Tesseract).
-     * Converts each PDF page to an image and runs OCR on it.
-     * Returns empty string if OCR is not available.
+     * Each page is rendered and OCRed on its own pool worker; results are handed to the sink
+     * in page order as they complete. Emits nothing if OCR is not available.
+     *
+     * @return whether every page was OCRed (none beyond {@code tesseract.ocr.max-pages}, none failed)
      */
-    private String extractTextViaOcr(PDDocument document) {
-        if (!ocrEnabled || tesseract == null) {
+    private boolean extractTextViaOcr(PDDocument document, PageSink sink) throws InterruptedException {
+        if (!ocrEnabled || ocrPool == null) {
             System.out.println("⚠️  OCR is not available. Install Tesseract-OCR from: https://github.com/UB-Mannheim/tesseract/wiki");
-            return "";
+            return false;
         }
 
-        StringBuilder fullText = new StringBuilder();
+        List<Future<String>> pageResults = new ArrayList<>();
         try {
             PDFRenderer renderer = new PDFRenderer(document);
             int pageCount = document.getNumberOfPages();
+            int pages = Math.min(pageCount, maxOcrPages);
 
-            System.out.println("🔍 Running OCR on " + pageCount + " page(s)...");
-
-            int pages = Math.min(pageCount, 5);
-            int[] dpis = new int[] {150, 200, 300};
+            System.out.println("🔍 Running OCR on " + pages + " of " + pageCount + " page(s) with " + ocrPool.size() + " engine(s)...");
+            long started = System.nanoTime();
 
             for (int i = 0; i < pages; i++) {
-                String pageBest = "";
-                for (int dpi : dpis) {
-                    try {
-                        BufferedImage image = renderer.renderImageWithDPI(i, dpi);
-                        String text = tesseract.doOCR(image);
-                        if (text != null && text.trim().length() > pageBest.length()) {
-                            pageBest = text.trim();
-                        }
-                        if (pageBest.length() > 20) break; // good enough
-                    } catch (TesseractException te) {
-                        System.out.println("❌ OCR error on page " + i + " @" + dpi + "dpi: " + te.getMessage());
+                final int page = i;
+                pageResults.add(ocrPool.submit(engine -> ocrPage(document, renderer, engine, page)));
+            }
+
+            long characters = 0;
+            boolean complete = pages == pageCount;
+            for (int i = 0; i < pageResults.size(); i++) {
+                try {
+                    String text = pageResults.get(i).get();
+                    if (!text.isEmpty()) {
+                        characters += text.length();
+                        sink.accept(i, text);
                     }
+                } catch (ExecutionException e) {
+                    complete = false;
+                    System.out.println("❌ OCR failed on page " + i + ": " + e.getCause());
                 }
-                fullText.append(pageBest).append("\n");
             }
 
-            String result = fullText.toString().trim();
-            System.out.println("✅ OCR extracted " + result.length() + " characters");
-            return result;
+            double seconds = (System.nanoTime() - started) / 1_000_000_000d;
+            System.out.printf("✅ OCR extracted %d characters from %d page(s) in %.2fs (%.2f pages/s)%n",
+                    characters, pages, seconds, seconds > 0 ? pages / seconds : pages);
+            return complete;
 
-        } catch (IOException e) {
-            System.out.println("❌ OCR rendering failed: " + e.getMessage());
-            return "";
+        } catch (InterruptedException e) {
+            pageResults.forEach(f -> f.cancel(true));
+            System.out.println("❌ OCR interrupted");
+            throw e;
+        } catch (SinkFailure e) {
+            pageResults.forEach(f -> f.cancel(true));
+            throw e;
         } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
             System.out.println("❌ Tesseract native library issue: " + e.getMessage());
-            return "";
         } catch (Throwable t) {
+            pageResults.forEach(f -> f.cancel(true));
             System.out.println("❌ OCR crashed: " + t);
-            return "";
         }
+        return false;
+    }
+
+    /**
+     * Renders one page at increasing DPIs until the OCR output looks usable.
+     * PDFBox rendering is not thread-safe on a shared document, so only the render step
+     * is serialized; the expensive OCR call runs concurrently on the worker's own engine.
+     */
+    private String ocrPage(PDDocument document, PDFRenderer renderer, Tesseract engine, int page) throws IOException {
+        String pageBest = "";
+        for (int dpi : OCR_DPIS) {
+            try {
+                BufferedImage image;
+                synchronized (document) {
+                    image = renderer.renderImageWithDPI(page, dpi);
+                }
+                String text = engine.doOCR(image);
+                if (text != null && text.trim().length() > pageBest.length()) {
+                    pageBest = text.trim();
+                }
+                if (pageBest.length() > 20) break; // good enough
+            } catch (TesseractException te) {
+                System.out.println("❌ OCR error on page " + page + " @" + dpi + "dpi: " + te.getMessage());
+            }
+        }
+        return pageBest;
     }
 }
@@ -0,0 +1,114 @@
+package com.team021.financial_nudger.service.pdf;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho-Corasick automaton over every parser's signatures: one pass over the page text reports which
+ * signatures of which parser occur, however many parsers are registered. Text is lowercased and its
+ * whitespace runs collapsed to one space while scanning. Immutable once built.
+ */
+final class SignatureMatcher {
+
+    private final List<Map<Character, Integer>> next = new ArrayList<>();
+    private final List<int[]> outputs = new ArrayList<>();
+    private int[] fail;
+    private final int owners;
+
+    /**
+     * @param signatures signatures per owner (parser index); each owner may have at most 64
+     */
+    SignatureMatcher(List<List<String>> signatures) {
+        this.owners = signatures.size();
+        newState();
+        // outputs per state: pairs of (owner, signature bit index)
+        for (int owner = 0; owner < signatures.size(); owner++) {
+            List<String> list = signatures.get(owner);
+            if (list.size() > 64) throw new IllegalArgumentException("At most 64 signatures per parser");
+            for (int bit = 0; bit < list.size(); bit++) {
+                int state = 0;
+                for (char c : normalize(list.get(bit)).toCharArray()) {
+                    Integer to = next.get(state).get(c);
+                    if (to == null) {
+                        to = newState();
+                        next.get(state).put(c, to);
+                    }
+                    state = to;
+                }
+                outputs.set(state, append(outputs.get(state), owner, bit));
+            }
+        }
+        buildFailureLinks();
+    }
+
+    /**
+     * Bit {@code b} of element {@code o} is set when signature {@code b} of owner {@code o} occurs in the text.
+     */
+    long[] match(CharSequence text) {
+        long[] found = new long[owners];
+        int state = 0;
+        boolean lastWasSpace = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (lastWasSpace) continue;
+                c = ' ';
+                lastWasSpace = true;
+            } else {
+                c = Character.toLowerCase(c);
+                lastWasSpace = false;
+            }
+            Integer to;
+            while ((to = next.get(state).get(c)) == null && state != 0) state = fail[state];
+            state = to == null ? 0 : to;
+            int[] out = outputs.get(state);
+            for (int k = 0; k < out.length; k += 2) found[out[k]] |= 1L << out[k + 1];
+        }
+        return found;
+    }
+
+    private void buildFailureLinks() {
+        fail = new int[next.size()];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : next.get(0).values()) queue.add(child);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> edge : next.get(state).entrySet()) {
+                int child = edge.getValue();
+                int f = fail[state];
+                Integer to;
+                while ((to = next.get(f).get(edge.getKey())) == null && f != 0) f = fail[f];
+                fail[child] = to == null || to == child ? 0 : to;
+                // A match ending here also ends every suffix match
+                int[] inherited = outputs.get(fail[child]);
+                if (inherited.length > 0) {
+                    int[] merged = Arrays.copyOf(outputs.get(child), outputs.get(child).length + inherited.length);
+                    System.arraycopy(inherited, 0, merged, outputs.get(child).length, inherited.length);
+                    outputs.set(child, merged);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    private int newState() {
+        next.add(new HashMap<>());
+        outputs.add(new int[0]);
+        return next.size() - 1;
+    }
+
+    private static int[] append(int[] out, int owner, int bit) {
+        int[] grown = Arrays.copyOf(out, out.length + 2);
+        grown[out.length] = owner;
+        grown[out.length + 1] = bit;
+        return grown;
+    }
+
+    static String normalize(String signature) {
+        return signature.strip().toLowerCase().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,38 @@
+package com.team021.financial_nudger.service.pdf;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.team021.financial_nudger.service.ingestion.StatementDateScanner;
+
+/**
+ * Turns the extracted text of one bank's statement layout into transaction rows, one string per
+ * row, ready for the statement line path (filter, amount and date scanners, classification).
+ * <p>
+ * Implementations are Spring beans picked up by {@link StatementParserRegistry}, which chooses one per
+ * file from the first page's text using {@link #signatures()}.
+ */
+public interface StatementParser {
+
+    /** Stable identifier, stored on {@code IngestedFile.parserId}. */
+    String id();
+
+    /**
+     * Lowercase phrases that all appear on the first page of this layout (bank name, column headings).
+     * Whitespace in the page is collapsed to single spaces before matching.
+     */
+    List<String> signatures();
+
+    /** Date format of the layout's rows, tried first by the date scanner; null when unknown. */
+    StatementDateScanner.Format dateFormat();
+
+    /** A fresh assembler for one file; pages are fed to it in order from a single thread. */
+    RowAssembler newRowAssembler();
+
+    interface RowAssembler {
+        void page(String text, Consumer<String> rows);
+
+        /** Emits whatever row is still open after the last page. */
+        default void finish(Consumer<String> rows) {}
+    }
+}
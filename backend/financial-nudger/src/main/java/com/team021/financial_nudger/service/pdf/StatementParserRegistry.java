@@ -0,0 +1,56 @@
+package com.team021.financial_nudger.service.pdf;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * All {@link StatementParser} beans, and the choice of one for a statement. Detection runs the
+ * first page through one {@link SignatureMatcher} pass; a parser qualifies when every one of its
+ * signatures occurs, and the most specific qualifying parser (most signatures) wins.
+ * Statements nobody recognises go to the generic one-row-per-line parser.
+ */
+@Component
+public class StatementParserRegistry {
+
+    private final List<StatementParser> parsers;
+    private final Map<String, StatementParser> byId = new HashMap<>();
+    private final SignatureMatcher matcher;
+    private final StatementParser generic = new GenericStatementParser();
+
+    public StatementParserRegistry(List<StatementParser> parsers) {
+        this.parsers = List.copyOf(parsers);
+        byId.put(generic.id(), generic);
+        for (StatementParser parser : this.parsers) {
+            if (parser.signatures().isEmpty()) {
+                throw new IllegalStateException("Statement parser " + parser.id() + " has no signatures");
+            }
+            if (byId.putIfAbsent(parser.id(), parser) != null) {
+                throw new IllegalStateException("Two statement parsers share the id " + parser.id());
+            }
+        }
+        this.matcher = new SignatureMatcher(this.parsers.stream().map(StatementParser::signatures).toList());
+        System.out.println("🏦 " + this.parsers.size() + " statement layout(s) registered");
+    }
+
+    public StatementParser detect(CharSequence firstPage) {
+        long[] found = matcher.match(firstPage);
+        StatementParser best = null;
+        for (int i = 0; i < parsers.size(); i++) {
+            StatementParser parser = parsers.get(i);
+            int count = parser.signatures().size();
+            long all = count == 64 ? -1L : (1L << count) - 1;
+            if (found[i] == all && (best == null || count > best.signatures().size())) best = parser;
+        }
+        return best != null ? best : generic;
+    }
+
+    /**
+     * The parser recorded for a file earlier; the generic one when the id is unknown (e.g. a layout removed since).
+     */
+    public StatementParser byId(String id) {
+        return id == null ? null : byId.getOrDefault(id, generic);
+    }
+}
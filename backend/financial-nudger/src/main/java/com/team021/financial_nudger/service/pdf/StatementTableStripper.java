@@ -0,0 +1,623 @@
+package com.team021.financial_nudger.service.pdf;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import com.team021.financial_nudger.service.ingestion.StatementAmountScanner;
+import com.team021.financial_nudger.service.ingestion.StatementDateScanner;
+
+/**
+ * Text stripper that rebuilds a statement's transaction table from glyph positions instead of
+ * flattening the page into reading-order text.
+ * <p>
+ * Per page: glyphs are grouped into visual rows by baseline and split into cells at wide horizontal
+ * gaps. Rows that start with a date are table rows; an x-coordinate histogram of where their cells
+ * sit gives the columns (runs of occupied x, separated by empty gutters), so right-aligned amounts
+ * and adjacent debit/credit/balance columns stay apart. Column roles come from the heading rows
+ * above the table, or from the cell contents when there are none. Narration wrapped onto following
+ * rows is joined back onto its transaction, also when it continues at the top of the next page: the last
+ * row of a page stays open until the next page shows whether wrapped narration follows, so it is written
+ * out with that page's text, after its header and column headings (or at the end of the document).
+ * <p>
+ * Each transaction becomes a {@link TableRow} (also handed to the row listener) and is written as
+ * one line in the form the statement line path reads: {@code date narration amount (Dr|Cr) balance}.
+ * Rows outside the table (headers, summaries, footers) are written as plain text, so layout detection
+ * and the line filter see them as before. Glyph, row, cell and column buffers are reused from page to
+ * page and only grow to the largest page seen; cell text is read in place and only copied into strings
+ * for the rows written out. Not thread-safe; use one instance per document, with pages in order.
+ */
+public class StatementTableStripper extends PDFTextStripper {
+
+    /** One transaction; blank columns are null. */
+    public record TableRow(String date, String narration, String debit, String credit, String balance) {}
+
+    private static final int DATE = 0;
+    private static final int NARRATION = 1;
+    private static final int DEBIT = 2;
+    private static final int CREDIT = 3;
+    private static final int BALANCE = 4;
+    private static final int ROLES = 5;
+
+    /** Horizontal gap, in glyph heights, that separates cells; smaller gaps within a cell are word spaces. */
+    private static final float CELL_GAP = 1.0f;
+    private static final float WORD_GAP = 0.15f;
+    /** Glyphs whose baselines differ by less than this share a row, in glyph heights. */
+    private static final float ROW_TOLERANCE = 0.5f;
+    /** A wrapped narration line sits at most this far below the row before it, in glyph heights. */
+    private static final float CONTINUATION_GAP = 2.2f;
+    private static final float BIN_WIDTH = 2f;
+    private static final int HEADING_ROWS = 3;
+
+    private Consumer<TableRow> rowListener = row -> {};
+
+    // Glyphs of the current page; glyph i's text is glyphText[glyphStart[i], glyphStart[i + 1])
+    private int glyphs;
+    private float[] gx = new float[1024];
+    private float[] gy = new float[1024];
+    private float[] gw = new float[1024];
+    private float[] gh = new float[1024];
+    private int[] glyphStart = new int[1025];
+    private final StringBuilder glyphText = new StringBuilder();
+    // (position key << 32 | glyph index), sorted into rows and then by x within each row
+    private long[] order = new long[1024];
+
+    // Row r holds order[rowFirst[r], rowFirst[r + 1]) and cells [rowCell[r], rowCell[r + 1])
+    private int rows;
+    private int[] rowFirst = new int[129];
+    private int[] rowCell = new int[129];
+    private boolean[] tableRow = new boolean[128];
+
+    private int cells;
+    private float[] cellX0 = new float[512];
+    private float[] cellX1 = new float[512];
+    private int[] cellColumn = new int[512];
+    private boolean[] cellAmount = new boolean[512];
+    private int[] cellStart = new int[513];
+    private final StringBuilder cellText = new StringBuilder();
+    private final CellView cellView = new CellView();
+
+    private int columns;
+    private float[] columnX0 = new float[32];
+    private float[] columnX1 = new float[32];
+    private int[] columnRole = new int[32];
+    private final int[] roleColumn = new int[ROLES];
+    /** False when the table has a single amount column, whose direction the line path works out. */
+    private boolean directional;
+    private int[] coverage = new int[512];
+
+    private final StatementAmountScanner.Amounts amounts = new StatementAmountScanner.Amounts();
+    private final String[] parts = new String[ROLES];
+    private final StringBuilder narration = new StringBuilder();
+    private final StringBuilder line = new StringBuilder();
+    private boolean rowOpen;
+
+    public StatementTableStripper() throws IOException {
+        super();
+    }
+
+    public void setRowListener(Consumer<TableRow> rowListener) {
+        this.rowListener = rowListener;
+    }
+
+    @Override
+    protected void startPage(PDPage page) throws IOException {
+        glyphs = 0;
+        glyphText.setLength(0);
+        super.startPage(page);
+    }
+
+    @Override
+    protected void endDocument(PDDocument document) throws IOException {
+        // Nothing can continue a row still open after the last page
+        if (getEndPage() >= document.getNumberOfPages()) flushRow();
+        super.endDocument(document);
+    }
+
+    @Override
+    protected void processTextPosition(TextPosition text) {
+        String unicode = text.getUnicode();
+        if (unicode == null || unicode.isEmpty()) return;
+        float x = text.getXDirAdj();
+        float y = text.getYDirAdj();
+        float w = text.getWidthDirAdj();
+        float h = Math.max(text.getHeightDir(), 1f);
+
+        // Bold is often faked by drawing the same glyph twice, slightly offset
+        if (glyphs > 0) {
+            int p = glyphs - 1;
+            if (Math.abs(gx[p] - x) < w * 0.5f && Math.abs(gy[p] - y) < h * 0.5f
+                    && glyphText.length() - glyphStart[p] == unicode.length()
+                    && glyphText.indexOf(unicode, glyphStart[p]) == glyphStart[p]) {
+                return;
+            }
+        }
+        if (glyphs == gx.length) growGlyphs();
+        gx[glyphs] = x;
+        gy[glyphs] = y;
+        gw[glyphs] = w;
+        gh[glyphs] = h;
+        glyphText.append(unicode);
+        glyphs++;
+        glyphStart[glyphs] = glyphText.length();
+    }
+
+    @Override
+    protected void writePage() throws IOException {
+        if (glyphs == 0) return;
+        groupRows();
+        splitCells();
+        findColumns();
+        assignRoles();
+        emit();
+    }
+
+    private void groupRows() {
+        for (int i = 0; i < glyphs; i++) order[i] = key(gy[i], i);
+        Arrays.sort(order, 0, glyphs);
+
+        rows = 0;
+        int i = 0;
+        while (i < glyphs) {
+            int first = i;
+            int g = index(order[i]);
+            float baseline = gy[g];
+            float tolerance = gh[g] * ROW_TOLERANCE;
+            i++;
+            while (i < glyphs && gy[index(order[i])] - baseline <= tolerance) i++;
+
+            for (int k = first; k < i; k++) {
+                int glyph = index(order[k]);
+                order[k] = key(gx[glyph], glyph);
+            }
+            Arrays.sort(order, first, i);
+            if (rows + 1 == rowFirst.length) growRows();
+            rowFirst[rows++] = first;
+        }
+        rowFirst[rows] = glyphs;
+    }
+
+    private void splitCells() {
+        cells = 0;
+        cellText.setLength(0);
+        for (int r = 0; r < rows; r++) {
+            rowCell[r] = cells;
+            float x0 = 0;
+            float x1 = 0;
+            for (int k = rowFirst[r]; k < rowFirst[r + 1]; k++) {
+                int g = index(order[k]);
+                if (k == rowFirst[r]) {
+                    x0 = gx[g];
+                } else {
+                    int prev = index(order[k - 1]);
+                    float gap = gx[g] - x1;
+                    float em = Math.max(gh[g], gh[prev]);
+                    if (gap > em * CELL_GAP) {
+                        closeCell(x0, x1);
+                        x0 = gx[g];
+                    } else if (gap > em * WORD_GAP && cellText.length() > cellStart[cells]
+                            && cellText.charAt(cellText.length() - 1) != ' ') {
+                        cellText.append(' ');
+                    }
+                }
+                cellText.append(glyphText, glyphStart[g], glyphStart[g + 1]);
+                x1 = Math.max(x1, gx[g] + gw[g]);
+            }
+            closeCell(x0, x1);
+            tableRow[r] = startsWithDate(r);
+        }
+        rowCell[rows] = cells;
+    }
+
+    private void closeCell(float x0, float x1) {
+        int start = cellStart[cells];
+        // Trimmed in place, so a cell is exactly cellText[cellStart[c], cellStart[c + 1])
+        int end = cellText.length();
+        while (end > start && Character.isWhitespace(cellText.charAt(end - 1))) end--;
+        cellText.setLength(end);
+        int first = start;
+        while (first < end && Character.isWhitespace(cellText.charAt(first))) first++;
+        if (first == end) return;
+        if (first > start) cellText.delete(start, first);
+
+        if (cells + 1 == cellX0.length) growCells();
+        cellX0[cells] = x0;
+        cellX1[cells] = x1;
+        cellColumn[cells] = -1;
+        CharSequence text = cell(cells);
+        cellAmount[cells] = StatementAmountScanner.scan(text, null, amounts) && isOnlyAmount(text);
+        cells++;
+        cellStart[cells] = cellText.length();
+    }
+
+    /** A table row begins with a date, possibly after a serial number cell. */
+    private boolean startsWithDate(int r) {
+        int first = rowCell[r];
+        int end = cells;
+        if (first == end) return false;
+        if (StatementDateScanner.startsWithDate(cell(first))) return true;
+        return first + 1 < end && isSerial(cell(first)) && StatementDateScanner.startsWithDate(cell(first + 1));
+    }
+
+    private void findColumns() {
+        columns = 0;
+        int tableRows = 0;
+        float maxX = 0;
+        for (int r = 0; r < rows; r++) {
+            if (!tableRow[r]) continue;
+            tableRows++;
+            for (int c = rowCell[r]; c < rowCell[r + 1]; c++) maxX = Math.max(maxX, cellX1[c]);
+        }
+        if (tableRows == 0) return;
+
+        int bins = (int) Math.ceil(maxX / BIN_WIDTH) + 1;
+        if (coverage.length < bins) coverage = new int[bins];
+        Arrays.fill(coverage, 0, bins, 0);
+        for (int r = 0; r < rows; r++) {
+            if (!tableRow[r]) continue;
+            for (int c = rowCell[r]; c < rowCell[r + 1]; c++) {
+                int to = bin(cellX1[c]);
+                for (int b = bin(cellX0[c]); b <= to; b++) coverage[b]++;
+            }
+        }
+
+        // Columns are runs of occupied x; a stray cell crossing a gutter in a few rows does not merge them
+        int threshold = tableRows / 20;
+        int b = 0;
+        while (b < bins) {
+            if (coverage[b] <= threshold) {
+                b++;
+                continue;
+            }
+            int start = b;
+            while (b < bins && coverage[b] > threshold) b++;
+            if (columns == columnX0.length) growColumns();
+            columnX0[columns] = start * BIN_WIDTH;
+            columnX1[columns] = b * BIN_WIDTH;
+            columns++;
+        }
+
+        for (int c = 0; c < cells; c++) {
+            float center = (cellX0[c] + cellX1[c]) / 2;
+            int best = 0;
+            float bestDistance = Float.MAX_VALUE;
+            for (int col = 0; col < columns; col++) {
+                float distance = center < columnX0[col] ? columnX0[col] - center
+                        : center > columnX1[col] ? center - columnX1[col] : 0;
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = col;
+                }
+            }
+            cellColumn[c] = best;
+        }
+    }
+
+    private void assignRoles() {
+        Arrays.fill(roleColumn, -1);
+        Arrays.fill(columnRole, 0, Math.max(columns, 0), -1);
+        directional = true;
+        if (columns == 0) return;
+
+        int firstTable = 0;
+        while (!tableRow[firstTable]) firstTable++;
+
+        // Headings: the rows right above the first table row, words joined per column
+        String[] headings = new String[columns];
+        for (int r = Math.max(0, firstTable - HEADING_ROWS); r < firstTable; r++) {
+            for (int c = rowCell[r]; c < rowCell[r + 1]; c++) {
+                int col = cellColumn[c];
+                String text = cellString(c).toLowerCase(Locale.ROOT);
+                headings[col] = headings[col] == null ? text : headings[col] + " " + text;
+            }
+        }
+        for (int col = 0; col < columns; col++) {
+            String heading = headings[col];
+            if (heading == null) continue;
+            if (heading.contains("balance")) setRole(BALANCE, col);
+            else if (heading.contains("withdrawal") || heading.contains("debit") || heading.contains("(dr)")) setRole(DEBIT, col);
+            else if (heading.contains("deposit") || heading.contains("credit") || heading.contains("(cr)")) setRole(CREDIT, col);
+            else if (heading.contains("narration") || heading.contains("description") || heading.contains("particulars")
+                    || heading.contains("remarks") || heading.contains("details")) setRole(NARRATION, col);
+            else if (heading.contains("date")) setRole(DATE, col);
+        }
+
+        // Without headings, go by what the table rows hold
+        int[] amountCells = new int[columns];
+        int[] tableCells = new int[columns];
+        int[] characters = new int[columns];
+        int dateColumn = -1;
+        for (int r = 0; r < rows; r++) {
+            if (!tableRow[r]) continue;
+            for (int c = rowCell[r]; c < rowCell[r + 1]; c++) {
+                int col = cellColumn[c];
+                tableCells[col]++;
+                characters[col] += cellStart[c + 1] - cellStart[c];
+                if (cellAmount[c]) amountCells[col]++;
+                if (dateColumn < 0 && StatementDateScanner.startsWithDate(cell(c))) dateColumn = col;
+            }
+        }
+        if (roleColumn[DATE] < 0 && dateColumn >= 0) setRole(DATE, dateColumn);
+
+        int lastAmount = -1;
+        int amountColumns = 0;
+        for (int col = 0; col < columns; col++) {
+            if (amountCells[col] * 2 > tableCells[col]) {
+                lastAmount = col;
+                amountColumns++;
+            }
+        }
+        if (roleColumn[BALANCE] < 0 && lastAmount >= 0 && amountColumns >= 2) setRole(BALANCE, lastAmount);
+        if (roleColumn[DEBIT] < 0 && roleColumn[CREDIT] < 0) {
+            int credit = -1;
+            int debit = -1;
+            for (int col = columns - 1; col >= 0; col--) {
+                if (columnRole[col] >= 0 || amountCells[col] * 2 <= tableCells[col]) continue;
+                if (credit < 0) credit = col;
+                else if (debit < 0) debit = col;
+            }
+            if (debit >= 0) {
+                setRole(DEBIT, debit);
+                setRole(CREDIT, credit);
+            } else if (credit >= 0) {
+                setRole(DEBIT, credit);
+                directional = false;
+            }
+        }
+        if (roleColumn[NARRATION] < 0) {
+            int widest = -1;
+            for (int col = 0; col < columns; col++) {
+                if (columnRole[col] >= 0 || amountCells[col] * 2 > tableCells[col]) continue;
+                if (widest < 0 || characters[col] > characters[widest]) widest = col;
+            }
+            if (widest >= 0) setRole(NARRATION, widest);
+        }
+    }
+
+    private void setRole(int role, int column) {
+        if (roleColumn[role] >= 0 || columnRole[column] >= 0) return;
+        roleColumn[role] = column;
+        columnRole[column] = role;
+    }
+
+    private void emit() throws IOException {
+        // The previous page's last row is written just before this page's first transaction, after the
+        // page header and column headings, where layout parsers that skip to the heading still find it
+        int carriedFrom = -1;
+        int firstTable = rows;
+        if (rowOpen) {
+            firstTable = 0;
+            while (firstTable < rows && !tableRow[firstTable]) firstTable++;
+            if (firstTable == rows) {
+                flushRow();
+            } else {
+                // Narration wrapped onto this page sits right above its first transaction
+                carriedFrom = firstTable;
+                while (carriedFrom > 0 && isWrappedNarration(carriedFrom - 1)
+                        && (carriedFrom == firstTable || isClose(carriedFrom - 1, carriedFrom))) {
+                    carriedFrom--;
+                }
+            }
+        }
+
+        for (int r = 0; r < rows; r++) {
+            if (r == carriedFrom) {
+                for (int w = carriedFrom; w < firstTable; w++) {
+                    for (int c = rowCell[w]; c < rowCell[w + 1]; c++) appendNarration(c);
+                }
+                flushRow();
+                carriedFrom = -1;
+                r = firstTable - 1;
+            } else if (r < carriedFrom) {
+                writePlain(r);
+            } else if (columns > 0 && tableRow[r]) {
+                flushRow();
+                Arrays.fill(parts, null);
+                narration.setLength(0);
+                for (int c = rowCell[r]; c < rowCell[r + 1]; c++) {
+                    int role = columnRole[cellColumn[c]];
+                    if (role == NARRATION) appendNarration(c);
+                    else if (role >= 0) parts[role] = parts[role] == null ? cellString(c) : parts[role] + " " + cell(c);
+                }
+                rowOpen = true;
+            } else if (rowOpen && isContinuation(r)) {
+                for (int c = rowCell[r]; c < rowCell[r + 1]; c++) appendNarration(c);
+            } else {
+                flushRow();
+                writePlain(r);
+            }
+        }
+        // The last row stays open: the next page may continue its narration
+    }
+
+    /** A row outside the table, cells separated by two spaces. */
+    private void writePlain(int r) throws IOException {
+        line.setLength(0);
+        for (int c = rowCell[r]; c < rowCell[r + 1]; c++) {
+            if (c > rowCell[r]) line.append("  ");
+            line.append(cellText, cellStart[c], cellStart[c + 1]);
+        }
+        writeLine();
+    }
+
+    /** Text without amounts, close under the previous row, outside the amount columns: wrapped narration. */
+    private boolean isContinuation(int r) {
+        if (r == 0 || !isClose(r - 1, r)) return false;
+        for (int c = rowCell[r]; c < rowCell[r + 1]; c++) {
+            int role = columnRole[cellColumn[c]];
+            if (cellAmount[c] || role == DEBIT || role == CREDIT || role == BALANCE || role == DATE) return false;
+        }
+        return true;
+    }
+
+    /** Only narration-column text, as a wrapped line carried over from the previous page must be. */
+    private boolean isWrappedNarration(int r) {
+        for (int c = rowCell[r]; c < rowCell[r + 1]; c++) {
+            if (cellAmount[c] || columnRole[cellColumn[c]] != NARRATION) return false;
+        }
+        return true;
+    }
+
+    private boolean isClose(int upper, int lower) {
+        int above = index(order[rowFirst[upper]]);
+        int below = index(order[rowFirst[lower]]);
+        return gy[below] - gy[above] <= gh[above] * CONTINUATION_GAP;
+    }
+
+    private void appendNarration(int c) {
+        if (!narration.isEmpty()) narration.append(' ');
+        narration.append(cellText, cellStart[c], cellStart[c + 1]);
+    }
+
+    private void flushRow() throws IOException {
+        if (!rowOpen) return;
+        rowOpen = false;
+        String debit = zeroToNull(parts[DEBIT]);
+        String credit = zeroToNull(parts[CREDIT]);
+        TableRow row = new TableRow(parts[DATE], narration.isEmpty() ? null : narration.toString(),
+                debit, credit, zeroToNull(parts[BALANCE]));
+        rowListener.accept(row);
+
+        line.setLength(0);
+        append(row.date());
+        append(row.narration());
+        if (debit != null) {
+            append(debit);
+            if (directional && !hasMarker(debit)) line.append(" (Dr)");
+        }
+        if (credit != null) {
+            append(credit);
+            if (!hasMarker(credit)) line.append(" (Cr)");
+        }
+        append(row.balance());
+        writeLine();
+    }
+
+    private void append(String part) {
+        if (part == null) return;
+        if (!line.isEmpty()) line.append(' ');
+        line.append(part);
+    }
+
+    private void writeLine() throws IOException {
+        if (line.isEmpty()) return;
+        output.write(line.toString());
+        output.write(getLineSeparator());
+    }
+
+    /** Cell c's text, read in place; the view is shared, so use it before asking for another cell. */
+    private CharSequence cell(int c) {
+        return cellView.of(cellStart[c], c < cells ? cellStart[c + 1] : cellText.length());
+    }
+
+    private String cellString(int c) {
+        return cell(c).toString();
+    }
+
+    /** Unused debit/credit columns are often printed as 0.00 or a dash. */
+    private static String zeroToNull(String amount) {
+        if (amount == null) return null;
+        for (int i = 0; i < amount.length(); i++) {
+            char ch = amount.charAt(i);
+            if (ch >= '1' && ch <= '9') return amount;
+        }
+        return null;
+    }
+
+    private static boolean isOnlyAmount(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            boolean numeric = (ch >= '0' && ch <= '9') || ch == ',' || ch == '.' || ch == '-' || ch == ' ' || ch == '(' || ch == ')';
+            if (!numeric && "DdRrCc".indexOf(ch) < 0) return false;
+        }
+        return true;
+    }
+
+    private static boolean hasMarker(String amount) {
+        String lower = amount.toLowerCase(Locale.ROOT);
+        return lower.endsWith("dr") || lower.endsWith("cr") || lower.endsWith("dr)") || lower.endsWith("cr)");
+    }
+
+    private static boolean isSerial(CharSequence text) {
+        if (text.length() == 0 || text.length() > 5) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
+    private static long key(float position, int index) {
+        return ((long) Math.max(0, Math.round(position * 8)) << 32) | index;
+    }
+
+    private static int index(long key) {
+        return (int) key;
+    }
+
+    private static int bin(float x) {
+        return Math.max(0, (int) (x / BIN_WIDTH));
+    }
+
+    private void growGlyphs() {
+        int size = gx.length * 2;
+        gx = Arrays.copyOf(gx, size);
+        gy = Arrays.copyOf(gy, size);
+        gw = Arrays.copyOf(gw, size);
+        gh = Arrays.copyOf(gh, size);
+        glyphStart = Arrays.copyOf(glyphStart, size + 1);
+        order = Arrays.copyOf(order, size);
+    }
+
+    private void growRows() {
+        int size = tableRow.length * 2;
+        rowFirst = Arrays.copyOf(rowFirst, size + 1);
+        rowCell = Arrays.copyOf(rowCell, size + 1);
+        tableRow = Arrays.copyOf(tableRow, size);
+    }
+
+    private void growCells() {
+        int size = cellX0.length * 2;
+        cellX0 = Arrays.copyOf(cellX0, size);
+        cellX1 = Arrays.copyOf(cellX1, size);
+        cellColumn = Arrays.copyOf(cellColumn, size);
+        cellAmount = Arrays.copyOf(cellAmount, size);
+        cellStart = Arrays.copyOf(cellStart, size + 1);
+    }
+
+    private void growColumns() {
+        int size = columnX0.length * 2;
+        columnX0 = Arrays.copyOf(columnX0, size);
+        columnX1 = Arrays.copyOf(columnX1, size);
+        columnRole = Arrays.copyOf(columnRole, size);
+    }
+
+    /** A window on {@link #cellText}. */
+    private final class CellView implements CharSequence {
+        private int start;
+        private int end;
+
+        CharSequence of(int start, int end) {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() { return end - start; }
+
+        @Override
+        public char charAt(int index) { return cellText.charAt(start + index); }
+
+        @Override
+        public CharSequence subSequence(int from, int to) { return cellText.subSequence(start + from, start + to); }
+
+        @Override
+        public String toString() { return cellText.substring(start, end); }
+    }
+}
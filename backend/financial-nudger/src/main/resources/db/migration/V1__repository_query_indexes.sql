@@ -0,0 +1,51 @@
+-- Composite indexes matched to the repository queries; leading columns follow the equality
+-- filters, then range/order columns, then whatever the query reads so it can stay in the index.
+
+-- transactions ---------------------------------------------------------------------------
+-- findByUserIdAndDateBetween, findTransactionsByUserAndDateRange and keyset pages use
+-- idx_transactions_user_date_id; user+category lookups, IS NULL category and per-category
+-- counts use idx_transactions_user_category_date_id (both declared on the entity).
+
+-- findLowConfidenceTransactions: user_id = ? AND category_confidence < ?
+CREATE INDEX idx_transactions_user_confidence ON transactions (user_id, category_confidence);
+
+-- getCategorySpendingByUserId: user_id = ? AND type = 'DEBIT' GROUP BY category_id, SUM(amount)
+CREATE INDEX idx_transactions_user_type_category_amount ON transactions (user_id, type, category_id, amount);
+
+-- deleteByFileId and the rollup adjustment that precedes it
+CREATE INDEX idx_transactions_file ON transactions (file_id);
+
+-- findByCategoryId and category merges
+CREATE INDEX idx_transactions_category ON transactions (category_id);
+
+-- categories -----------------------------------------------------------------------------
+-- findByCategoryNameAndUserId / existsByCategoryNameAndUserId use uk_categories_user_name.
+
+-- findByCategoryNameAndCategoryTypeAndIsUserDefined, existsByCategoryNameAndIsUserDefined and the
+-- system half of findAvailableCategoriesForUser (user_id = ? OR is_user_defined = false)
+CREATE INDEX idx_categories_defined_name ON categories (is_user_defined, category_name, category_type);
+
+-- findByCategoryName
+CREATE INDEX idx_categories_name ON categories (category_name);
+
+-- transaction_category_feedback ----------------------------------------------------------
+-- findByUserIdAndCreatedAtAfter, findRecentFeedbackByUserId
+CREATE INDEX idx_feedback_user_created ON transaction_category_feedback (user_id, created_at);
+
+-- getFeedbackPatternsByUserId: covering GROUP BY old/new category
+CREATE INDEX idx_feedback_user_old_new ON transaction_category_feedback (user_id, old_category_id, new_category_id);
+
+-- findByTransactionId
+CREATE INDEX idx_feedback_transaction ON transaction_category_feedback (transaction_id);
+
+-- ingested_files -------------------------------------------------------------------------
+-- findRecentFilesByUserId, findByUserIdAndUploadStatus
+CREATE INDEX idx_ingested_files_user_uploaded ON ingested_files (user_id, uploaded_at);
+CREATE INDEX idx_ingested_files_user_status ON ingested_files (user_id, upload_status);
+
+-- findPendingOrProcessingFiles (startup recovery)
+CREATE INDEX idx_ingested_files_status ON ingested_files (upload_status);
+
+-- monthly_spend_rollups ------------------------------------------------------------------
+-- findMonths: user_id = ? AND month_start BETWEEN ? AND ?
+CREATE INDEX idx_rollups_user_month ON monthly_spend_rollups (user_id, month_start);
@@ -0,0 +1,42 @@
+package com.team021.financial_nudger.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+class PersistenceConfigTest {
+
+    @Test
+    void mysqlPoolRewritesBatchesByDefault() {
+        HikariDataSource pool = pool("jdbc:mysql://localhost:3306/financial_nudger");
+
+        PersistenceConfig.jdbcBatchRewriteCustomizer(true).postProcessBeforeInitialization(pool, "dataSource");
+
+        assertEquals("true", pool.getDataSourceProperties().get("rewriteBatchedStatements"));
+    }
+
+    @Test
+    void explicitSettingsAndOtherDatabasesAreLeftAlone() {
+        HikariDataSource inUrl = pool("jdbc:mysql://localhost:3306/fn?rewriteBatchedStatements=false");
+        HikariDataSource inProperties = pool("jdbc:mysql://localhost:3306/fn");
+        inProperties.addDataSourceProperty("rewriteBatchedStatements", "false");
+        HikariDataSource h2 = pool("jdbc:h2:mem:fn");
+
+        for (HikariDataSource pool : new HikariDataSource[] {inUrl, inProperties, h2}) {
+            PersistenceConfig.jdbcBatchRewriteCustomizer(true).postProcessBeforeInitialization(pool, "dataSource");
+        }
+
+        assertNull(inUrl.getDataSourceProperties().get("rewriteBatchedStatements"));
+        assertEquals("false", inProperties.getDataSourceProperties().get("rewriteBatchedStatements"));
+        assertNull(h2.getDataSourceProperties().get("rewriteBatchedStatements"));
+    }
+
+    private static HikariDataSource pool(String url) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url);
+        return pool;
+    }
+}
@@ -0,0 +1,110 @@
+package com.team021.financial_nudger.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/**
+ * Checks with {@code EXPLAIN} that each hot repository query is served by the index meant for it.
+ * Needs a MySQL schema the application has already created, ideally holding realistic data:
+ * set {@code EXPLAIN_DB_URL} (and {@code EXPLAIN_DB_USER} / {@code EXPLAIN_DB_PASSWORD}).
+ * Pending migrations are applied first. Without the variables only the script checks run.
+ */
+class QueryIndexExplainTest {
+
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void connect() {
+        String url = System.getenv("EXPLAIN_DB_URL");
+        if (url == null || url.isBlank()) return;
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(url,
+                System.getenv().getOrDefault("EXPLAIN_DB_USER", "root"),
+                System.getenv().getOrDefault("EXPLAIN_DB_PASSWORD", "")));
+        new SchemaMigrator(jdbc).migrate();
+        for (String table : List.of("transactions", "categories", "transaction_category_feedback",
+                "ingested_files", "monthly_spend_rollups")) {
+            jdbc.queryForList("ANALYZE TABLE " + table);
+        }
+    }
+
+    // SQL equivalent of the repository query, the table it reads and the index it should use
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                Arguments.of("transactions by date range",
+                        "SELECT * FROM transactions WHERE user_id = 1 AND date BETWEEN '2024-01-01' AND '2024-03-31' ORDER BY date DESC",
+                        "transactions", "idx_transactions_user_date_id"),
+                Arguments.of("transactions by category",
+                        "SELECT * FROM transactions WHERE user_id = 1 AND category_id = 5",
+                        "transactions", "idx_transactions_user_category_date_id"),
+                Arguments.of("uncategorized transactions",
+                        "SELECT * FROM transactions WHERE user_id = 1 AND category_id IS NULL",
+                        "transactions", "idx_transactions_user_category_date_id"),
+                Arguments.of("low confidence transactions",
+                        "SELECT * FROM transactions WHERE user_id = 1 AND category_confidence < 0.5",
+                        "transactions", "idx_transactions_user_confidence"),
+                Arguments.of("spending per category",
+                        "SELECT category_id, SUM(amount) FROM transactions WHERE user_id = 1 AND type = 'DEBIT' GROUP BY category_id",
+                        "transactions", "idx_transactions_user_type_category_amount"),
+                Arguments.of("statement rows",
+                        "DELETE FROM transactions WHERE file_id = 7",
+                        "transactions", "idx_transactions_file"),
+                Arguments.of("user category by name",
+                        "SELECT * FROM categories WHERE category_name = 'Food' AND user_id = 1",
+                        "categories", "uk_categories_user_name"),
+                Arguments.of("system category by name",
+                        "SELECT * FROM categories WHERE category_name = 'Food' AND category_type = 'EXPENSE' AND is_user_defined = false",
+                        "categories", "idx_categories_defined_name"),
+                Arguments.of("feedback since",
+                        "SELECT * FROM transaction_category_feedback WHERE user_id = 1 AND created_at > '2024-01-01'",
+                        "transaction_category_feedback", "idx_feedback_user_created"),
+                Arguments.of("feedback patterns",
+                        "SELECT old_category_id, new_category_id, COUNT(*) FROM transaction_category_feedback WHERE user_id = 1 GROUP BY old_category_id, new_category_id",
+                        "transaction_category_feedback", "idx_feedback_user_old_new"),
+                Arguments.of("recent files",
+                        "SELECT * FROM ingested_files WHERE user_id = 1 ORDER BY uploaded_at DESC",
+                        "ingested_files", "idx_ingested_files_user_uploaded"),
+                Arguments.of("rollup months",
+                        "SELECT * FROM monthly_spend_rollups WHERE user_id = 1 AND month_start BETWEEN '2024-01-01' AND '2024-12-01'",
+                        "monthly_spend_rollups", "idx_rollups_user_month")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryUsesItsIndex(String name, String sql, String table, String index) {
+        assumeTrue(jdbc != null, "set EXPLAIN_DB_URL to run against MySQL");
+        List<Map<String, Object>> plan = jdbc.queryForList("EXPLAIN " + sql);
+        Map<String, Object> row = plan.stream()
+                .filter(r -> table.equals(r.get("table")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No plan row for " + table + ": " + plan));
+        assertEquals(index, row.get("key"), () -> name + " plan: " + row);
+    }
+
+    @Test
+    void migrationsHaveDistinctVersionsAndSplitIntoStatements() {
+        List<SchemaMigrator.Migration> migrations = SchemaMigrator.load();
+        assertTrue(!migrations.isEmpty(), "no scripts under db/migration");
+        for (SchemaMigrator.Migration migration : migrations) {
+            for (String statement : SchemaMigrator.statements(migration.script())) {
+                assertTrue(statement.startsWith("CREATE") || statement.startsWith("ALTER") || statement.startsWith("DROP"),
+                        () -> "V" + migration.version() + ": " + statement);
+            }
+        }
+        assertEquals(List.of("CREATE INDEX a ON t (x)", "CREATE INDEX b ON t (y)"),
+                SchemaMigrator.statements("-- comment; with a semicolon\nCREATE INDEX a ON t (x);\n\nCREATE INDEX b ON t (y);\n"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class ExtractedTextCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void onlyCommittedEntriesAreReplayed() throws Exception {
+        ExtractedTextCache cache = new ExtractedTextCache(dir.toString(), true, Duration.ofDays(30), DataSize.ofMegabytes(1));
+
+        ExtractedTextCache.Entry aborted = cache.open("aaaa");
+        aborted.append("page one");
+        aborted.abort();
+        assertFalse(cache.contains("aaaa"));
+
+        ExtractedTextCache.Entry entry = cache.open("bbbb");
+        entry.append("page one");
+        entry.append("page two");
+        entry.commit();
+        assertTrue(cache.contains("bbbb"));
+
+        List<String> pages = new ArrayList<>();
+        cache.replay("bbbb", (index, text) -> pages.add(index + ":" + text));
+        assertEquals(List.of("0:page one", "1:page two"), pages);
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void evictsExpiredThenLeastRecentlyUsedEntries() throws Exception {
+        ExtractedTextCache cache = new ExtractedTextCache(dir.toString(), true, Duration.ofDays(30), DataSize.ofBytes(100));
+        long now = System.currentTimeMillis();
+        Files.write(dir.resolve("old.txt.gz"), new byte[10]);
+        Files.setLastModifiedTime(dir.resolve("old.txt.gz"), FileTime.fromMillis(now - Duration.ofDays(31).toMillis()));
+        Files.write(dir.resolve("used-long-ago.txt.gz"), new byte[60]);
+        Files.setLastModifiedTime(dir.resolve("used-long-ago.txt.gz"), FileTime.fromMillis(now - 60_000));
+        Files.write(dir.resolve("used-recently.txt.gz"), new byte[60]);
+
+        cache.evict();
+
+        assertFalse(Files.exists(dir.resolve("old.txt.gz")));
+        assertFalse(Files.exists(dir.resolve("used-long-ago.txt.gz")));
+        assertTrue(Files.exists(dir.resolve("used-recently.txt.gz")));
+    }
+}
@@ -0,0 +1,144 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.team021.financial_nudger.domain.IngestedFile;
+import com.team021.financial_nudger.exception.FileProcessingException;
+import com.team021.financial_nudger.repository.IngestedFileRepository;
+import com.team021.financial_nudger.service.StatementIngestionSession;
+import com.team021.financial_nudger.service.TransactionService;
+import com.team021.financial_nudger.service.pdf.PdfExtractionService;
+import com.team021.financial_nudger.service.pdf.StatementParser;
+import com.team021.financial_nudger.service.pdf.StatementParserRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IngestionJobQueueTest {
+
+    private static final String PAGE = "12/03/2024 SWIGGY ORDER 149.00 Dr 10,351.00 Cr";
+
+    @TempDir
+    Path dir;
+
+    private final IngestedFileRepository files = mock(IngestedFileRepository.class);
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final PdfExtractionService pdfExtraction = mock(PdfExtractionService.class);
+    private final StatementFileStore fileStore = mock(StatementFileStore.class);
+    private final StatementParserRegistry parsers = spy(new StatementParserRegistry(List.of()));
+    private final String layoutOfPage = new StatementParserRegistry(List.of()).detect(PAGE).id();
+    private StatementPipeline pipeline;
+    private IngestionJobQueue queue;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ExtractedTextCache noCache = new ExtractedTextCache(dir.toString(), false, Duration.ofDays(1), DataSize.ofMegabytes(1));
+        pipeline = new StatementPipeline(pdfExtraction, transactionService, noCache, parsers, files,
+                new SimpleMeterRegistry(), 200, true, 4, 1, 1);
+        queue = new IngestionJobQueue(files, new StatementProcessor(files, transactionService, pipeline, parsers), fileStore, 1);
+
+        when(fileStore.exists(anyInt())).thenReturn(true);
+        when(fileStore.pathFor(anyInt())).thenAnswer(inv -> dir.resolve(inv.getArgument(0) + ".pdf"));
+        when(files.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(transactionService.classifyStatementLines(any(), anyList(), any())).thenReturn(List.of());
+        when(transactionService.persistStatementLines(any(), anyList()))
+                .thenReturn(new TransactionService.PersistResult(List.of(), 0, 0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown();
+        pipeline.shutdown();
+    }
+
+    @Test
+    void resumedJobReusesTheSavedLayout() throws Exception {
+        IngestedFile file = statement(7, IngestedFile.UploadStatus.PROCESSING, layoutOfPage);
+        AtomicReference<StatementParser> used = session(7);
+        when(pdfExtraction.extractPages(any(), any())).thenAnswer(inv -> {
+            inv.<PdfExtractionService.PageSink>getArgument(1).accept(0, PAGE);
+            return true;
+        });
+
+        queue.resumeInterruptedJobs();
+
+        verify(fileStore, timeout(5000)).delete(7);
+        verify(parsers, never()).detect(any());
+        verify(files, never()).updateParserId(any(), any());
+        assertEquals(layoutOfPage, used.get().id());
+        assertEquals(IngestedFile.UploadStatus.COMPLETED, file.getUploadStatus());
+    }
+
+    @Test
+    void detectedLayoutIsSavedEvenWhenTheRunFails() throws Exception {
+        IngestedFile file = statement(8, IngestedFile.UploadStatus.PENDING, null);
+        session(8);
+        CountDownLatch saved = new CountDownLatch(1);
+        when(files.updateParserId(eq(8), any())).thenAnswer(inv -> {
+            saved.countDown();
+            return 1;
+        });
+        when(pdfExtraction.extractPages(any(), any())).thenAnswer(inv -> {
+            inv.<PdfExtractionService.PageSink>getArgument(1).accept(0, PAGE);
+            saved.await(5, TimeUnit.SECONDS);
+            throw new FileProcessingException("disk went away");
+        });
+
+        queue.resumeInterruptedJobs();
+
+        verify(fileStore, timeout(5000)).delete(8);
+        verify(files).updateParserId(8, layoutOfPage);
+        assertEquals(IngestedFile.UploadStatus.FAILED, file.getUploadStatus());
+    }
+
+    private IngestedFile statement(int fileId, IngestedFile.UploadStatus status, String parserId) {
+        IngestedFile file = new IngestedFile();
+        file.setFileId(fileId);
+        file.setUserId(1);
+        file.setFileType(IngestedFile.FileType.STATEMENT);
+        file.setUploadStatus(status);
+        file.setContentHash("ab".repeat(32));
+        file.setParserId(parserId);
+        when(files.findPendingOrProcessingFiles()).thenReturn(List.of(file));
+        when(files.findById(fileId)).thenReturn(Optional.of(file));
+        return file;
+    }
+
+    /** A session for {@code fileId} that remembers the parser it is given; returns where it keeps it. */
+    private AtomicReference<StatementParser> session(int fileId) {
+        AtomicReference<StatementParser> parser = new AtomicReference<>();
+        StatementIngestionSession session = mock(StatementIngestionSession.class);
+        when(session.getFileId()).thenReturn(fileId);
+        when(session.getParser()).thenAnswer(inv -> parser.get());
+        doAnswer(inv -> {
+            parser.set(inv.getArgument(0));
+            return null;
+        }).when(session).useParser(any());
+        when(transactionService.openStatementSession(any(), eq(fileId))).thenReturn(session);
+        return parser;
+    }
+}
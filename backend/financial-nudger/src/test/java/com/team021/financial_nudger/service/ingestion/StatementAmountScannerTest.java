@@ -0,0 +1,87 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.team021.financial_nudger.domain.Transaction.TransactionType;
+
+class StatementAmountScannerTest {
+
+    private final StatementAmountScanner.Amounts out = new StatementAmountScanner.Amounts();
+
+    @Test
+    void readsMarkedAmountsInEveryForm() {
+        assertAmount("12/03/2024 SWIGGY ORDER 1,250.00 (Dr)", 125000, TransactionType.DEBIT);
+        assertAmount("SALARY OCT 1,23,456.78 CR", 12345678, TransactionType.CREDIT);
+        assertAmount("ATM WDL 500 DR", 50000, TransactionType.DEBIT);
+        assertAmount("UPI/AMAZON/REF 998877 799.00Dr", 79900, TransactionType.DEBIT);
+        assertAmount("REFUND 15-Mar-2024 -2,000.00", 200000, TransactionType.DEBIT);
+        assertFalse(out.hasBalance());
+    }
+
+    @Test
+    void separatesTheAmountFromTheRunningBalance() {
+        assertAmount("01/04/2024 NEFT RENT 25,000.00 Dr 1,02,340.50 Cr", 2500000, TransactionType.DEBIT);
+        assertEquals(10234050, out.balanceMinor());
+
+        // Balance carries the marker, the amount does not
+        assertAmount("05/04/2024 UPI ZOMATO 430.00 1,01,910.50 Cr", 43000, null);
+        assertEquals(10191050, out.balanceMinor());
+
+        // Overdrawn balance
+        assertAmount("07/04/2024 EMI 5,000.00 Dr 2,500.00 Dr", 500000, TransactionType.DEBIT);
+        assertEquals(-250000, out.balanceMinor());
+    }
+
+    @Test
+    void readsDebitAndCreditColumns() {
+        assertAmount("02/04/2024 POS RELIANCE 1,200.00 0.00 98,800.00", 120000, TransactionType.DEBIT);
+        assertAmount("03/04/2024 IMPS FROM RAHUL 0.00 3,000.00 1,01,800.00", 300000, TransactionType.CREDIT);
+        assertAmount("04/04/2024 CHQ 000451 2,000.00 - 99,800.00", 200000, TransactionType.DEBIT);
+        assertEquals(9980000, out.balanceMinor());
+    }
+
+    @Test
+    void usesTheBalanceChangeWhenColumnsAreAmbiguous() {
+        assertTrue(StatementAmountScanner.scan("08/04/2024 UBER TRIP 350.00 99,450.00", 9980000L, out));
+        assertEquals(TransactionType.DEBIT, out.type());
+        assertTrue(StatementAmountScanner.scan("09/04/2024 CASHBACK 50.00 99,500.00", 9945000L, out));
+        assertEquals(TransactionType.CREDIT, out.type());
+    }
+
+    @Test
+    void carriesTheLastBalanceShownIntoTheNextChunk() {
+        List<String> chunk = List.of(
+                "07/04/2024 SALARY 50,000.00 99,800.00",
+                "08/04/2024 UBER TRIP 350.00 99,450.00",
+                "UPI REF 4455 NARRATION CONTINUED");
+        assertEquals(9945000L, StatementAmountScanner.lastBalance(chunk, null, out));
+        assertEquals(1234L, StatementAmountScanner.lastBalance(List.of("Page 2 of 7"), 1234L, out));
+        assertNull(StatementAmountScanner.lastBalance(List.of(), null, out));
+
+        // The first row of the next chunk then reads its direction from that balance
+        assertTrue(StatementAmountScanner.scan("09/04/2024 CASHBACK 50.00 99,500.00",
+                StatementAmountScanner.lastBalance(chunk, null, out), out));
+        assertEquals(TransactionType.CREDIT, out.type());
+    }
+
+    @Test
+    void ignoresDatesReferencesAndAccountNumbers() {
+        assertFalse(StatementAmountScanner.scan("12/03/2024 ACCOUNT 001234567890123456 REF 4455", null, out));
+        assertFalse(StatementAmountScanner.scan("Page 2 of 7", null, out));
+        assertAmount("UPI/9876543210/SWIGGY 12-03-24 149.00 (Dr)", 14900, TransactionType.DEBIT);
+    }
+
+    private void assertAmount(String line, long minor, TransactionType type) {
+        assertTrue(StatementAmountScanner.scan(line, null, out), line);
+        assertEquals(minor, out.amountMinor(), line);
+        if (type == null) assertNull(out.type(), line);
+        else assertEquals(type, out.type(), line);
+    }
+}
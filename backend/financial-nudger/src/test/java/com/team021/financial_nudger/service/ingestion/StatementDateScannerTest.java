@@ -0,0 +1,60 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+class StatementDateScannerTest {
+
+    @Test
+    void readsEachSupportedFormat() {
+        StatementDateScanner scanner = new StatementDateScanner();
+        assertEquals(LocalDate.of(2024, 3, 12), scanner.dateOf("12/03/2024 UPI/SWIGGY 250.00 (Dr)"));
+        assertEquals(LocalDate.of(2024, 3, 5), scanner.dateOf("05-Mar-24 NETFLIX 649.00 Dr"));
+        assertEquals(LocalDate.of(2024, 3, 5), scanner.dateOf("05 Mar 2024 NETFLIX 649.00 Dr"));
+        assertEquals(LocalDate.of(2024, 9, 30), scanner.dateOf("30 September, 2024 RENT 25,000.00 Dr"));
+        assertEquals(LocalDate.of(2024, 3, 12), scanner.dateOf("2024-03-12 POS RELIANCE 1,200.00 Dr"));
+        assertEquals(LocalDate.of(2024, 3, 12), scanner.dateOf("12.03.24 ATM WDL 500.00 Dr"));
+    }
+
+    @Test
+    void skipsAmountsReferencesAndImpossibleDates() {
+        StatementDateScanner scanner = new StatementDateScanner();
+        assertNull(scanner.dateOf("UPI/9876543210 1,250.00 (Dr) 45,000.00 Cr"));
+        assertNull(scanner.dateOf("31/02/2024 FEB ROUNDING 10.00 Dr"));
+        assertNull(scanner.dateOf("Page 12 of 30"));
+        assertEquals(LocalDate.of(2024, 2, 29), scanner.dateOf("REF 88213 29/02/2024 10.00 Dr"));
+    }
+
+    @Test
+    void endsEachDateTokenTheFilterAndAmountScannerSkip() {
+        String line = "01-Apr-24 NEFT 450.00 (Cr)";
+        assertEquals(9, StatementDateScanner.dateEnd(line, 0));
+        assertEquals(-1, StatementDateScanner.dateEnd(line, 1));
+        assertEquals(10, StatementDateScanner.dateEnd("12/03/2024 SWIGGY", 0));
+        assertEquals(13, StatementDateScanner.dateEnd("1 April, 2024 RENT", 0));
+        // A day and month without a year is skipped as a date but gives none
+        assertEquals(6, StatementDateScanner.dateEnd("01 Apr UPI-SWIGGY 450.00", 0));
+        assertNull(new StatementDateScanner().dateOf("01 Apr UPI-SWIGGY 450.00"));
+        assertEquals(-1, StatementDateScanner.dateEnd("31/02/2024 FEB ROUNDING", 0));
+        assertEquals(-1, StatementDateScanner.dateEnd("450.00 Dr", 0));
+        assertEquals(-1, StatementDateScanner.dateEnd("REF12/03/2024", 3));
+    }
+
+    @Test
+    void remembersTheOrderTheFileUses() {
+        StatementDateScanner dayFirst = new StatementDateScanner();
+        assertEquals(LocalDate.of(2024, 5, 4), dayFirst.dateOf("04/05/2024 A 1.00 Dr"));
+        assertNull(dayFirst.detectedFormat());
+        assertEquals(LocalDate.of(2024, 5, 25), dayFirst.dateOf("25/05/2024 B 1.00 Dr"));
+        assertEquals(StatementDateScanner.Format.DAY_MONTH_YEAR, dayFirst.detectedFormat());
+
+        StatementDateScanner monthFirst = new StatementDateScanner();
+        assertEquals(LocalDate.of(2024, 5, 25), monthFirst.dateOf("05/25/2024 B 1.00 Dr"));
+        assertEquals(StatementDateScanner.Format.MONTH_DAY_YEAR, monthFirst.detectedFormat());
+        assertEquals(LocalDate.of(2024, 4, 5), monthFirst.dateOf("04/05/2024 A 1.00 Dr"));
+    }
+}
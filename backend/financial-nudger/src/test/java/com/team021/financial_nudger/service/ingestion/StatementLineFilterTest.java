@@ -0,0 +1,94 @@
+package com.team021.financial_nudger.service.ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class StatementLineFilterTest {
+
+    @Test
+    void dropsHeadersAndFooters() {
+        assertFalse(StatementLineFilter.isTransactionLine("HDFC BANK Ltd.        Page No .: 1"));
+        assertFalse(StatementLineFilter.isTransactionLine("Date  Narration  Chq./Ref.No.  Value Dt  Withdrawal Amt.  Deposit Amt.  Closing Balance"));
+        assertFalse(StatementLineFilter.isTransactionLine("Statement From : 01/04/2024 To : 30/04/2024"));
+        assertFalse(StatementLineFilter.isTransactionLine("Account No : 50100123456789   Cust ID : 12345678"));
+        assertFalse(StatementLineFilter.isTransactionLine("Page 1 of 2"));
+        assertFalse(StatementLineFilter.isTransactionLine("This is a computer generated statement and does not require a signature."));
+        assertFalse(StatementLineFilter.isTransactionLine(""));
+        assertFalse(StatementLineFilter.isTransactionLine("Dr"));
+    }
+
+    @Test
+    void dropsBalanceAndSummaryRows() {
+        assertFalse(StatementLineFilter.isTransactionLine("01/04/2024 Opening Balance 1,02,790.50 Cr"));
+        assertFalse(StatementLineFilter.isTransactionLine("30/04/2024 CLOSING BALANCE 1,82,340.50"));
+        assertFalse(StatementLineFilter.isTransactionLine("Balance B/F 12,000.00"));
+        assertFalse(StatementLineFilter.isTransactionLine("Brought Forward 45,000.00 Cr"));
+        assertFalse(StatementLineFilter.isTransactionLine("Carried Forward 40,550.00 Cr"));
+        assertFalse(StatementLineFilter.isTransactionLine("STATEMENT SUMMARY  Dr Count 12  Cr Count 3  Debits 45,210.00  Credits 85,000.00"));
+    }
+
+    @Test
+    void keepsEverySupportedDateForm() {
+        String[] dates = {"01/04/24", "01/04/2024", "1-4-2024", "01.04.2024", "2024-04-01", "01 Apr 2024", "01-Apr-24",
+                "1 April, 2024", "01 Apr"};
+        for (String date : dates) {
+            assertTrue(StatementLineFilter.isTransactionLine(date + " UPI-SWIGGY 450.00 1,02,340.50"), date);
+        }
+        // A bare number where the date should be is not a date
+        assertFalse(StatementLineFilter.isTransactionLine("20240401 UPI-SWIGGY 450.00 1,02,340.50"));
+    }
+
+    @Test
+    void keepsEverySupportedAmountForm() {
+        assertTrue(StatementLineFilter.isTransactionLine("SWIGGY ORDER 1,250.00 (Dr)"));
+        assertTrue(StatementLineFilter.isTransactionLine("SALARY OCT 1,23,456.78 CR"));
+        assertTrue(StatementLineFilter.isTransactionLine("UPI/AMAZON/REF 998877 799.00Dr"));
+        assertTrue(StatementLineFilter.isTransactionLine("ATM WDL 500 DR"));
+        assertTrue(StatementLineFilter.isTransactionLine("NEFT PAYROLL 85000.00 Credit"));
+        assertTrue(StatementLineFilter.isTransactionLine("POS PURCHASE 1,299.00 Debit"));
+
+        // Integers and reference numbers without a marker are not amounts
+        assertFalse(StatementLineFilter.isTransactionLine("UPI REF 412345678901 SWIGGY"));
+        assertFalse(StatementLineFilter.isTransactionLine("Customer care 1800 202 6161"));
+        assertFalse(StatementLineFilter.isTransactionLine("IFSC HDFC0001234 MICR 560240002"));
+    }
+
+    @Test
+    void keepsDebitCreditColumnLines() {
+        // Separate debit / credit / balance columns: a date plus two amounts
+        assertTrue(StatementLineFilter.isTransactionLine("02/04/24  NEFT CR-ACME CORP  N0923  02/04/24  85,000.00  1,87,340.50"));
+        assertTrue(StatementLineFilter.isTransactionLine("03/04/2024 ATW-512345XXXXXX1234 5,000.00 0.00 1,82,340.50"));
+        // A date, one amount and a Dr/Cr column
+        assertTrue(StatementLineFilter.isTransactionLine("04/04/2024 UPI ZOMATO 430.00 Dr"));
+        assertTrue(StatementLineFilter.isTransactionLine("04/04/2024 DR UPI ZOMATO 430.00"));
+        // One unmarked amount without a second column or a date is ambiguous
+        assertFalse(StatementLineFilter.isTransactionLine("UPI ZOMATO 430.00"));
+        assertFalse(StatementLineFilter.isTransactionLine("04/04/2024 UPI ZOMATO 430.00"));
+    }
+
+    @Test
+    void neverDropsARealTransactionLine() {
+        String[] lines = {
+                "01/04/24  UPI-SWIGGY-SWIGGY8@YBL-FOOD ORDER  0000412345  01/04/24  450.00  1,02,340.50",
+                "12/03/2024 SWIGGY ORDER 1,250.00 (Dr)",
+                "01/04/24 UPI-SWIGGY-SWIGGY8@YBL -FOOD ORDER 450.00 (Dr) 1,02,340.50",
+                "15 Mar 2024 TO TRANSFER-INB IMPS/P2A/407512345678/RENT 25,000.00 - 77,340.50",
+                "2024-04-05 NACH DR BAJAJ FINANCE EMI 4,999.00 72,341.50",
+                "05-04-2024 BY TRANSFER-NEFT*HDFC0000001*CREDIT CARD REFUND 1,200.00 CR 73,541.50 CR",
+        };
+        for (String line : lines) {
+            assertTrue(StatementLineFilter.isTransactionLine(line), line);
+        }
+    }
+
+    @Test
+    void exposesTheMarkerScanner() {
+        String line = "01-Apr-24 NEFT 450.00 (Cr)";
+        assertEquals(4, StatementLineFilter.markerAt(line, line.indexOf('(')));
+        assertEquals(0, StatementLineFilter.markerAt("Credited", 0));
+        assertEquals(3, StatementLineFilter.markerAt("Dr. 450", 0));
+    }
+}
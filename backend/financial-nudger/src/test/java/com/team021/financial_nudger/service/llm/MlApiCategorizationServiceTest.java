@@ -0,0 +1,198 @@
+package com.team021.financial_nudger.service.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs the ML client against a local stub of the /predict endpoint.
+ */
+class MlApiCategorizationServiceTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 500;
+    /** Delay before answering, by 1-based request number. */
+    private volatile IntToLongFunction delayMillis = request -> 0;
+
+    private MlApiGuard guard;
+    private MlApiCategorizationService service;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/predict", exchange -> {
+            int request = requests.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis.applyAsLong(request));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "{\"category\":\"Food\",\"confidence\":0.9}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException e) {
+                // client gave up on this request
+            }
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+        useService(Duration.ofSeconds(2), Duration.ofSeconds(5), false);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndClosesAfterSuccessfulProbe() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Miscellaneous", classify("swiggy order " + i));
+        }
+        assertEquals(MlCircuitBreaker.State.OPEN, guard.circuitState());
+
+        // While open, calls fail fast without reaching the service
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Miscellaneous", classify("zomato order " + i));
+        }
+        assertEquals(3, requests.get());
+
+        status = 200;
+        Thread.sleep(350);
+        assertEquals("Food", classify("dominos order"));
+        assertEquals(MlCircuitBreaker.State.CLOSED, guard.circuitState());
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void hungServiceReleasesTheCallerAfterTheBlockingTimeout() {
+        status = 200;
+        delayMillis = request -> 5_000;
+        useService(Duration.ofSeconds(30), Duration.ofMillis(300), false);
+
+        long started = System.nanoTime();
+        assertEquals("Miscellaneous", classify("uber trip"));
+        assertEquals(List.of("Miscellaneous", "Miscellaneous"),
+                service.classifyBatch(1, List.of("ola ride", "rapido ride"), List.of()).stream()
+                        .map(ClassificationResult::classifiedCategoryName).toList());
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 2_000);
+    }
+
+    @Test
+    void timeoutAdaptsToObservedLatency() {
+        status = 200;
+        assertEquals(Duration.ofSeconds(2), guard.currentTimeout(MlApiGuard.Operation.PREDICT));
+
+        // Fast answers pull the timeout down to the floor: 2 x p90 (which ignores the cold first call), at least 250ms
+        warmUp(20);
+        assertEquals(Duration.ofMillis(250), guard.currentTimeout(MlApiGuard.Operation.PREDICT));
+
+        // A call slower than that now times out long before the 2s ceiling
+        delayMillis = request -> request == 21 ? 1_500 : 0;
+        long started = System.nanoTime();
+        assertEquals("Miscellaneous", classify("slow merchant"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 1_000);
+        assertEquals(1L, guard.snapshot().get("timeouts"));
+    }
+
+    @Test
+    void timeoutBacksOffAfterASlowdownAndProbesGetTheFullTimeout() throws InterruptedException {
+        status = 200;
+        warmUp(20);
+        assertEquals(Duration.ofMillis(250), guard.currentTimeout(MlApiGuard.Operation.PREDICT));
+
+        // Every answer now takes 600ms: the timeouts count as samples and push the limit up
+        delayMillis = request -> 600;
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Miscellaneous", classify("slow merchant " + i));
+        }
+        assertTrue(guard.currentTimeout(MlApiGuard.Operation.PREDICT).compareTo(Duration.ofMillis(250)) > 0);
+        assertEquals(MlCircuitBreaker.State.OPEN, guard.circuitState());
+
+        // The half-open probe is not held to the learned limit, so it gets through and closes the circuit
+        Thread.sleep(350);
+        assertEquals("Food", classify("probe merchant"));
+        assertEquals(MlCircuitBreaker.State.CLOSED, guard.circuitState());
+    }
+
+    @Test
+    void batchesOfDifferentSizesLearnSeparateTimeouts() {
+        for (int i = 0; i < 20; i++) {
+            guard.execute(MlApiGuard.Operation.PREDICT_BATCH, 1, () -> Mono.just("ok")).block();
+        }
+        assertEquals(Duration.ofMillis(250), guard.currentTimeout(MlApiGuard.Operation.PREDICT_BATCH, 1));
+        // Nothing is known about full batches yet, so they keep the ceiling
+        assertEquals(Duration.ofSeconds(2), guard.currentTimeout(MlApiGuard.Operation.PREDICT_BATCH, 64));
+    }
+
+    @Test
+    void hedgeRacesASlowRequestAndCancelsTheLoser() {
+        status = 200;
+        useService(Duration.ofSeconds(2), Duration.ofSeconds(5), true);
+        warmUp(20);
+        assertEquals(0L, guard.snapshot().get("hedges"));
+
+        // The first attempt stalls; the hedge fires after the p95 latency and answers at once
+        delayMillis = request -> request == 21 ? 1_500 : 0;
+        long started = System.nanoTime();
+        assertEquals("Food", classify("slow merchant"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).toMillis() < 1_000);
+        assertEquals(22, requests.get());
+        assertEquals(1L, guard.snapshot().get("hedges"));
+
+        // The stalled attempt was cancelled: its in-flight slot frees up while the stub is still sleeping on it
+        long deadline = System.nanoTime() + Duration.ofMillis(500).toNanos();
+        while ((int) guard.snapshot().get("inFlight") > 0 && System.nanoTime() < deadline) Thread.onSpinWait();
+        assertEquals(0, guard.snapshot().get("inFlight"));
+        assertEquals(0L, guard.snapshot().get("timeouts"));
+        assertEquals(MlCircuitBreaker.State.CLOSED, guard.circuitState());
+    }
+
+    private void warmUp(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertEquals("Food", classify("merchant " + i));
+        }
+    }
+
+    private void useService(Duration requestTimeout, Duration blockingTimeout, boolean hedge) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Adaptive timeouts would cut the stalled attempt short in the hedging test
+        guard = new MlApiGuard(registry, requestTimeout, 4,
+                3, Duration.ofMillis(300), 1,
+                !hedge, Duration.ofMillis(250), 0.9, 2.0,
+                hedge, 0.95);
+        ClassificationCache cache = new ClassificationCache(null, null, registry, false, 10, false, "");
+        service = new MlApiCategorizationService(WebClient.builder(), cache, guard,
+                "http://127.0.0.1:" + server.getAddress().getPort(), "Miscellaneous", 64, blockingTimeout);
+    }
+
+    private String classify(String text) {
+        return service.classifyExpense(1, text, List.of()).classifiedCategoryName();
+    }
+}
@@ -0,0 +1,124 @@
+package com.team021.financial_nudger.service.llm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TfidfLinearModelTest {
+
+    private static final String[] TERMS = {"swiggy", "swiggy order", "uber", "ride", "order"};
+    private static final double[] IDF = {1.0, 2.0, 1.5, 1.2, 1.1};
+    private static final String[] CLASSES = {"Food", "Other", "Travel"};
+    private static final double[][] COEF = {
+            {3.0, 1.5, -1.0, -0.5, 0.8},
+            {-0.5, -0.5, -0.5, -0.5, 0.1},
+            {-1.0, -1.0, 3.5, 2.0, -0.2},
+    };
+    private static final double[] INTERCEPT = {-0.3, 0.2, -0.4};
+
+    @Test
+    void scoresUnigramsAndBigramsLikeTheVectorizer() throws IOException {
+        TfidfLinearModel model = TfidfLinearModel.read(new ByteArrayInputStream(exportedModel()));
+
+        // "a" is too short to be a token; case and punctuation are ignored
+        TfidfLinearModel.Prediction food = model.predict("SWIGGY order!! a");
+        double norm = Math.sqrt(1.0 * 1.0 + 2.0 * 2.0 + 1.1 * 1.1);
+        assertPrediction(food, new double[]{1.0 / norm, 2.0 / norm, 0, 0, 1.1 / norm});
+
+        // Repeated terms count twice; the unknown bigram "uber uber" is ignored
+        TfidfLinearModel.Prediction travel = model.predict("uber uber ride");
+        norm = Math.sqrt(3.0 * 3.0 + 1.2 * 1.2);
+        assertPrediction(travel, new double[]{0, 0, 3.0 / norm, 1.2 / norm, 0});
+
+        // Nothing known: intercepts only
+        assertPrediction(model.predict("zzqx"), new double[5]);
+    }
+
+    /**
+     * Compares against the predictions recorded by {@code ml/export_model.py}. The committed samples come
+     * from {@code ml/sklearn_lite.py}, a pure-Python re-implementation of the scikit-learn scoring, not from
+     * scikit-learn itself (the file's "# reference:" line says which); re-run the export where scikit-learn
+     * is installed to check against the real model. Skipped when the files are missing.
+     */
+    @Test
+    void matchesRecordedPythonPredictions() throws IOException {
+        Path modelFile = Path.of("../../ml/tfidf_model.bin");
+        Path samples = Path.of("../../ml/parity_samples.tsv");
+        assumeTrue(Files.isRegularFile(modelFile) && Files.isRegularFile(samples), "run ml/export_model.py first");
+
+        TfidfLinearModel model;
+        try (InputStream in = Files.newInputStream(modelFile)) {
+            model = TfidfLinearModel.read(in);
+        }
+        List<String> lines = Files.readAllLines(samples, StandardCharsets.UTF_8);
+        String reference = "unknown reference";
+        for (String line : lines) {
+            if (line.startsWith("# reference:")) {
+                reference = line.substring("# reference:".length()).trim();
+                continue;
+            }
+            String[] fields = line.split("\t", -1);
+            String message = fields[0] + " (vs " + reference + ")";
+            TfidfLinearModel.Prediction prediction = model.predict(fields[0]);
+            assertEquals(fields[1], prediction.category(), message);
+            assertEquals(Double.parseDouble(fields[2]), prediction.confidence(), 1e-9, message);
+        }
+    }
+
+    private static void assertPrediction(TfidfLinearModel.Prediction prediction, double[] x) {
+        double[] p = new double[CLASSES.length];
+        double total = 0;
+        int best = 0;
+        for (int c = 0; c < CLASSES.length; c++) {
+            double score = INTERCEPT[c];
+            for (int f = 0; f < x.length; f++) score += COEF[c][f] * x[f];
+            p[c] = 1 / (1 + Math.exp(-score));
+            total += p[c];
+            if (p[c] > p[best]) best = c;
+        }
+        assertEquals(CLASSES[best], prediction.category());
+        assertEquals(p[best] / total, prediction.confidence(), 1e-12);
+    }
+
+    private static byte[] exportedModel() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeBytes("NTFM");
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeInt(2);
+        out.writeBoolean(true);  // lowercase
+        out.writeBoolean(false); // sublinear_tf
+        out.writeBoolean(true);  // l2 norm
+        out.writeBoolean(false); // one-vs-rest
+        out.writeInt(TERMS.length);
+        for (String term : TERMS) writeString(out, term);
+        for (double idf : IDF) out.writeDouble(idf);
+        out.writeInt(CLASSES.length);
+        for (String label : CLASSES) writeString(out, label);
+        out.writeInt(COEF.length);
+        for (double[] row : COEF) {
+            for (double w : row) out.writeDouble(w);
+        }
+        for (double b : INTERCEPT) out.writeDouble(b);
+        writeString(out, "test");
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+}
@@ -0,0 +1,68 @@
+package com.team021.financial_nudger.service.pdf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.team021.financial_nudger.config.StatementParserConfig;
+
+class StatementParserRegistryTest {
+
+    private static final String HDFC_PAGE_1 = """
+            HDFC BANK Ltd.        Page No .: 1
+            Statement of account
+            Date      Narration                Chq./Ref.No.   Value Dt   Withdrawal Amt.   Deposit Amt.   Closing Balance
+            01/04/24  UPI-SWIGGY-SWIGGY8@YBL   0000412345     01/04/24   450.00                           1,02,340.50
+                      -FOOD ORDER
+            02/04/24  NEFT CR-ACME CORP        N0923          02/04/24                     85,000.00      1,87,340.50
+                      SALARY APRIL
+                      PAYROLL
+            Page 1 of 2
+            """;
+
+    private static final String HDFC_PAGE_2 = """
+            HDFC BANK Ltd.        Page No .: 2
+            Date      Narration                Chq./Ref.No.   Value Dt   Withdrawal Amt.   Deposit Amt.   Closing Balance
+            03/04/24  ATW-512345XXXXXX1234     0000000123     03/04/24   5,000.00                         1,82,340.50
+            """;
+
+    private final StatementParserConfig config = new StatementParserConfig();
+    private final StatementParserRegistry registry = new StatementParserRegistry(List.of(
+            config.hdfcSavingsParser(), config.iciciSavingsParser(), config.sbiSavingsParser(), config.axisSavingsParser()));
+
+    @Test
+    void detectsTheLayoutFromTheFirstPage() {
+        assertEquals("hdfc-savings", registry.detect(HDFC_PAGE_1).id());
+        assertEquals("sbi-savings", registry.detect("STATE BANK OF INDIA\nTxn Date  Value\nDate Description  Ref No.  Debit  Credit  Balance").id());
+        assertEquals(GenericStatementParser.ID, registry.detect("Some Other Bank\n12/03/2024 COFFEE 120.00 (Dr)").id());
+        assertEquals("icici-savings", registry.byId("icici-savings").id());
+        assertEquals(GenericStatementParser.ID, registry.byId("retired-layout").id());
+    }
+
+    @Test
+    void joinsWrappedNarrationAndDropsPageHeadersAndFooters() {
+        StatementParser.RowAssembler assembler = registry.detect(HDFC_PAGE_1).newRowAssembler();
+        List<String> rows = new ArrayList<>();
+        assembler.page(HDFC_PAGE_1, rows::add);
+        assembler.page(HDFC_PAGE_2, rows::add);
+        assembler.finish(rows::add);
+
+        assertEquals(3, rows.size());
+        assertEquals("01/04/24  UPI-SWIGGY-SWIGGY8@YBL   0000412345     01/04/24   450.00                           1,02,340.50 -FOOD ORDER",
+                rows.get(0));
+        assertTrue(rows.get(1).endsWith("1,87,340.50 SALARY APRIL PAYROLL"));
+        assertTrue(rows.get(2).startsWith("03/04/24  ATW-512345XXXXXX1234"));
+    }
+
+    @Test
+    void matcherFindsOverlappingSignaturesInOnePass() {
+        SignatureMatcher matcher = new SignatureMatcher(List.of(List.of("he", "she", "hers"), List.of("his")));
+        long[] found = matcher.match("USHERS   and\this");
+        assertEquals(0b111, found[0]);
+        assertEquals(0b1, found[1]);
+    }
+}
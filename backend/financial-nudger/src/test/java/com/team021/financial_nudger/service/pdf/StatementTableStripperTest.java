@@ -0,0 +1,238 @@
+package com.team021.financial_nudger.service.pdf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+
+import com.team021.financial_nudger.config.StatementParserConfig;
+
+class StatementTableStripperTest {
+
+    private static final PDType1Font FONT = PDType1Font.HELVETICA;
+    private static final float SIZE = 9;
+
+    @Test
+    void rebuildsRowsFromColumnPositions() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                left(content, 40, 740, "HDFC BANK Ltd.");
+                left(content, 40, 700, "Date");
+                left(content, 90, 700, "Narration");
+                left(content, 230, 700, "Chq./Ref.No.");
+                left(content, 300, 700, "Value Dt");
+                right(content, 420, 700, "Withdrawal Amt.");
+                right(content, 495, 700, "Deposit Amt.");
+                right(content, 570, 700, "Closing Balance");
+
+                left(content, 40, 685, "01/04/24");
+                left(content, 90, 685, "UPI-SWIGGY-SWIGGY8@YBL");
+                left(content, 230, 685, "0000412345");
+                left(content, 300, 685, "01/04/24");
+                right(content, 420, 685, "450.00");
+                right(content, 570, 685, "1,02,340.50");
+                left(content, 90, 675, "-FOOD ORDER");
+
+                left(content, 40, 660, "02/04/24");
+                left(content, 90, 660, "NEFT CR-ACME CORP");
+                left(content, 230, 660, "N0923");
+                left(content, 300, 660, "02/04/24");
+                right(content, 495, 660, "85,000.00");
+                right(content, 570, 660, "1,87,340.50");
+
+                left(content, 280, 60, "Page 1 of 1");
+            }
+
+            StatementTableStripper stripper = new StatementTableStripper();
+            List<StatementTableStripper.TableRow> rows = new ArrayList<>();
+            stripper.setRowListener(rows::add);
+            String text = stripper.getText(document);
+
+            assertEquals(2, rows.size());
+            StatementTableStripper.TableRow first = rows.get(0);
+            assertEquals("01/04/24", first.date());
+            assertEquals("UPI-SWIGGY-SWIGGY8@YBL -FOOD ORDER", first.narration());
+            assertEquals("450.00", first.debit());
+            assertNull(first.credit());
+            assertEquals("1,02,340.50", first.balance());
+            assertEquals("85,000.00", rows.get(1).credit());
+
+            assertTrue(text.contains("01/04/24 UPI-SWIGGY-SWIGGY8@YBL -FOOD ORDER 450.00 (Dr) 1,02,340.50"), text);
+            assertTrue(text.contains("02/04/24 NEFT CR-ACME CORP 85,000.00 (Cr) 1,87,340.50"), text);
+            assertTrue(text.contains("HDFC BANK Ltd."), text);
+            assertTrue(text.contains("Page 1 of 1"), text);
+        }
+    }
+
+    @Test
+    void pageWithoutATableStaysPlainText() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                left(content, 40, 740, "Account Summary");
+                left(content, 40, 720, "Opening Balance");
+                right(content, 300, 720, "10,000.00");
+                left(content, 40, 705, "Closing Balance");
+                right(content, 300, 705, "12,500.00");
+            }
+
+            StatementTableStripper stripper = new StatementTableStripper();
+            List<StatementTableStripper.TableRow> rows = new ArrayList<>();
+            stripper.setRowListener(rows::add);
+            String text = stripper.getText(document);
+
+            assertTrue(rows.isEmpty());
+            assertEquals(List.of("Account Summary", "Opening Balance  10,000.00", "Closing Balance  12,500.00"),
+                    text.lines().toList());
+        }
+    }
+
+    @Test
+    void singleAmountColumnIsLeftWithoutDirection() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.LETTER);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                // No headings: roles come from what the columns hold
+                left(content, 40, 700, "05/04/24");
+                left(content, 110, 700, "AMAZON PAY INDIA");
+                right(content, 420, 700, "1,299.00");
+                right(content, 540, 700, "48,701.00");
+
+                left(content, 40, 685, "06/04/24");
+                left(content, 110, 685, "INTEREST CREDITED");
+                right(content, 420, 685, "120.00");
+                right(content, 540, 685, "48,821.00");
+            }
+
+            StatementTableStripper stripper = new StatementTableStripper();
+            List<StatementTableStripper.TableRow> rows = new ArrayList<>();
+            stripper.setRowListener(rows::add);
+            String text = stripper.getText(document);
+
+            assertEquals(2, rows.size());
+            assertEquals("1,299.00", rows.get(0).debit());
+            assertNull(rows.get(0).credit());
+            assertEquals("48,701.00", rows.get(0).balance());
+            assertEquals("120.00", rows.get(1).debit());
+            // The balance change tells the line path which way these went, so no marker is made up
+            assertEquals(List.of("05/04/24 AMAZON PAY INDIA 1,299.00 48,701.00", "06/04/24 INTEREST CREDITED 120.00 48,821.00"),
+                    text.lines().toList());
+        }
+    }
+
+    @Test
+    void narrationWrappedOntoTheNextPageStaysWithItsRow() throws IOException {
+        try (PDDocument document = twoPageStatement()) {
+            StatementTableStripper stripper = new StatementTableStripper();
+            List<StatementTableStripper.TableRow> rows = new ArrayList<>();
+            stripper.setRowListener(rows::add);
+            List<String> pages = pageTexts(stripper, document);
+
+            assertEquals(3, rows.size());
+            assertEquals("UPI-SWIGGY-SWIGGY8@YBL -FOOD ORDER", rows.get(1).narration());
+            assertEquals("ATM WDL-MG ROAD", rows.get(2).narration());
+            assertTrue(pages.get(0).contains("01/04/24 NEFT CR-ACME CORP 85,000.00 (Cr) 1,87,340.50"), pages.get(0));
+            assertFalse(pages.get(0).contains("UPI-SWIGGY"), pages.get(0));
+            // The carried row comes after the next page's column headings, before its first transaction
+            String second = pages.get(1);
+            int carried = second.indexOf("03/04/24 UPI-SWIGGY-SWIGGY8@YBL -FOOD ORDER 450.00 (Dr) 1,86,890.50");
+            assertTrue(second.indexOf("Closing Balance") < carried, second);
+            assertTrue(carried < second.indexOf("04/04/24 ATM WDL-MG ROAD 2,000.00 (Dr) 1,84,890.50"), second);
+            assertTrue(second.contains("Page 2 of 2"), second);
+        }
+    }
+
+    @Test
+    void rowCarriedAcrossAPageReachesTheLayoutParser() throws IOException {
+        try (PDDocument document = twoPageStatement()) {
+            StatementParser.RowAssembler assembler = new StatementParserConfig().hdfcSavingsParser().newRowAssembler();
+            List<String> rows = new ArrayList<>();
+            for (String page : pageTexts(new StatementTableStripper(), document)) assembler.page(page, rows::add);
+            assembler.finish(rows::add);
+
+            assertEquals(List.of(
+                    "01/04/24 NEFT CR-ACME CORP 85,000.00 (Cr) 1,87,340.50",
+                    "03/04/24 UPI-SWIGGY-SWIGGY8@YBL -FOOD ORDER 450.00 (Dr) 1,86,890.50",
+                    "04/04/24 ATM WDL-MG ROAD 2,000.00 (Dr) 1,84,890.50"), rows);
+        }
+    }
+
+    /** Two HDFC pages; the last row of the first wraps its narration onto the second, and no footer ends page one. */
+    private static PDDocument twoPageStatement() throws IOException {
+        PDDocument document = new PDDocument();
+        PDPage first = new PDPage(PDRectangle.LETTER);
+        document.addPage(first);
+        try (PDPageContentStream content = new PDPageContentStream(document, first)) {
+            headings(content);
+            left(content, 40, 685, "01/04/24");
+            left(content, 90, 685, "NEFT CR-ACME CORP");
+            right(content, 495, 685, "85,000.00");
+            right(content, 570, 685, "1,87,340.50");
+
+            left(content, 40, 670, "03/04/24");
+            left(content, 90, 670, "UPI-SWIGGY-SWIGGY8@YBL");
+            right(content, 420, 670, "450.00");
+            right(content, 570, 670, "1,86,890.50");
+        }
+        PDPage second = new PDPage(PDRectangle.LETTER);
+        document.addPage(second);
+        try (PDPageContentStream content = new PDPageContentStream(document, second)) {
+            headings(content);
+            left(content, 90, 685, "-FOOD ORDER");
+
+            left(content, 40, 670, "04/04/24");
+            left(content, 90, 670, "ATM WDL-MG ROAD");
+            right(content, 420, 670, "2,000.00");
+            right(content, 570, 670, "1,84,890.50");
+            left(content, 280, 60, "Page 2 of 2");
+        }
+        return document;
+    }
+
+    /** Page by page with one stripper, as PdfExtractionService reads a document. */
+    private static List<String> pageTexts(StatementTableStripper stripper, PDDocument document) throws IOException {
+        List<String> pages = new ArrayList<>();
+        for (int page = 1; page <= document.getNumberOfPages(); page++) {
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            pages.add(stripper.getText(document));
+        }
+        return pages;
+    }
+
+    private static void headings(PDPageContentStream content) throws IOException {
+        left(content, 40, 740, "HDFC BANK Ltd.");
+        left(content, 40, 700, "Date");
+        left(content, 90, 700, "Narration");
+        right(content, 420, 700, "Withdrawal Amt.");
+        right(content, 495, 700, "Deposit Amt.");
+        right(content, 570, 700, "Closing Balance");
+    }
+
+    private static void left(PDPageContentStream content, float x, float y, String text) throws IOException {
+        content.beginText();
+        content.setFont(FONT, SIZE);
+        content.newLineAtOffset(x, y);
+        content.showText(text);
+        content.endText();
+    }
+
+    private static void right(PDPageContentStream content, float x, float y, String text) throws IOException {
+        left(content, x - FONT.getStringWidth(text) / 1000 * SIZE, y, text);
+    }
+}
@@ -0,0 +1,138 @@
+"""
+Exports the trained TF-IDF vectorizer + logistic regression into the compact binary
+file read by the backend's embedded engine (ml.engine=embedded), and records what
+this Python model answers for a set of sample descriptions so the Java side can be
+checked against it (TfidfLinearModelTest).
+
+Without numpy / scikit-learn installed the pickles are read by sklearn_lite instead. The first line of
+the samples file ("# reference: ...") says which of the two produced them; only a scikit-learn run checks
+the Java engine against the real model.
+
+    python export_model.py [--out tfidf_model.bin] [--samples parity_samples.tsv] [texts.txt]
+
+Layout (big-endian, strings are u16 byte length + UTF-8):
+    "NTFM" u32 version
+    u32 ngram_min, u32 ngram_max, u8 lowercase, u8 sublinear_tf, u8 l2_norm, u8 multinomial
+    u32 n_features, n_features x term (in column order), n_features x f64 idf
+    u32 n_classes, n_classes x label
+    u32 n_rows (1 for a binary model), n_rows x n_features x f64 coef, n_rows x f64 intercept
+    model_version
+"""
+import argparse
+import os
+import struct
+
+try:
+    import joblib
+except ImportError:
+    joblib = None
+    import sklearn_lite
+
+FORMAT_VERSION = 1
+DEFAULT_TOKEN_PATTERN = r"(?u)\b\w\w+\b"
+
+VECT_PATH = os.environ.get("NUDGER_VECT_PATH", "vectorizer (1).pkl")
+MODEL_PATH = os.environ.get("NUDGER_MODEL_PATH", "financial_classifier_model (1).pkl")
+
+# Typical statement descriptions plus edge cases (empty, unknown words, punctuation, repeats)
+SAMPLE_TEXTS = [
+    "swiggy order", "UPI/zomato/food delivery", "uber trip", "ola cab ride", "irctc ticket booking",
+    "electricity bill bescom", "airtel postpaid", "jio recharge", "amazon shopping", "flipkart order",
+    "netflix subscription", "spotify premium", "apollo pharmacy", "hospital fees", "school fees",
+    "rent transfer", "salary credit", "atm withdrawal", "petrol pump hpcl", "big bazaar groceries",
+    "dmart", "starbucks coffee", "movie tickets pvr", "gym membership", "insurance premium lic",
+    "NEFT-HDFC0001234-JOHN DOE", "POS 4321XXXX1234 RELIANCE FRESH", "zzqx unknown merchant", "",
+    "a", "!!!", "swiggy swiggy swiggy", "Café Coffee Day", "upi txn paid via upi ref",
+]
+
+
+def write_str(out, s):
+    b = s.encode("utf-8")
+    out.write(struct.pack(">H", len(b)))
+    out.write(b)
+
+
+def check_supported(vectorizer):
+    if vectorizer.analyzer != "word" or vectorizer.tokenizer is not None or vectorizer.preprocessor is not None:
+        raise SystemExit("Only the default word analyzer can be exported")
+    if vectorizer.token_pattern != DEFAULT_TOKEN_PATTERN or vectorizer.strip_accents or vectorizer.stop_words:
+        raise SystemExit("Custom token_pattern / strip_accents / stop_words are not supported by the embedded engine")
+    if not vectorizer.use_idf or vectorizer.norm not in ("l2", None) or vectorizer.binary:
+        raise SystemExit("Only use_idf=True, norm in (l2, None), binary=False can be exported")
+
+
+def is_multinomial(model):
+    multi_class = getattr(model, "multi_class", "auto")
+    if model.solver == "liblinear" or multi_class == "ovr":
+        return False
+    return len(model.classes_) > 2
+
+
+def export(out_path, vectorizer, model, model_version):
+    check_supported(vectorizer)
+    terms = [None] * len(vectorizer.vocabulary_)
+    for term, column in vectorizer.vocabulary_.items():
+        terms[column] = term
+
+    coef = model.coef_
+    intercept = model.intercept_ if model.fit_intercept else [0.0] * coef.shape[0]
+
+    with open(out_path, "wb") as out:
+        out.write(b"NTFM")
+        out.write(struct.pack(">I", FORMAT_VERSION))
+        out.write(struct.pack(">II", *vectorizer.ngram_range))
+        out.write(struct.pack(">BBBB", int(vectorizer.lowercase), int(vectorizer.sublinear_tf),
+                              int(vectorizer.norm == "l2"), int(is_multinomial(model))))
+        out.write(struct.pack(">I", len(terms)))
+        for term in terms:
+            write_str(out, term)
+        out.write(struct.pack(f">{len(terms)}d", *vectorizer.idf_))
+        out.write(struct.pack(">I", len(model.classes_)))
+        for label in model.classes_:
+            write_str(out, str(label))
+        out.write(struct.pack(">I", coef.shape[0]))
+        for row in coef:
+            out.write(struct.pack(f">{len(row)}d", *row))
+        out.write(struct.pack(f">{len(intercept)}d", *intercept))
+        write_str(out, model_version)
+    print(f"✅ Exported {len(terms)} features x {len(model.classes_)} classes → {out_path}")
+
+
+def record_samples(samples_path, texts, vectorizer, model):
+    if joblib:
+        import sklearn
+        X = vectorizer.transform(texts)
+        categories = model.predict(X)
+        confidences = model.predict_proba(X).max(axis=1)
+        reference = f"scikit-learn {sklearn.__version__}"
+    else:
+        categories, confidences = sklearn_lite.predict(vectorizer, model, texts)
+        reference = "sklearn_lite (pure-Python stand-in, not scikit-learn)"
+    with open(samples_path, "w", encoding="utf-8") as out:
+        out.write(f"# reference: {reference}\n")
+        for text, category, confidence in zip(texts, categories, confidences):
+            out.write(f"{text}\t{category}\t{float(confidence)!r}\n")
+    print(f"✅ Recorded {len(texts)} reference predictions from {reference} → {samples_path}")
+
+
+if __name__ == "__main__":
+    parser = argparse.ArgumentParser(description="Export the categorization model for the backend")
+    parser.add_argument("--out", default="tfidf_model.bin")
+    parser.add_argument("--samples", default="parity_samples.tsv")
+    parser.add_argument("texts", nargs="?", help="optional file with one sample description per line")
+    args = parser.parse_args()
+
+    load = joblib.load if joblib else sklearn_lite.load
+    vectorizer = load(VECT_PATH)
+    model = load(MODEL_PATH)
+    # Same version string ml_api.py reports, so cached answers stay comparable across engines
+    model_version = os.environ.get("NUDGER_MODEL_VERSION") or \
+        f"{int(os.path.getmtime(MODEL_PATH))}-{int(os.path.getmtime(VECT_PATH))}"
+
+    texts = SAMPLE_TEXTS
+    if args.texts:
+        with open(args.texts, encoding="utf-8") as f:
+            texts = [line.rstrip("\n").replace("\t", " ") for line in f]
+
+    export(args.out, vectorizer, model, model_version)
+    record_samples(args.samples, texts, vectorizer, model)
@@ -12,10 +12,14 @@ MODEL_PATH = os.environ.get("NUDGER_MODEL_PATH", "financial_classifier_model (1)
 
 vectorizer = None
 model = None
+MODEL_VERSION = os.environ.get("NUDGER_MODEL_VERSION")
 
 try:
     vectorizer = joblib.load(VECT_PATH)
     model = joblib.load(MODEL_PATH)
+    if not MODEL_VERSION:
+        # Changes whenever the artifacts are replaced, so backend caches know to invalidate
+        MODEL_VERSION = f"{int(os.path.getmtime(MODEL_PATH))}-{int(os.path.getmtime(VECT_PATH))}"
 except Exception as e:
     MODEL_OK = False
     print(f"[ml_api] Warning: Failed to load model/vectorizer: {e}")
@@ -32,7 +36,7 @@ def predict():
 
     if not MODEL_OK or vectorizer is None or model is None:
         # Fallback path: keep pipeline alive while artifacts are fixed
-        return jsonify({"category": "Miscellaneous", "confidence": 0.0})
+        return jsonify({"category": "Miscellaneous", "confidence": 0.0, "model_version": None})
 
     # 1️⃣ Transform text → features
     X = vectorizer.transform([text])
@@ -48,7 +52,38 @@ def predict():
         except Exception:
             confidence = None
 
-    return jsonify({"category": category, "confidence": confidence})
+    return jsonify({"category": category, "confidence": confidence, "model_version": MODEL_VERSION})
+
+@app.route("/predict_batch", methods=["POST"])
+def predict_batch():
+    data = request.get_json()
+
+    if not data or not isinstance(data.get("texts"), list):
+        return jsonify({"error": "Missing 'texts' list"}), 400
+
+    texts = [t if isinstance(t, str) else "" for t in data["texts"]]
+
+    if not MODEL_OK or vectorizer is None or model is None:
+        return jsonify({"predictions": [{"category": "Miscellaneous", "confidence": 0.0} for _ in texts],
+                        "model_version": None})
+
+    if not texts:
+        return jsonify({"predictions": [], "model_version": MODEL_VERSION})
+
+    # One sparse matrix for the whole batch: a single transform + predict call
+    X = vectorizer.transform(texts)
+    categories = model.predict(X)
+
+    confidences = [None] * len(texts)
+    if hasattr(model, "predict_proba"):
+        try:
+            confidences = [float(p) for p in model.predict_proba(X).max(axis=1)]
+        except Exception:
+            pass
+
+    return jsonify({"predictions": [
+        {"category": str(c), "confidence": conf} for c, conf in zip(categories, confidences)
+    ], "model_version": MODEL_VERSION})
 
 if __name__ == "__main__":
     app.run(host="0.0.0.0", port=5000)
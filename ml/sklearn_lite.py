@@ -0,0 +1,176 @@
+"""
+Reads the joblib pickles of the TF-IDF vectorizer and liblinear logistic regression without
+numpy / scikit-learn, and scores texts the same way, so export_model.py also runs on machines
+where that stack is not installed. Only what export_model.py needs is supported.
+"""
+import math
+import pickle
+import re
+import struct
+
+_FORMATS = {("f", 8): "d", ("f", 4): "f", ("i", 8): "q", ("i", 4): "i", ("u", 8): "Q", ("u", 4): "I", ("b", 1): "?"}
+
+
+class _DType:
+    def __init__(self, code, *args):
+        self.code = code
+        self.order = "<"
+
+    def __setstate__(self, state):
+        if state[1] in "<>":
+            self.order = state[1]
+
+    @property
+    def itemsize(self):
+        return int(self.code[1:])
+
+    @property
+    def hasobject(self):
+        return self.code[0] == "O"
+
+    def unpack(self, raw, count, order=None):
+        return list(struct.unpack(f"{order or self.order}{count}{_FORMATS[(self.code[0], self.itemsize)]}", raw))
+
+
+class Array:
+    """Row-major array: iterating a 2-D array yields its rows, like numpy."""
+
+    def __init__(self, shape, values):
+        self.shape = tuple(shape)
+        self.values = values
+
+    def __len__(self):
+        return self.shape[0]
+
+    def __iter__(self):
+        if len(self.shape) == 1:
+            return iter(self.values)
+        width = self.shape[1]
+        return (self.values[i * width:(i + 1) * width] for i in range(self.shape[0]))
+
+
+class _State:
+    def __init__(self, *args, **kwargs):
+        pass
+
+    def __setstate__(self, state):
+        self.__dict__.update(state)
+
+
+class _ArrayWrapper(_State):
+    pass
+
+
+class _NdArray(_State):
+    def __setstate__(self, state):
+        _, shape, dtype, _, raw = state
+        count = math.prod(shape)
+        self.array = Array(shape, raw if dtype.hasobject else dtype.unpack(raw, count))
+
+
+def _reconstruct(cls, shape, dtype):
+    return _NdArray()
+
+
+def _scalar(dtype, raw):
+    return dtype.unpack(raw, 1, "<")[0]
+
+
+class _Unpickler(pickle._Unpickler):
+    """joblib writes each array's bytes right after its NumpyArrayWrapper; read them back the same way."""
+
+    dispatch = dict(pickle._Unpickler.dispatch)
+
+    def __init__(self, file):
+        super().__init__(file)
+        self.file = file
+
+    def find_class(self, module, name):
+        special = {"dtype": _DType, "NumpyArrayWrapper": _ArrayWrapper, "ndarray": _NdArray,
+                   "_reconstruct": _reconstruct, "scalar": _scalar}
+        if name in special:
+            return special[name]
+        if module.split(".")[0] in ("sklearn", "numpy", "scipy"):
+            return type(name, (_State,), {"__module__": module})
+        return super().find_class(module, name)
+
+    def load_build(self):
+        super().load_build()
+        top = self.stack[-1]
+        if isinstance(top, _ArrayWrapper):
+            self.stack[-1] = self._read_array(top)
+        elif isinstance(top, _NdArray):
+            self.stack[-1] = top.array
+
+    dispatch[pickle.BUILD[0]] = load_build
+
+    def _read_array(self, wrapper):
+        if wrapper.dtype.hasobject:
+            return _Unpickler(self.file).load()
+        if getattr(wrapper, "numpy_array_alignment_bytes", None) is not None:
+            padding = self.file.read(1)[0]
+            self.file.read(padding)
+        count = math.prod(wrapper.shape)
+        values = wrapper.dtype.unpack(self.file.read(count * wrapper.dtype.itemsize), count)
+        if wrapper.order == "F" and len(wrapper.shape) == 2:
+            rows, cols = wrapper.shape
+            values = [values[c * rows + r] for r in range(rows) for c in range(cols)]
+        return Array(wrapper.shape, values)
+
+
+def load(path):
+    with open(path, "rb") as f:
+        loaded = _Unpickler(f).load()
+    if type(loaded).__name__ == "TfidfVectorizer":
+        loaded.idf_ = loaded._tfidf.idf_
+    return loaded
+
+
+def _analyze(vectorizer, text):
+    if vectorizer.lowercase:
+        text = text.lower()
+    tokens = re.findall(vectorizer.token_pattern, text)
+    min_n, max_n = vectorizer.ngram_range
+    grams = list(tokens) if min_n == 1 else []
+    for n in range(max(min_n, 2), min(max_n, len(tokens)) + 1):
+        grams.extend(" ".join(tokens[i:i + n]) for i in range(len(tokens) - n + 1))
+    return grams
+
+
+def _features(vectorizer, text):
+    counts = {}
+    for gram in _analyze(vectorizer, text):
+        column = vectorizer.vocabulary_.get(gram)
+        if column is not None:
+            counts[column] = counts.get(column, 0) + 1
+    idf = vectorizer.idf_.values
+    weights = {c: (1 + math.log(tf) if vectorizer.sublinear_tf else tf) * idf[c] for c, tf in counts.items()}
+    if vectorizer.norm == "l2":
+        norm = math.sqrt(sum(w * w for w in weights.values()))
+        if norm > 0:
+            weights = {c: w / norm for c, w in weights.items()}
+    return weights
+
+
+def predict(vectorizer, model, texts):
+    """Returns (categories, confidences) as model.predict / predict_proba(...).max(axis=1) would."""
+    classes = model.classes_.values
+    intercept = model.intercept_.values if model.fit_intercept else [0.0] * model.coef_.shape[0]
+    categories, confidences = [], []
+    for text in texts:
+        x = _features(vectorizer, text)
+        scores = [sum(w * row[c] for c, w in sorted(x.items())) + b for row, b in zip(model.coef_, intercept)]
+        if len(scores) == 1:
+            p = 1 / (1 + math.exp(-scores[0]))
+            categories.append(classes[1] if scores[0] > 0 else classes[0])
+            confidences.append(max(p, 1 - p))
+            continue
+        if len(scores) > 2 and model.solver != "liblinear" and getattr(model, "multi_class", "auto") != "ovr":
+            top = max(scores)
+            probs = [math.exp(s - top) for s in scores]
+        else:
+            probs = [1 / (1 + math.exp(-s)) for s in scores]
+        best = max(range(len(scores)), key=lambda i: (scores[i], -i))
+        categories.append(classes[best])
+        confidences.append(probs[best] / sum(probs))
+    return categories, confidences